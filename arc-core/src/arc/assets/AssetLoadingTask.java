@@ -20,7 +20,15 @@ class AssetLoadingTask implements AsyncTask<Void>{
     final AssetLoader loader;
     final AsyncExecutor executor;
     final long startTime;
+    /** Whether the loader may have other assets in progress at the same time, see {@link AssetLoader#isConcurrent()}. */
+    final boolean concurrent;
     AssetManager manager;
+    /** The queued asset this task was created for; itself, unless it is a dependency. */
+    AssetLoadingTask root = this;
+    /** The number of other assets that requested this one as a dependency while it was loading. */
+    int refs;
+    /** Time spent in the loader, in nanoseconds. */
+    volatile long asyncTime, syncTime;
     volatile boolean asyncDone = false;
     volatile boolean dependenciesLoaded = false;
     volatile Seq<AssetDescriptor> dependencies;
@@ -36,12 +44,14 @@ class AssetLoadingTask implements AsyncTask<Void>{
         this.assetDesc = assetDesc;
         this.loader = loader;
         this.executor = threadPool;
+        concurrent = loader.isConcurrent();
         startTime = Time.nanos();
     }
 
     /** Loads parts of the asset asynchronously if the loader is an {@link AsynchronousAssetLoader}. */
     @Override
     public Void call(){
+        long start = Time.nanos();
         AsynchronousAssetLoader asyncLoader = (AsynchronousAssetLoader)loader;
         if(!dependenciesLoaded){
             dependencies = asyncLoader.getDependencies(assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
@@ -56,6 +66,7 @@ class AssetLoadingTask implements AsyncTask<Void>{
         }else{
             asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
         }
+        asyncTime += Time.timeSinceNanos(start);
         return null;
     }
 
@@ -67,15 +78,32 @@ class AssetLoadingTask implements AsyncTask<Void>{
      * @return true in case the asset was fully loaded, false otherwise
      */
     public boolean update(){
+        if(asset != null) return true;
+        long start = Time.nanos();
         ticks++;
         if(loader instanceof SynchronousAssetLoader){
             handleSyncLoader();
         }else{
             handleAsyncLoader();
         }
+        syncTime += Time.timeSinceNanos(start);
         return asset != null;
     }
 
+    /** @return whether this task is waiting for one of its dependencies, which are loaded by other tasks. */
+    boolean waiting(Seq<AssetLoadingTask> tasks){
+        Seq<?> dependencies = this.dependencies;
+        if(dependencies == null) return false;
+        for(int i = 0; i < dependencies.size; i++){
+            String fileName = ((AssetDescriptor<?>)dependencies.get(i)).fileName;
+            for(int j = 0; j < tasks.size; j++){
+                AssetLoadingTask task = tasks.get(j);
+                if(task != this && task.assetDesc.fileName.equals(fileName)) return true;
+            }
+        }
+        return false;
+    }
+
     private void handleSyncLoader(){
         SynchronousAssetLoader syncLoader = (SynchronousAssetLoader)loader;
         if(!dependenciesLoaded){
@@ -128,6 +156,32 @@ class AssetLoadingTask implements AsyncTask<Void>{
         }
     }
 
+    /** @return whether a loading step of the asset is running on another thread. */
+    boolean running(){
+        AsyncResult<Void> deps = depsFuture, load = loadFuture;
+        return (deps != null && !deps.isDone()) || (load != null && !load.isDone());
+    }
+
+    /**
+     * Lets the loader release what it stored for the asset, if loading stopped before the asset was returned. Steps running on
+     * other threads are waited for first, as they could store it again afterwards.
+     */
+    void release(){
+        if(asset != null) return;
+        await(depsFuture);
+        await(loadFuture);
+        loader.cancel(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+    }
+
+    private void await(AsyncResult<Void> future){
+        if(future == null) return;
+        try{
+            future.get();
+        }catch(Exception ignored){
+            //the asset is not loaded either way
+        }
+    }
+
     private Fi resolve(AssetLoader loader, AssetDescriptor assetDesc){
         if(assetDesc.file == null) assetDesc.file = loader.resolve(assetDesc.fileName);
         return assetDesc.file;
@@ -11,10 +11,16 @@ import arc.graphics.gl.*;
 import arc.util.*;
 import arc.util.async.*;
 
-import java.util.*;
-
 /**
  * Loads and stores assets like textures, bitmapfonts, tile maps, sounds, music and so on.
+ * <p>
+ * The asynchronous parts of loading run on a pool of threads. Assets whose loaders are {@link AssetLoader#isConcurrent()
+ * concurrent} are loaded alongside each other, each as soon as its dependencies are done, while the synchronous parts (usually
+ * GL uploads) run on the thread calling {@link #update()}. Assets with other loaders are loaded one at a time, in queue order.
+ * How long each asset took is available through {@link #getLoadTiming(String)}.
+ * <p>
+ * Large textures are uploaded in steps by a {@link TextureUploader}, and {@link #update(int)} only does as much work on the
+ * calling thread as fits in the given time, so loading can happen alongside rendering without long frames.
  * @author mzechner
  */
 @SuppressWarnings("unchecked")
@@ -27,8 +33,12 @@ public class AssetManager implements Disposable{
     final ObjectMap<Class, ObjectMap<String, AssetLoader>> loaders = new ObjectMap<>();
     final Seq<AssetDescriptor> loadQueue = new Seq<>();
     final AsyncExecutor executor;
+    final int threads;
 
-    final Stack<AssetLoadingTask> tasks = new Stack<>();
+    final Seq<AssetLoadingTask> tasks = new Seq<>();
+    final Seq<AssetLoadingTask> updating = new Seq<>();
+    final OrderedMap<String, LoadTiming> timings = new OrderedMap<>();
+    final TextureUploader uploader = new TextureUploader();
     final FileHandleResolver resolver;
     AssetErrorListener listener = null;
     int loaded = 0;
@@ -51,7 +61,19 @@ public class AssetManager implements Disposable{
      * @param defaultLoaders whether to add the default loaders
      */
     public AssetManager(FileHandleResolver resolver, boolean defaultLoaders){
+        this(resolver, defaultLoaders, Math.max(OS.cores - 1, 1));
+    }
+
+    /**
+     * Creates a new AssetManager with optionally all default loaders, using a specific number of loading threads.
+     * @param defaultLoaders whether to add the default loaders
+     * @param threads the number of threads to run asynchronous loading on. With a single thread, all assets are loaded one at
+     * a time, in queue order.
+     */
+    public AssetManager(FileHandleResolver resolver, boolean defaultLoaders, int threads){
+        if(threads < 1) throw new IllegalArgumentException("threads must be at least 1: " + threads);
         this.resolver = resolver;
+        this.threads = threads;
         if(defaultLoaders){
             setLoader(Font.class, new FontLoader(resolver));
             setLoader(Music.class, new MusicLoader(resolver));
@@ -63,7 +85,7 @@ public class AssetManager implements Disposable{
             setLoader(Shader.class, new ShaderProgramLoader(resolver));
             setLoader(Cubemap.class, new CubemapLoader(resolver));
         }
-        executor = new AsyncExecutor(1);
+        executor = new AsyncExecutor(threads);
     }
 
     /**
@@ -129,7 +151,7 @@ public class AssetManager implements Disposable{
 
     /** Returns true if an asset with the specified name is loading, queued to be loaded, or has been loaded. */
     public synchronized boolean contains(String fileName){
-        if(tasks.size() > 0 && tasks.firstElement().assetDesc.fileName.equals(fileName)) return true;
+        if(findTask(fileName) != null) return true;
 
         for(int i = 0; i < loadQueue.size; i++)
             if(loadQueue.get(i).fileName.equals(fileName)) return true;
@@ -139,8 +161,8 @@ public class AssetManager implements Disposable{
 
     /** Returns true if an asset with the specified name and type is loading, queued to be loaded, or has been loaded. */
     public synchronized boolean contains(String fileName, Class type){
-        if(tasks.size() > 0){
-            AssetDescriptor assetDesc = tasks.firstElement().assetDesc;
+        for(int i = 0; i < tasks.size; i++){
+            AssetDescriptor<?> assetDesc = tasks.get(i).assetDesc;
             if(assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
         }
 
@@ -157,14 +179,12 @@ public class AssetManager implements Disposable{
      * @param fileName the file name
      */
     public synchronized void unload(String fileName){
-        // check if it's currently processed (and the first element in the stack, thus not a dependency)
+        // check if it's currently processed (and queued itself, thus not a dependency)
         // and cancel if necessary
-        if(tasks.size() > 0){
-            AssetLoadingTask currAsset = tasks.firstElement();
-            if(currAsset.assetDesc.fileName.equals(fileName)){
-                currAsset.cancel = true;
-                return;
-            }
+        AssetLoadingTask currAsset = findTask(fileName);
+        if(currAsset != null && currAsset.root == currAsset){
+            currAsset.cancel = true;
+            return;
         }
 
         // check if it's in the queue
@@ -198,6 +218,7 @@ public class AssetManager implements Disposable{
             // remove the asset from the manager.
             assetTypes.remove(fileName);
             assets.get(type).remove(fileName);
+            timings.remove(fileName);
         }
 
         // remove any dependencies (or just decrement their ref count).
@@ -396,7 +417,7 @@ public class AssetManager implements Disposable{
         }
 
         // check task list
-        for(int i = 0; i < tasks.size(); i++){
+        for(int i = 0; i < tasks.size; i++){
             AssetDescriptor desc = tasks.get(i).assetDesc;
             if(desc.fileName.equals(fileName) && !desc.type.equals(type)) throw new ArcRuntimeException(
             "Asset with name '" + fileName + "' already in task list, but has different type (expected: "
@@ -428,49 +449,74 @@ public class AssetManager implements Disposable{
      * @return true if all loading is finished.
      */
     public synchronized boolean update(){
+        return update(Long.MAX_VALUE);
+    }
+
+    /**
+     * Updates the AssetManager, stopping once the deadline has passed. At least one task and one texture upload step are
+     * processed, so loading always makes progress.
+     * @param deadline the time to stop at, in {@link Time#nanos()}
+     * @return true if all loading is finished.
+     */
+    synchronized boolean update(long deadline){
+        startTasks();
+        // have we not found a task? We are done!
+        if(tasks.size == 0 && uploader.isEmpty()) return true;
+
+        // update the newest tasks first, as they are usually dependencies of older ones
+        updating.addAll(tasks);
         try{
-            if(tasks.size() == 0){
-                // loop until we have a new task ready to be processed
-                while(loadQueue.size != 0 && tasks.size() == 0){
-                    nextTask();
+            boolean updated = false;
+            for(int i = updating.size - 1; i >= 0; i--){
+                AssetLoadingTask task = updating.get(i);
+                // skip tasks removed by an error, and tasks that have to wait for other ones
+                if(!tasks.contains(task, true) || task.waiting(tasks) || busy(task)) continue;
+                if(updated && Time.nanos() >= deadline) break;
+
+                try{
+                    updateTask(task);
+                }catch(Throwable t){
+                    handleTaskError(task, t);
                 }
-                // have we not found a task? We are done!
-                if(tasks.size() == 0) return true;
+                updated = true;
             }
-            return updateTask() && loadQueue.size == 0 && tasks.size() == 0;
-        }catch(Throwable t){
-            handleTaskError(t);
-            return loadQueue.size == 0;
+        }finally{
+            updating.clear();
         }
+
+        uploader.update(deadline);
+        return loadQueue.size == 0 && tasks.size == 0 && uploader.isEmpty();
     }
 
     /** @return the asset loading task that is currently being processed.
      * May return null if nothing is being loaded. */
     public synchronized AssetDescriptor getCurrentLoading(){
-        if(tasks.size() > 0){
-            return tasks.firstElement().assetDesc;
+        for(int i = 0; i < tasks.size; i++){
+            AssetLoadingTask task = tasks.get(i);
+            if(task.root == task) return task.assetDesc;
         }
         return null;
     }
 
     /**
-     * Updates the AssetManager continuously for the specified number of milliseconds, yielding the CPU to the loading thread
-     * between updates. This may block for less time if all loading tasks are complete. This may block for more time if the portion
-     * of a single task that happens in the GL thread takes a long time.
+     * Updates the AssetManager continuously for the specified number of milliseconds, yielding the CPU to the loading threads
+     * between updates. This may block for less time if all loading tasks are complete. Texture uploads are split into steps that
+     * fit in the remaining time, but this may still block for more time if a step that cannot be split, like the synchronous part
+     * of a custom loader, takes a long time.
      * @return true if all loading is finished.
      */
     public boolean update(int millis){
-        long endTime = Time.millis() + millis;
+        long deadline = Time.nanos() + millis * 1000000L;
         while(true){
-            boolean done = update();
-            if(done || Time.millis() > endTime) return done;
+            boolean done = update(deadline);
+            if(done || Time.nanos() >= deadline) return done;
             Threads.yield();
         }
     }
 
     /** Returns true when all assets are loaded. Can be called from any thread. */
     public synchronized boolean isFinished(){
-        return loadQueue.size == 0 && tasks.size() == 0;
+        return loadQueue.size == 0 && tasks.size == 0;
     }
 
     /** Blocks until all assets are loaded. */
@@ -524,14 +570,71 @@ public class AssetManager implements Disposable{
             assetRef.incRefCount();
             incrementRefCountedDependencies(dependendAssetDesc.fileName);
         }
-        // else add a new task for the asset.
+        // if it is already being loaded for another asset, count the reference once it is done.
         else{
-            addTask(dependendAssetDesc);
+            AssetLoadingTask task = findTask(dependendAssetDesc.fileName);
+            if(task != null){
+                task.refs++;
+            }else{
+                // else add a new task for the asset.
+                AssetLoadingTask parent = findTask(parentAssetFilename);
+                AssetLoadingTask added = addTask(dependendAssetDesc);
+                if(parent != null) added.root = parent.root;
+            }
+        }
+    }
+
+    /**
+     * Moves assets from the queue to the task list for as long as they can be loaded alongside the current tasks: all of them
+     * must have concurrent loaders, and at most twice as many assets as there are threads are loaded at once, so decoded data
+     * does not pile up waiting for the synchronous step.
+     */
+    private void startTasks(){
+        while(loadQueue.size != 0){
+            if(tasks.size > 0){
+                AssetDescriptor<?> next = loadQueue.first();
+                // an asset that is already loading has to finish first, so this reference is counted.
+                if(findTask(next.fileName) != null) return;
+
+                AssetLoader<?, ?> loader = getLoader(next.type, next.fileName);
+                if(threads == 1 || loader == null || !loader.isConcurrent()) return;
+
+                int loading = 0;
+                for(int i = 0; i < tasks.size; i++){
+                    AssetLoadingTask task = tasks.get(i);
+                    if(task.root != task) continue;
+                    if(!task.concurrent) return;
+                    loading++;
+                }
+                if(loading >= threads * 2) return;
+            }
+            nextTask();
+        }
+    }
+
+    /**
+     * @return whether the task's loader is not concurrent and already busy with another asset. Loaders that are waiting for
+     * dependencies do not count, so an asset can depend on another one with the same loader.
+     */
+    private boolean busy(AssetLoadingTask task){
+        if(task.concurrent || task.ticks > 0) return false;
+        for(int i = 0; i < tasks.size; i++){
+            AssetLoadingTask other = tasks.get(i);
+            if(other != task && other.loader == task.loader && other.ticks > 0 && !other.waiting(tasks)) return true;
         }
+        return false;
+    }
+
+    private @Nullable AssetLoadingTask findTask(String fileName){
+        for(int i = 0; i < tasks.size; i++){
+            AssetLoadingTask task = tasks.get(i);
+            if(task.assetDesc.fileName.equals(fileName)) return task;
+        }
+        return null;
     }
 
     /**
-     * Removes a task from the loadQueue and adds it to the task stack. If the asset is already loaded (which can happen if it was
+     * Removes a task from the loadQueue and adds it to the task list. If the asset is already loaded (which can happen if it was
      * a dependency of a previously loaded asset) its reference count will be increased.
      */
     private void nextTask(){
@@ -555,14 +658,16 @@ public class AssetManager implements Disposable{
     }
 
     /**
-     * Adds a {@link AssetLoadingTask} to the task stack for the given asset.
+     * Adds a {@link AssetLoadingTask} to the task list for the given asset.
      */
-    private void addTask(AssetDescriptor assetDesc){
+    private AssetLoadingTask addTask(AssetDescriptor<?> assetDesc){
         AssetLoader loader = getLoader(assetDesc.type, assetDesc.fileName);
         if(loader == null)
             throw new ArcRuntimeException("No loader for type: " + assetDesc.type.getSimpleName());
-        tasks.push(new AssetLoadingTask(this, assetDesc, loader, executor));
+        AssetLoadingTask task = new AssetLoadingTask(this, assetDesc, loader, executor);
+        tasks.add(task);
         peakTasks++;
+        return task;
     }
 
     /** Adds an asset to this AssetManager */
@@ -580,15 +685,14 @@ public class AssetManager implements Disposable{
     }
 
     /**
-     * Updates the current task on the top of the task stack.
+     * Updates a task, adding its asset once it is done.
      * @return true if the asset is loaded or the task was cancelled.
      */
-    private boolean updateTask(){
-        AssetLoadingTask task = tasks.peek();
-
+    private boolean updateTask(AssetLoadingTask task){
         boolean complete = true;
         try{
-            complete = task.cancel || task.update();
+            // textures are done once their pixels are uploaded. a cancelled task is done once no step of it is still running
+            complete = task.cancel ? !task.running() : task.update() && !uploading(task.getAsset());
         }catch(RuntimeException ex){
             task.cancel = true;
             taskFailed(task.assetDesc, ex);
@@ -596,20 +700,35 @@ public class AssetManager implements Disposable{
 
         // if the task has been cancelled or has finished loading
         if(complete){
-            // increase the number of loaded assets and pop the task from the stack
-            if(tasks.size() == 1){
-                loaded++;
-                peakTasks = 0;
+            // increase the number of loaded assets and remove the task
+            if(task.root == task) loaded++;
+            tasks.remove(task, true);
+            if(tasks.size == 0) peakTasks = 0;
+            if(task.cancel) task.release();
+
+            // a cancelled asset is still added if other assets depend on it
+            String fileName = task.assetDesc.fileName;
+            int references = task.refs + (task.cancel ? 0 : 1);
+            if(task.getAsset() == null) return true;
+            if(references == 0){
+                // nothing refers to the asset, so it is disposed like an unloaded one
+                discard(task.getAsset());
+                return true;
             }
-            tasks.pop();
 
-            if(task.cancel) return true;
+            addAsset(fileName, task.assetDesc.type, task.getAsset());
+            for(int i = 1; i < references; i++){
+                assets.get(task.assetDesc.type).get(fileName).incRefCount();
+                incrementRefCountedDependencies(fileName);
+            }
+            timings.put(fileName, new LoadTiming(fileName, task.assetDesc.type, Time.timeSinceNanos(task.startTime),
+            task.asyncTime, task.syncTime));
 
-            addAsset(task.assetDesc.fileName, task.assetDesc.type, task.getAsset());
+            if(task.cancel) return true;
 
             // otherwise, if a listener was found in the parameter invoke it
             if(task.assetDesc.params != null && task.assetDesc.params.loadedCallback != null){
-                task.assetDesc.params.loadedCallback.finishedLoading(this, task.assetDesc.fileName, task.assetDesc.type);
+                task.assetDesc.params.loadedCallback.finishedLoading(this, fileName, task.assetDesc.type);
             }
 
             task.assetDesc.loaded.get(task.getAsset());
@@ -619,6 +738,16 @@ public class AssetManager implements Disposable{
         return false;
     }
 
+    /** Disposes an asset that finished loading after it was cancelled, stopping its upload if it is a texture. */
+    private void discard(Object asset){
+        if(asset instanceof Texture) uploader.cancel((Texture)asset);
+        if(asset instanceof Disposable) ((Disposable)asset).dispose();
+    }
+
+    private boolean uploading(Object asset){
+        return asset instanceof Texture && uploader.isUploading((Texture)asset);
+    }
+
     /**
      * Called when a task throws an exception during loading. The default implementation rethrows the exception. A subclass may
      * supress the default implementation when loading assets where loading failure is recoverable.
@@ -642,22 +771,26 @@ public class AssetManager implements Disposable{
     /**
      * Handles a runtime/loading error in {@link #update()} by optionally invoking the {@link AssetErrorListener}.
      */
-    private void handleTaskError(Throwable t){
-        if(tasks.isEmpty()) throw new ArcRuntimeException(t);
-
-        // pop the faulty task from the stack
-        AssetLoadingTask task = tasks.pop();
+    private void handleTaskError(AssetLoadingTask task, Throwable t){
         AssetDescriptor assetDesc = task.assetDesc;
 
         // remove all dependencies
         if(task.dependenciesLoaded && task.dependencies != null){
             for(AssetDescriptor desc : task.dependencies){
-                unload(desc.fileName);
+                if(isLoaded(desc.fileName)) unload(desc.fileName);
             }
         }
 
-        // clear the rest of the stack
-        tasks.clear();
+        // remove the faulty task and every other task loading the same queued asset
+        AssetLoadingTask root = task.root;
+        for(int i = tasks.size - 1; i >= 0; i--){
+            AssetLoadingTask other = tasks.get(i);
+            if(other == task || other.root == root){
+                tasks.remove(i);
+                other.release();
+            }
+        }
+        if(tasks.size == 0) peakTasks = 0;
 
         // inform the listener that something bad happened
         if(listener != null){
@@ -695,6 +828,11 @@ public class AssetManager implements Disposable{
         loaders.put(suffix == null ? "" : suffix, loader);
     }
 
+    /** @return the uploader used for textures loaded by this manager. */
+    public TextureUploader getUploader(){
+        return uploader;
+    }
+
     /** @return the number of loaded assets */
     public synchronized int getLoadedAssets(){
         return assetTypes.size;
@@ -702,7 +840,7 @@ public class AssetManager implements Disposable{
 
     /** @return the number of currently queued assets */
     public synchronized int getQueuedAssets(){
-        return loadQueue.size + tasks.size();
+        return loadQueue.size + tasks.size;
     }
 
     /** @return the progress in percent of completion. */
@@ -710,7 +848,7 @@ public class AssetManager implements Disposable{
         if(toLoad == 0) return 1;
         float fractionalLoaded = (float)loaded;
         if(peakTasks > 0){
-            fractionalLoaded += ((peakTasks - tasks.size()) / (float)peakTasks);
+            fractionalLoaded += ((peakTasks - tasks.size) / (float)peakTasks);
         }
         return Math.min(1, fractionalLoaded / (float)toLoad);
     }
@@ -771,6 +909,7 @@ public class AssetManager implements Disposable{
         this.peakTasks = 0;
         this.loadQueue.clear();
         this.tasks.clear();
+        this.timings.clear();
     }
 
     /**
@@ -807,6 +946,13 @@ public class AssetManager implements Disposable{
             sb.append(", refs: ");
             sb.append(assetRef.getRefCount());
 
+            LoadTiming timing = timings.get(fileName);
+            if(timing != null){
+                sb.append(", time: ");
+                sb.append(Strings.fixed(timing.totalTime, 2));
+                sb.append("ms");
+            }
+
             if(dependencies != null){
                 sb.append(", deps: [");
                 for(String dep : dependencies){
@@ -835,4 +981,40 @@ public class AssetManager implements Disposable{
         return assetTypes.get(fileName);
     }
 
+    /** @return how long a loaded asset took to load, or null if it is not loaded. */
+    public synchronized @Nullable LoadTiming getLoadTiming(String fileName){
+        return timings.get(fileName);
+    }
+
+    /** @return how long each loaded asset took to load, in the order they finished loading. */
+    public synchronized Seq<LoadTiming> getLoadTimings(){
+        return timings.values().toSeq();
+    }
+
+    /** Describes how long an asset took to load. All times are in milliseconds. */
+    public static class LoadTiming{
+        public final String fileName;
+        public final Class<?> type;
+        /** Time from when loading started until the asset was added, including waiting for dependencies and loading threads. */
+        public final float totalTime;
+        /** Time spent in the asynchronous part of the loader, on a loading thread. */
+        public final float asyncTime;
+        /** Time spent in the synchronous part of the loader, on the thread calling {@link AssetManager#update()}. */
+        public final float syncTime;
+
+        LoadTiming(String fileName, Class<?> type, long totalNanos, long asyncNanos, long syncNanos){
+            this.fileName = fileName;
+            this.type = type;
+            this.totalTime = totalNanos / 1000000f;
+            this.asyncTime = asyncNanos / 1000000f;
+            this.syncTime = syncNanos / 1000000f;
+        }
+
+        @Override
+        public String toString(){
+            return fileName + ": " + Strings.fixed(totalTime, 2) + "ms (async: " + Strings.fixed(asyncTime, 2) + "ms, sync: "
+            + Strings.fixed(syncTime, 2) + "ms)";
+        }
+    }
+
 }
@@ -2,6 +2,7 @@ package arc.assets.loaders;
 
 import arc.assets.AssetDescriptor;
 import arc.assets.AssetLoaderParameters;
+import arc.assets.AssetManager;
 import arc.struct.Seq;
 import arc.files.Fi;
 
@@ -38,4 +39,25 @@ public abstract class AssetLoader<T, P extends AssetLoaderParameters<T>>{
      * @return other assets that the asset depends on and need to be loaded first or null if there are no dependencies.
      */
     public abstract Seq<AssetDescriptor> getDependencies(String fileName, Fi file, P parameter);
+
+    /**
+     * Called when an asset stops loading before this loader returned it, because it was unloaded or loading failed. Loaders that
+     * keep state between loading steps must remove and dispose what they stored for the file name here. This is never called
+     * while another loading step of the asset is running. The default implementation does nothing.
+     * @param fileName name of the asset that was being loaded
+     * @param file the resolved file
+     * @param parameter parameters for loading the asset
+     */
+    public void cancel(AssetManager manager, String fileName, Fi file, P parameter){
+    }
+
+    /**
+     * Returns whether this loader can work on several assets at once. If true, the {@link AssetManager} may interleave the loading
+     * steps of different assets and call {@link AsynchronousAssetLoader#loadAsync(AssetManager, String, Fi, AssetLoaderParameters)}
+     * from several threads, so any state kept between steps must be stored per file name. Assets with loaders that return false
+     * are loaded one at a time, in queue order.
+     */
+    public boolean isConcurrent(){
+        return false;
+    }
 }
@@ -13,6 +13,8 @@ import arc.graphics.Texture.TextureFilter;
 import arc.graphics.Texture.TextureWrap;
 import arc.graphics.TextureData;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * {@link AssetLoader} for {@link Cubemap} instances. The pixel data is loaded asynchronously. The texture is then created on the
  * rendering thread, synchronously. Passing a {@link CubemapParameter} to
@@ -21,7 +23,7 @@ import arc.graphics.TextureData;
  * @author mzechner, Vincent Bousquet
  */
 public class CubemapLoader extends AsynchronousAssetLoader<Cubemap, CubemapLoader.CubemapParameter>{
-    CubemapLoaderInfo info = new CubemapLoaderInfo();
+    final ConcurrentHashMap<String, CubemapLoaderInfo> infos = new ConcurrentHashMap<>();
 
     public CubemapLoader(FileHandleResolver resolver){
         super(resolver);
@@ -29,6 +31,7 @@ public class CubemapLoader extends AsynchronousAssetLoader<Cubemap, CubemapLoade
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, Fi file, CubemapParameter parameter){
+        CubemapLoaderInfo info = new CubemapLoaderInfo();
         info.filename = fileName;
         if(parameter == null || parameter.cubemapData == null){
             Pixmap pixmap = null;
@@ -45,10 +48,12 @@ public class CubemapLoader extends AsynchronousAssetLoader<Cubemap, CubemapLoade
             info.cubemap = parameter.cubemap;
         }
         if(!info.data.isPrepared()) info.data.prepare();
+        infos.put(fileName, info);
     }
 
     @Override
     public Cubemap loadSync(AssetManager manager, String fileName, Fi file, CubemapParameter parameter){
+        CubemapLoaderInfo info = infos.remove(fileName);
         if(info == null) return null;
         Cubemap cubemap = info.cubemap;
         if(cubemap != null){
@@ -63,11 +68,21 @@ public class CubemapLoader extends AsynchronousAssetLoader<Cubemap, CubemapLoade
         return cubemap;
     }
 
+    @Override
+    public void cancel(AssetManager manager, String fileName, Fi file, CubemapParameter parameter){
+        infos.remove(fileName);
+    }
+
     @Override
     public Seq<AssetDescriptor> getDependencies(String fileName, Fi file, CubemapParameter parameter){
         return null;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class CubemapLoaderInfo{
         String filename;
         CubemapData data;
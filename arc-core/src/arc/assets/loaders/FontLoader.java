@@ -15,6 +15,8 @@ import arc.graphics.g2d.TextureAtlas.AtlasRegion;
 import arc.graphics.g2d.TextureRegion;
 import arc.util.ArcRuntimeException;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * {@link AssetLoader} for {@link Font} instances. Loads the font description file (.fnt) asynchronously, loads the
  * {@link Texture} containing the glyphs as a dependency. The {@link FontParameter} allows you to set things like texture
@@ -22,7 +24,7 @@ import arc.util.ArcRuntimeException;
  * @author mzechner
  */
 public class FontLoader extends AsynchronousAssetLoader<Font, FontParameter>{
-    FontData data;
+    final ConcurrentHashMap<String, FontData> fontData = new ConcurrentHashMap<>();
 
     public FontLoader(FileHandleResolver resolver){
         super(resolver);
@@ -32,11 +34,12 @@ public class FontLoader extends AsynchronousAssetLoader<Font, FontParameter>{
     public Seq<AssetDescriptor> getDependencies(String fileName, Fi file, FontParameter parameter){
         Seq<AssetDescriptor> deps = new Seq();
         if(parameter != null && parameter.fontData != null){
-            data = parameter.fontData;
+            fontData.put(fileName, parameter.fontData);
             return deps;
         }
 
-        data = new FontData(file, parameter != null && parameter.flip);
+        FontData data = new FontData(file, parameter != null && parameter.flip);
+        fontData.put(fileName, data);
         if(parameter != null && parameter.atlasName != null){
             deps.add(new AssetDescriptor(parameter.atlasName, TextureAtlas.class));
         }else{
@@ -64,8 +67,19 @@ public class FontLoader extends AsynchronousAssetLoader<Font, FontParameter>{
     public void loadAsync(AssetManager manager, String fileName, Fi file, FontParameter parameter){
     }
 
+    @Override
+    public void cancel(AssetManager manager, String fileName, Fi file, FontParameter parameter){
+        fontData.remove(fileName);
+    }
+
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     @Override
     public Font loadSync(AssetManager manager, String fileName, Fi file, FontParameter parameter){
+        FontData data = fontData.remove(fileName);
         if(parameter != null && parameter.atlasName != null){
             TextureAtlas atlas = manager.get(parameter.atlasName, TextureAtlas.class);
             String name = file.sibling(data.imagePaths[0]).nameWithoutExtension();
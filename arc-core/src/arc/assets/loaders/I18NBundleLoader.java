@@ -8,6 +8,7 @@ import arc.files.Fi;
 import arc.util.I18NBundle;
 
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * {@link AssetLoader} for {@link I18NBundle} instances. The I18NBundle is loaded asynchronously.
@@ -30,7 +31,7 @@ import java.util.Locale;
  */
 public class I18NBundleLoader extends AsynchronousAssetLoader<I18NBundle, I18NBundleLoader.I18NBundleParameter>{
 
-    I18NBundle bundle;
+    final ConcurrentHashMap<String, I18NBundle> bundles = new ConcurrentHashMap<>();
 
     public I18NBundleLoader(FileHandleResolver resolver){
         super(resolver);
@@ -38,7 +39,6 @@ public class I18NBundleLoader extends AsynchronousAssetLoader<I18NBundle, I18NBu
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, Fi file, I18NBundleParameter parameter){
-        this.bundle = null;
         Locale locale;
         String encoding;
         if(parameter == null){
@@ -49,17 +49,20 @@ public class I18NBundleLoader extends AsynchronousAssetLoader<I18NBundle, I18NBu
             encoding = parameter.encoding;
         }
         if(encoding == null){
-            this.bundle = I18NBundle.createBundle(file, locale);
+            bundles.put(fileName, I18NBundle.createBundle(file, locale));
         }else{
-            this.bundle = I18NBundle.createBundle(file, locale, encoding);
+            bundles.put(fileName, I18NBundle.createBundle(file, locale, encoding));
         }
     }
 
     @Override
     public I18NBundle loadSync(AssetManager manager, String fileName, Fi file, I18NBundleParameter parameter){
-        I18NBundle bundle = this.bundle;
-        this.bundle = null;
-        return bundle;
+        return bundles.remove(fileName);
+    }
+
+    @Override
+    public void cancel(AssetManager manager, String fileName, Fi file, I18NBundleParameter parameter){
+        bundles.remove(fileName);
     }
 
     @Override
@@ -67,6 +70,11 @@ public class I18NBundleLoader extends AsynchronousAssetLoader<I18NBundle, I18NBu
         return null;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class I18NBundleParameter extends AssetLoaderParameters<I18NBundle>{
         public final Locale locale;
         public final String encoding;
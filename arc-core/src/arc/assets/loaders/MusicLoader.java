@@ -7,19 +7,22 @@ import arc.files.*;
 import arc.struct.*;
 import arc.util.*;
 
+import java.util.concurrent.*;
+
 /**
  * {@link AssetLoader} for {@link Music} instances. The Music instance is loaded synchronously.
  * @author mzechner
  */
 public class MusicLoader extends AsynchronousAssetLoader<Music, MusicLoader.MusicParameter>{
-    private Music music;
+    private final ConcurrentHashMap<String, Music> musics = new ConcurrentHashMap<>();
+    private volatile Music music;
 
     public MusicLoader(FileHandleResolver resolver){
         super(resolver);
     }
 
     /**
-     * Returns the {@link Music} instance currently loaded by this
+     * Returns the {@link Music} instance most recently loaded by this
      * {@link MusicLoader}.
      * @return the currently loaded {@link Music}, otherwise {@code null} if
      * no {@link Music} has been loaded yet.
@@ -30,29 +33,47 @@ public class MusicLoader extends AsynchronousAssetLoader<Music, MusicLoader.Musi
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, Fi file, MusicParameter parameter){
+        Music music;
         if(parameter != null && parameter.music != null){
+            music = parameter.music;
             try{
-                (music = parameter.music).load(file);
+                music.load(file);
             }catch(Exception e){
                 Log.err(e);
             }
         }else{
             music = Core.audio.newMusic(file);
         }
+        musics.put(fileName, music);
+        this.music = music;
     }
 
     @Override
     public Music loadSync(AssetManager manager, String fileName, Fi file, MusicParameter parameter){
-        Music music = this.music;
-        this.music = null;
+        Music music = musics.remove(fileName);
+        if(this.music == music) this.music = null;
         return music;
     }
 
+    @Override
+    public void cancel(AssetManager manager, String fileName, Fi file, MusicParameter parameter){
+        Music music = musics.remove(fileName);
+        if(music == null) return;
+        if(this.music == music) this.music = null;
+        //a music passed in the parameter belongs to the caller
+        if(parameter == null || parameter.music != music) music.dispose();
+    }
+
     @Override
     public Seq<AssetDescriptor> getDependencies(String fileName, Fi file, MusicParameter parameter){
         return null;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class MusicParameter extends AssetLoaderParameters<Music>{
         public @Nullable Music music;
 
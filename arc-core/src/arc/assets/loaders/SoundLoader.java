@@ -7,19 +7,22 @@ import arc.files.*;
 import arc.struct.*;
 import arc.util.*;
 
+import java.util.concurrent.*;
+
 /**
  * {@link AssetLoader} to load {@link Sound} instances.
  * @author mzechner
  */
 public class SoundLoader extends AsynchronousAssetLoader<Sound, SoundLoader.SoundParameter>{
-    private Sound sound;
+    private final ConcurrentHashMap<String, Sound> sounds = new ConcurrentHashMap<>();
+    private volatile Sound sound;
 
     public SoundLoader(FileHandleResolver resolver){
         super(resolver);
     }
 
     /**
-     * Returns the {@link Sound} instance currently loaded by this
+     * Returns the {@link Sound} instance most recently loaded by this
      * {@link SoundLoader}.
      * @return the currently loaded {@link Sound}, otherwise {@code null} if
      * no {@link Sound} has been loaded yet.
@@ -30,25 +33,42 @@ public class SoundLoader extends AsynchronousAssetLoader<Sound, SoundLoader.Soun
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, Fi file, SoundParameter parameter){
+        Sound sound;
         if(parameter != null && parameter.sound != null){
             (sound = parameter.sound).load(file);
         }else{
             sound = Core.audio.newSound(file);
         }
+        sounds.put(fileName, sound);
+        this.sound = sound;
     }
 
     @Override
     public Sound loadSync(AssetManager manager, String fileName, Fi file, SoundParameter parameter){
-        Sound sound = this.sound;
-        this.sound = null;
+        Sound sound = sounds.remove(fileName);
+        if(this.sound == sound) this.sound = null;
         return sound;
     }
 
+    @Override
+    public void cancel(AssetManager manager, String fileName, Fi file, SoundParameter parameter){
+        Sound sound = sounds.remove(fileName);
+        if(sound == null) return;
+        if(this.sound == sound) this.sound = null;
+        //a sound passed in the parameter belongs to the caller
+        if(parameter == null || parameter.sound != sound) sound.dispose();
+    }
+
     @Override
     public Seq<AssetDescriptor> getDependencies(String fileName, Fi file, SoundParameter parameter){
         return null;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class SoundParameter extends AssetLoaderParameters<Sound>{
         public @Nullable Sound sound;
 
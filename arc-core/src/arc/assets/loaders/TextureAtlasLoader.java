@@ -11,6 +11,8 @@ import arc.graphics.g2d.TextureAtlas;
 import arc.graphics.g2d.TextureAtlas.TextureAtlasData;
 import arc.graphics.g2d.TextureAtlas.TextureAtlasData.AtlasPage;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * {@link AssetLoader} to load {@link TextureAtlas} instances. Passing a {@link TextureAtlasParameter} to
  * {@link AssetManager#load(String, Class, AssetLoaderParameters)} allows to specify whether the atlas regions should be flipped
@@ -18,7 +20,7 @@ import arc.graphics.g2d.TextureAtlas.TextureAtlasData.AtlasPage;
  * @author mzechner
  */
 public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, TextureAtlasLoader.TextureAtlasParameter>{
-    TextureAtlasData data;
+    final ConcurrentHashMap<String, TextureAtlasData> atlasData = new ConcurrentHashMap<>();
 
     public TextureAtlasLoader(FileHandleResolver resolver){
         super(resolver);
@@ -26,24 +28,30 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
 
     @Override
     public TextureAtlas load(AssetManager assetManager, String fileName, Fi file, TextureAtlasParameter parameter){
+        TextureAtlasData data = atlasData.remove(fileName);
         for(AtlasPage page : data.getPages()){
             page.texture = assetManager.get(page.textureFile.path().replaceAll("\\\\", "/"), Texture.class);
         }
 
-        TextureAtlas atlas = new TextureAtlas(data);
-        data = null;
-        return atlas;
+        return new TextureAtlas(data);
+    }
+
+    @Override
+    public void cancel(AssetManager manager, String fileName, Fi file, TextureAtlasParameter parameter){
+        atlasData.remove(fileName);
     }
 
     @Override
     public Seq<AssetDescriptor> getDependencies(String fileName, Fi atlasFile, TextureAtlasParameter parameter){
         Fi imgDir = atlasFile.parent();
 
+        TextureAtlasData data;
         if(parameter != null)
             data = new TextureAtlasData(atlasFile, imgDir, parameter.flip);
         else{
             data = new TextureAtlasData(atlasFile, imgDir, false);
         }
+        atlasData.put(fileName, data);
 
         Seq<AssetDescriptor> dependencies = new Seq<>();
         for(AtlasPage page : data.getPages()){
@@ -57,6 +65,11 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
         return dependencies;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class TextureAtlasParameter extends AssetLoaderParameters<TextureAtlas>{
         /** whether to flip the texture atlas vertically **/
         public boolean flip = false;
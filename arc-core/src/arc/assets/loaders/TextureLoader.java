@@ -8,6 +8,8 @@ import arc.graphics.Pixmap.*;
 import arc.graphics.*;
 import arc.graphics.Texture.*;
 
+import java.util.concurrent.*;
+
 /**
  * {@link AssetLoader} for {@link Texture} instances. The pixel data is loaded asynchronously. The texture is then created on the
  * rendering thread, synchronously. Passing a {@link TextureParameter} to
@@ -16,7 +18,7 @@ import arc.graphics.Texture.*;
  * @author mzechner
  */
 public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoader.TextureParameter>{
-    TextureLoaderInfo info = new TextureLoaderInfo();
+    final ConcurrentHashMap<String, TextureLoaderInfo> infos = new ConcurrentHashMap<>();
 
     public TextureLoader(FileHandleResolver resolver){
         super(resolver);
@@ -24,6 +26,7 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 
     @Override
     public void loadAsync(AssetManager manager, String fileName, Fi file, TextureParameter parameter){
+        TextureLoaderInfo info = new TextureLoaderInfo();
         info.filename = fileName;
         if(parameter == null || parameter.textureData == null){
             Format format = null;
@@ -42,17 +45,15 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
             info.texture = parameter.texture;
         }
         if(!info.data.isPrepared()) info.data.prepare();
+        infos.put(fileName, info);
     }
 
     @Override
     public Texture loadSync(AssetManager manager, String fileName, Fi file, TextureParameter parameter){
+        TextureLoaderInfo info = infos.remove(fileName);
         if(info == null) return null;
-        Texture texture = info.texture;
-        if(texture != null){
-            texture.load(info.data);
-        }else{
-            texture = new Texture(info.data);
-        }
+        //large textures are uploaded over the next updates, the asset is done once they are
+        Texture texture = manager.getUploader().load(info.texture, info.data);
         if(parameter != null){
             texture.setFilter(parameter.minFilter, parameter.magFilter);
             texture.setWrap(parameter.wrapU, parameter.wrapV);
@@ -60,11 +61,24 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
         return texture;
     }
 
+    @Override
+    public void cancel(AssetManager manager, String fileName, Fi file, TextureParameter parameter){
+        TextureLoaderInfo info = infos.remove(fileName);
+        if(info != null && !info.data.isCustom() && info.data.isPrepared() && info.data.disposePixmap()){
+            info.data.consumePixmap().dispose();
+        }
+    }
+
     @Override
     public Seq<AssetDescriptor> getDependencies(String fileName, Fi file, TextureParameter parameter){
         return null;
     }
 
+    @Override
+    public boolean isConcurrent(){
+        return true;
+    }
+
     public static class TextureLoaderInfo{
         String filename;
         TextureData data;
@@ -322,6 +322,8 @@ public class Gl{
 
     //STATE - optimizes GL calls
 
+    private static final int readFramebuffer = 0x8CA8, drawFramebuffer = 0x8CA9;
+
     private static IntBuffer ibuf = Buffers.newIntBuffer(1), ibuf2 = Buffers.newIntBuffer(2);
     //last active texture unit
     private static int lastActiveTexture = -1;
@@ -329,29 +331,79 @@ public class Gl{
     private static int[] lastBoundTextures = new int[32];
     //last useProgram call
     private static int lastUsedProgram = 0;
-    /** enabled bits, from glEnable/disable */
-    private static Bits enabled = new Bits();
-    private static boolean wasDepthMask = true;
+    //capabilities from glEnable/disable: whether the state of a cap is known, and whether it is enabled
+    private static Bits enabledKnown = new Bits(), enabled = new Bits();
+    //vertex attribute arrays: whether the state of an index is known, and whether it is enabled
+    private static Bits attribsKnown = new Bits(), attribsEnabled = new Bits();
+    //-1 if unknown; 0 or 1 otherwise
+    private static int lastDepthMask = -1;
+    //color mask, as 4 bits; -1 if unknown
+    private static int lastColorMask = -1;
     //blending state
-    private static int lastSfactor = -1, lastDfactor = -1;
+    private static int lastSrcRGB = -1, lastDstRGB = -1, lastSrcAlpha = -1, lastDstAlpha = -1;
+    private static int lastModeRGB = -1, lastModeAlpha = -1;
+    //buffer bindings; the element buffer is part of the bound vertex array
+    private static int lastArrayBuffer = -1, lastElementBuffer = -1, lastVertexArray = -1;
+    //framebuffer bindings
+    private static int lastReadFramebuffer = -1, lastDrawFramebuffer = -1;
+    //rectangles; width is -1 if unknown
+    private static int lastViewportX, lastViewportY, lastViewportW = -1, lastViewportH;
+    private static int lastScissorX, lastScissorY, lastScissorW = -1, lastScissorH;
+    //clear color, as raw float bits
+    private static boolean clearColorKnown;
+    private static int lastClearR, lastClearG, lastClearB, lastClearA;
+    //stencil state; func is -1 if unknown
+    private static int lastStencilFunc = -1, lastStencilRef, lastStencilFuncMask;
+    private static int lastStencilFail = -1, lastStencilZFail, lastStencilZPass;
+    private static boolean stencilMaskKnown;
+    private static int lastStencilMask;
+    //calls skipped because they would not change anything
+    private static long elided;
 
     static{
         reset();
     }
 
-    /** Reset optimization cache. */
+    /**
+     * Resets the optimization cache, so that the next call for every piece of state goes to the driver. This must be called
+     * when the GL context is lost or recreated, and after any state was changed through {@link Core#gl} directly.
+     */
     public static void reset(){
         lastActiveTexture = -1;
         Arrays.fill(lastBoundTextures, -1);
-        lastUsedProgram = 0;
+        lastUsedProgram = -1;
+        enabledKnown.clear();
         enabled.clear();
-        wasDepthMask = true;
-        lastSfactor = -1;
-        lastDfactor = -1;
+        attribsKnown.clear();
+        attribsEnabled.clear();
+        lastDepthMask = -1;
+        lastColorMask = -1;
+        lastSrcRGB = lastDstRGB = lastSrcAlpha = lastDstAlpha = -1;
+        lastModeRGB = lastModeAlpha = -1;
+        lastArrayBuffer = lastElementBuffer = lastVertexArray = -1;
+        lastReadFramebuffer = lastDrawFramebuffer = -1;
+        lastViewportW = -1;
+        lastScissorW = -1;
+        clearColorKnown = false;
+        lastStencilFunc = -1;
+        lastStencilFail = -1;
+        stencilMaskKnown = false;
+    }
+
+    /** @return the number of calls that were skipped since the last {@link #resetElidedCalls()}, because they would not have changed any state. */
+    public static long getElidedCalls(){
+        return elided;
+    }
+
+    public static void resetElidedCalls(){
+        elided = 0;
     }
 
     public static void activeTexture(int texture){
-        if(optimize && lastActiveTexture == texture) return;
+        if(optimize && lastActiveTexture == texture){
+            elided++;
+            return;
+        }
 
         Core.gl.glActiveTexture(texture);
         lastActiveTexture = texture;
@@ -365,6 +417,7 @@ public class Gl{
             if(index >= 0 && index < lastBoundTextures.length){
                 if(lastBoundTextures[index] == texture){
                     //skip double bindings
+                    elided++;
                     return;
                 }
                 lastBoundTextures[index] = texture;
@@ -375,11 +428,14 @@ public class Gl{
     }
 
     public static void blendFunc(int sfactor, int dfactor){
-        if(lastSfactor == sfactor && lastDfactor == dfactor) return;
-        Core.gl.glBlendFunc(lastSfactor = sfactor, lastDfactor = dfactor);
+        if(optimize && lastSrcRGB == sfactor && lastDstRGB == dfactor && lastSrcAlpha == sfactor && lastDstAlpha == dfactor){
+            elided++;
+            return;
+        }
+        Core.gl.glBlendFunc(sfactor, dfactor);
 
-        lastSfactor = sfactor;
-        lastDfactor = dfactor;
+        lastSrcRGB = lastSrcAlpha = sfactor;
+        lastDstRGB = lastDstAlpha = dfactor;
     }
 
     public static void clear(int mask){
@@ -387,7 +443,17 @@ public class Gl{
     }
 
     public static void clearColor(float red, float green, float blue, float alpha){
+        int r = Float.floatToRawIntBits(red), g = Float.floatToRawIntBits(green), b = Float.floatToRawIntBits(blue), a = Float.floatToRawIntBits(alpha);
+        if(optimize && clearColorKnown && lastClearR == r && lastClearG == g && lastClearB == b && lastClearA == a){
+            elided++;
+            return;
+        }
         Core.gl.glClearColor(red, green, blue, alpha);
+        clearColorKnown = true;
+        lastClearR = r;
+        lastClearG = g;
+        lastClearB = b;
+        lastClearA = a;
     }
 
     public static void clearDepthf(float depth){
@@ -399,7 +465,13 @@ public class Gl{
     }
 
     public static void colorMask(boolean red, boolean green, boolean blue, boolean alpha){
+        int mask = (red ? 1 : 0) | (green ? 2 : 0) | (blue ? 4 : 0) | (alpha ? 8 : 0);
+        if(optimize && lastColorMask == mask){
+            elided++;
+            return;
+        }
         Core.gl.glColorMask(red, green, blue, alpha);
+        lastColorMask = mask;
     }
 
     public static void compressedTexImage2D(int target, int level, int internalformat, int width, int height, int border, int imageSize, Buffer data){
@@ -437,7 +509,13 @@ public class Gl{
     }
 
     public static void depthMask(boolean flag){
+        int mask = flag ? 1 : 0;
+        if(optimize && lastDepthMask == mask){
+            elided++;
+            return;
+        }
         Core.gl.glDepthMask(flag);
+        lastDepthMask = mask;
     }
 
     public static void depthRangef(float zNear, float zFar){
@@ -445,10 +523,12 @@ public class Gl{
     }
 
     public static void disable(int cap){
-        if(optimize && !enabled.get(cap)){
+        if(optimize && enabledKnown.get(cap) && !enabled.get(cap)){
+            elided++;
             return;
         }
         Core.gl.glDisable(cap);
+        enabledKnown.set(cap);
         enabled.clear(cap);
     }
 
@@ -461,10 +541,12 @@ public class Gl{
     }
 
     public static void enable(int cap){
-        if(optimize && enabled.get(cap)){
+        if(optimize && enabledKnown.get(cap) && enabled.get(cap)){
+            elided++;
             return;
         }
         Core.gl.glEnable(cap);
+        enabledKnown.set(cap);
         enabled.set(cap);
     }
 
@@ -519,19 +601,47 @@ public class Gl{
     }
 
     public static void scissor(int x, int y, int width, int height){
+        if(optimize && lastScissorW == width && lastScissorX == x && lastScissorY == y && lastScissorH == height){
+            elided++;
+            return;
+        }
         Core.gl.glScissor(x, y, width, height);
+        lastScissorX = x;
+        lastScissorY = y;
+        lastScissorW = width;
+        lastScissorH = height;
     }
 
     public static void stencilFunc(int func, int ref, int mask){
+        if(optimize && lastStencilFunc == func && lastStencilRef == ref && lastStencilFuncMask == mask){
+            elided++;
+            return;
+        }
         Core.gl.glStencilFunc(func, ref, mask);
+        lastStencilFunc = func;
+        lastStencilRef = ref;
+        lastStencilFuncMask = mask;
     }
 
     public static void stencilMask(int mask){
+        if(optimize && stencilMaskKnown && lastStencilMask == mask){
+            elided++;
+            return;
+        }
         Core.gl.glStencilMask(mask);
+        stencilMaskKnown = true;
+        lastStencilMask = mask;
     }
 
     public static void stencilOp(int fail, int zfail, int zpass){
+        if(optimize && lastStencilFail == fail && lastStencilZFail == zfail && lastStencilZPass == zpass){
+            elided++;
+            return;
+        }
         Core.gl.glStencilOp(fail, zfail, zpass);
+        lastStencilFail = fail;
+        lastStencilZFail = zfail;
+        lastStencilZPass = zpass;
     }
 
     public static void texImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, Buffer pixels){
@@ -547,7 +657,15 @@ public class Gl{
     }
 
     public static void viewport(int x, int y, int width, int height){
+        if(optimize && lastViewportW == width && lastViewportX == x && lastViewportY == y && lastViewportH == height){
+            elided++;
+            return;
+        }
         Core.gl.glViewport(x, y, width, height);
+        lastViewportX = x;
+        lastViewportY = y;
+        lastViewportW = width;
+        lastViewportH = height;
     }
 
     public static void attachShader(int program, int shader){
@@ -559,10 +677,68 @@ public class Gl{
     }
 
     public static void bindBuffer(int target, int buffer){
+        if(target == arrayBuffer){
+            if(optimize && lastArrayBuffer == buffer){
+                elided++;
+                return;
+            }
+            lastArrayBuffer = buffer;
+        }else if(target == elementArrayBuffer){
+            if(optimize && lastElementBuffer == buffer){
+                elided++;
+                return;
+            }
+            lastElementBuffer = buffer;
+        }
         Core.gl.glBindBuffer(target, buffer);
     }
 
+    /** Binds a vertex array object. Requires GL 3.0. This changes the element buffer binding and vertex attribute array state. */
+    public static void bindVertexArray(int array){
+        if(optimize && lastVertexArray == array){
+            elided++;
+            return;
+        }
+        Core.gl30.glBindVertexArray(array);
+        lastVertexArray = array;
+        //both are stored in the vertex array, so they are unknown now
+        lastElementBuffer = -1;
+        attribsKnown.clear();
+    }
+
+    /** Deletes vertex array objects. Requires GL 3.0. */
+    public static void deleteVertexArrays(int n, IntBuffer arrays){
+        for(int i = arrays.position(); i < arrays.position() + n; i++){
+            if(arrays.get(i) == lastVertexArray){
+                //deleting the bound vertex array reverts to the default one
+                lastVertexArray = 0;
+                lastElementBuffer = -1;
+                attribsKnown.clear();
+            }
+        }
+        Core.gl30.glDeleteVertexArrays(n, arrays);
+    }
+
     public static void bindFramebuffer(int target, int framebuffer){
+        if(target == Gl.framebuffer){
+            if(optimize && lastReadFramebuffer == framebuffer && lastDrawFramebuffer == framebuffer){
+                elided++;
+                return;
+            }
+            lastReadFramebuffer = lastDrawFramebuffer = framebuffer;
+        }else if(target == readFramebuffer){
+            if(optimize && lastReadFramebuffer == framebuffer){
+                elided++;
+                return;
+            }
+            lastReadFramebuffer = framebuffer;
+        }else if(target == drawFramebuffer){
+            if(optimize && lastDrawFramebuffer == framebuffer){
+                elided++;
+                return;
+            }
+            lastDrawFramebuffer = framebuffer;
+        }
         Core.gl.glBindFramebuffer(target, framebuffer);
     }
 
@@ -575,15 +751,34 @@ public class Gl{
     }
 
     public static void blendEquation(int mode){
+        if(optimize && lastModeRGB == mode && lastModeAlpha == mode){
+            elided++;
+            return;
+        }
         Core.gl.glBlendEquation(mode);
+        lastModeRGB = lastModeAlpha = mode;
     }
 
     public static void blendEquationSeparate(int modeRGB, int modeAlpha){
+        if(optimize && lastModeRGB == modeRGB && lastModeAlpha == modeAlpha){
+            elided++;
+            return;
+        }
         Core.gl.glBlendEquationSeparate(modeRGB, modeAlpha);
+        lastModeRGB = modeRGB;
+        lastModeAlpha = modeAlpha;
     }
 
     public static void blendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha){
+        if(optimize && lastSrcRGB == srcRGB && lastDstRGB == dstRGB && lastSrcAlpha == srcAlpha && lastDstAlpha == dstAlpha){
+            elided++;
+            return;
+        }
         Core.gl.glBlendFuncSeparate(srcRGB, dstRGB, srcAlpha, dstAlpha);
+        lastSrcRGB = srcRGB;
+        lastDstRGB = dstRGB;
+        lastSrcAlpha = srcAlpha;
+        lastDstAlpha = dstAlpha;
     }
 
     public static void bufferData(int target, int size, Buffer data, int usage){
@@ -611,14 +806,20 @@ public class Gl{
     }
 
     public static void deleteBuffer(int buffer){
+        //deleted buffers are unbound, and their handle may be reused later
+        if(lastArrayBuffer == buffer) lastArrayBuffer = 0;
+        if(lastElementBuffer == buffer) lastElementBuffer = 0;
         Core.gl.glDeleteBuffer(buffer);
     }
 
     public static void deleteFramebuffer(int framebuffer){
+        if(lastReadFramebuffer == framebuffer) lastReadFramebuffer = 0;
+        if(lastDrawFramebuffer == framebuffer) lastDrawFramebuffer = 0;
         Core.gl.glDeleteFramebuffer(framebuffer);
     }
 
     public static void deleteProgram(int program){
+        if(lastUsedProgram == program) lastUsedProgram = -1;
         Core.gl.glDeleteProgram(program);
     }
 
@@ -635,7 +836,13 @@ public class Gl{
     }
 
     public static void disableVertexAttribArray(int index){
+        if(optimize && attribsKnown.get(index) && !attribsEnabled.get(index)){
+            elided++;
+            return;
+        }
         Core.gl.glDisableVertexAttribArray(index);
+        attribsKnown.set(index);
+        attribsEnabled.clear(index);
     }
 
     public static void drawElements(int mode, int count, int type, int indices){
@@ -643,7 +850,13 @@ public class Gl{
     }
 
     public static void enableVertexAttribArray(int index){
+        if(optimize && attribsKnown.get(index) && attribsEnabled.get(index)){
+            elided++;
+            return;
+        }
         Core.gl.glEnableVertexAttribArray(index);
+        attribsKnown.set(index);
+        attribsEnabled.set(index);
     }
 
     public static void framebufferRenderbuffer(int target, int attachment, int renderbuffertarget, int renderbuffer){
@@ -799,14 +1012,18 @@ public class Gl{
     }
 
     public static void stencilFuncSeparate(int face, int func, int ref, int mask){
+        //front and back state may differ now, so the shadow can't describe it
+        lastStencilFunc = -1;
         Core.gl.glStencilFuncSeparate(face, func, ref, mask);
     }
 
     public static void stencilMaskSeparate(int face, int mask){
+        stencilMaskKnown = false;
         Core.gl.glStencilMaskSeparate(face, mask);
     }
 
     public static void stencilOpSeparate(int face, int fail, int zfail, int zpass){
+        lastStencilFail = -1;
         Core.gl.glStencilOpSeparate(face, fail, zfail, zpass);
     }
 
@@ -944,6 +1161,7 @@ public class Gl{
 
     public static void useProgram(int program){
         if(optimize && lastUsedProgram == program){
+            elided++;
             return;
         }
         Core.gl.glUseProgram(program);
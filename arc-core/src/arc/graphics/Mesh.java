@@ -59,6 +59,19 @@ public class Mesh implements Disposable{
      * @param maxIndices the maximum number of indices this mesh can hold
      */
     public Mesh(boolean useVertexArray, boolean isStatic, int maxVertices, int maxIndices, VertexAttribute... attributes){
+        this(useVertexArray, isStatic, false, maxVertices, maxIndices, attributes);
+    }
+
+    /**
+     * Creates a new Mesh with the given attributes. This is an expert method with no error checking. Use at your own risk.
+     * @param useVertexArray whether to use VBOs or VAOs. Note that the latter is not supported with OpenGL 3.0.
+     * @param isStatic whether this mesh is static or not. Allows for internal optimizations.
+     * @param streaming whether the vertices are replaced before every draw call. On OpenGL 3.0, this uses a
+     * {@link StreamingVertexBufferObject}, which avoids waiting for the GPU when vertices are uploaded.
+     * @param maxVertices the maximum number of vertices this mesh can hold
+     * @param maxIndices the maximum number of indices this mesh can hold
+     */
+    public Mesh(boolean useVertexArray, boolean isStatic, boolean streaming, int maxVertices, int maxIndices, VertexAttribute... attributes){
         int count = 0;
         for(VertexAttribute attribute : attributes){
             count += attribute.size;
@@ -70,6 +83,9 @@ public class Mesh implements Disposable{
         if(useVertexArray && Core.gl30 == null){
             vertices = new VertexArray(maxVertices, this);
             indices = new IndexArray(maxIndices);
+        }else if(Core.gl30 != null && streaming && !isStatic){
+            vertices = new StreamingVertexBufferObject(maxVertices, this);
+            indices = new IndexBufferObjectSubData(isStatic, maxIndices);
         }else if(Core.gl30 != null){
             vertices = new VertexBufferObjectWithVAO(isStatic, maxVertices, this);
             indices = new IndexBufferObjectSubData(isStatic, maxIndices);
@@ -37,6 +37,7 @@ public class Pixmap implements Disposable{
     private Blending blending = Blending.sourceOver;
     private PixmapFilter filter = PixmapFilter.bilinear;
     private boolean disposed;
+    private IntBuffer intPixels;
 
     /** Uses RGBA8888.*/
     public Pixmap(int width, int height){
@@ -136,9 +137,20 @@ public class Pixmap implements Disposable{
         this.color = Color.rgba8888(color.r, color.g, color.b, color.a);
     }
 
-    /** Fills the complete bitmap with the currently set color. */
+    /** Fills the complete bitmap with the currently set color. Large RGBA8888 pixmaps are filled in parallel; see {@link Pixmaps#parallel}. */
     public void fill(){
-        clear(pixmap.basePtr, color);
+        int width = pixmap.width;
+        if(pixmap.format == pixmapFormatRGBA8888 && Pixmaps.useParallel(width, pixmap.height)){
+            IntBuffer pixels = getIntPixels();
+            int color = this.color;
+            Pixmaps.rows(width, pixmap.height, (start, end) -> {
+                for(int i = start * width, last = end * width; i < last; i++){
+                    pixels.put(i, color);
+                }
+            });
+        }else{
+            clear(pixmap.basePtr, color);
+        }
     }
 
     /**
@@ -209,7 +221,14 @@ public class Pixmap implements Disposable{
      * @param srcHeight The height of the area from the other Pixmap in pixels
      */
     public void drawPixmap(Pixmap pixmap, int x, int y, int srcx, int srcy, int srcWidth, int srcHeight){
-        drawPixmap(pixmap.pixmap.basePtr, this.pixmap.basePtr, srcx, srcy, srcWidth, srcHeight, x, y, srcWidth, srcHeight);
+        //unscaled copies between distinct RGBA8888 pixmaps are split into row stripes, which the native blitter handles independently
+        if(pixmap != this && pixmap.pixmap.format == pixmapFormatRGBA8888 && this.pixmap.format == pixmapFormatRGBA8888 && Pixmaps.useParallel(srcWidth, srcHeight)){
+            long src = pixmap.pixmap.basePtr, dst = this.pixmap.basePtr;
+            Pixmaps.rows(srcWidth, srcHeight, (start, end) ->
+                drawPixmap(src, dst, srcx, srcy + start, srcWidth, end - start, x, y + start, srcWidth, end - start));
+        }else{
+            drawPixmap(pixmap.pixmap.basePtr, this.pixmap.basePtr, srcx, srcy, srcWidth, srcHeight, x, y, srcWidth, srcHeight);
+        }
     }
 
     /**
@@ -227,7 +246,11 @@ public class Pixmap implements Disposable{
      * @param dstHeight the target height
      */
     public void drawPixmap(Pixmap pixmap, int srcx, int srcy, int srcWidth, int srcHeight, int dstx, int dsty, int dstWidth, int dstHeight){
-        drawPixmap(pixmap.pixmap.basePtr, this.pixmap.basePtr, srcx, srcy, srcWidth, srcHeight, dstx, dsty, dstWidth, dstHeight);
+        if(srcWidth == dstWidth && srcHeight == dstHeight){
+            drawPixmap(pixmap, dstx, dsty, srcx, srcy, srcWidth, srcHeight);
+        }else{
+            drawPixmap(pixmap.pixmap.basePtr, this.pixmap.basePtr, srcx, srcy, srcWidth, srcHeight, dstx, dsty, dstWidth, dstHeight);
+        }
     }
 
     /**
@@ -285,6 +308,67 @@ public class Pixmap implements Disposable{
         return getPixel(pixmap.basePtr, x, y);
     }
 
+    /** @return whether the given coordinates are inside this Pixmap. */
+    public boolean in(int x, int y){
+        return x >= 0 && y >= 0 && x < pixmap.width && y < pixmap.height;
+    }
+
+    /**
+     * Returns an int view of the pixel data, with one RGBA8888 value per pixel in row-major order. Reads and writes through this
+     * buffer do not cross JNI, do not blend and are not bounds checked, which makes it the preferred way to process whole
+     * images. The buffer shares memory with {@link #getPixels()}; use absolute get/put, or a duplicate if the position needs
+     * to change.
+     * @throws ArcRuntimeException if the format of this Pixmap is not {@link Format#rgba8888}.
+     */
+    public IntBuffer getIntPixels(){
+        if(disposed) throw new ArcRuntimeException("Pixmap already disposed");
+        if(pixmap.format != pixmapFormatRGBA8888) throw new ArcRuntimeException("Int pixel access requires RGBA8888, got " + getFormat());
+        if(intPixels == null){
+            //RGBA bytes read in big-endian order are exactly the RGBA8888 ints used everywhere else
+            intPixels = pixmap.pixelPtr.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+        }
+        return intPixels;
+    }
+
+    /**
+     * Returns the RGBA8888 value of the pixel at x, y without a JNI call. The coordinates are not bounds checked.
+     * Only supported for {@link Format#rgba8888}.
+     */
+    public int getRaw(int x, int y){
+        return getIntPixels().get(x + y * pixmap.width);
+    }
+
+    /**
+     * Sets the pixel at x, y to the given RGBA8888 value without a JNI call. Unlike {@link #draw(int, int, int)}, this never blends
+     * and the coordinates are not bounds checked. Only supported for {@link Format#rgba8888}.
+     */
+    public void setRaw(int x, int y, int color){
+        getIntPixels().put(x + y * pixmap.width, color);
+    }
+
+    /**
+     * Copies every pixel into an array of RGBA8888 values in row-major order. Only supported for {@link Format#rgba8888}.
+     * @param out the destination array; if null or too small, a new array is allocated.
+     * @return the array that was written to.
+     */
+    public int[] readPixels(int[] out){
+        int size = pixmap.width * pixmap.height;
+        if(out == null || out.length < size) out = new int[size];
+        //duplicated so concurrent bulk reads do not share a position
+        getIntPixels().duplicate().get(out, 0, size);
+        return out;
+    }
+
+    /**
+     * Overwrites every pixel with an array of RGBA8888 values in row-major order, without blending.
+     * Only supported for {@link Format#rgba8888}.
+     */
+    public void writePixels(int[] pixels){
+        int size = pixmap.width * pixmap.height;
+        if(pixels.length < size) throw new IllegalArgumentException("Array too small: " + pixels.length + " < " + size);
+        getIntPixels().duplicate().put(pixels, 0, size);
+    }
+
     /** @return The width of the Pixmap in pixels. */
     public int getWidth(){
         return pixmap.width;
@@ -486,6 +570,20 @@ public class Pixmap implements Disposable{
         nearestNeighbour, bilinear
     }
 
+    /** Blends two RGBA8888 colors the same way {@link #draw(int, int, int)} does with {@link Blending#sourceOver}. */
+    public static int blend(int src, int dst){
+        int srcA = src & 0xff;
+        if(srcA == 0) return dst;
+
+        int dstA = dst & 0xff;
+        dstA -= dstA * srcA / 255;
+        int a = dstA + srcA;
+        int r = (((dst >>> 24) & 0xff) * dstA + ((src >>> 24) & 0xff) * srcA) / a;
+        int g = (((dst >>> 16) & 0xff) * dstA + ((src >>> 16) & 0xff) * srcA) / a;
+        int b = (((dst >>> 8) & 0xff) * dstA + ((src >>> 8) & 0xff) * srcA) / a;
+        return (r << 24) | (g << 16) | (b << 8) | a;
+    }
+
     /*JNI
     #include <pix.h>
     #include <stdlib.h>
@@ -1,14 +1,17 @@
 package arc.graphics;
 
+import arc.*;
+import arc.func.*;
 import arc.struct.ByteSeq;
 import arc.files.Fi;
 import arc.graphics.Pixmap.Format;
-import arc.util.ArcRuntimeException;
-import arc.util.Disposable;
+import arc.util.*;
 import arc.util.io.Streams;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.*;
 
 /**
@@ -36,6 +39,59 @@ public class PixmapIO{
         }
     }
 
+    /**
+     * Writes the pixmap as a PNG on the common fork-join pool, compressing large images in parallel stripes. The pixels are copied
+     * before this method returns, so the pixmap can be modified or disposed right away. Callbacks are posted to the application
+     * thread when there is one.
+     * @param done called once the file has been written. May be null.
+     * @param error called if encoding or writing fails. May be null, in which case failures are logged.
+     */
+    public static void writePNGAsync(Fi file, Pixmap pixmap, Runnable done, Cons<Throwable> error){
+        int width = pixmap.getWidth(), height = pixmap.getHeight();
+        ByteBuffer pixels = ByteBuffer.allocate(width * height * 4);
+        if(pixmap.getFormat() == Format.rgba8888){
+            ByteBuffer source = pixmap.getPixels().duplicate();
+            source.clear();
+            pixels.put(source);
+            pixels.clear();
+        }else{
+            pixels.asIntBuffer().put(Pixmaps.read(pixmap));
+        }
+
+        ForkJoinPool.commonPool().execute(() -> {
+            Throwable failure = null;
+            PNG writer = new PNG((int)(width * height * 1.5f));
+            OutputStream output = null;
+            try{
+                writer.setFlipY(false);
+                writer.setParallel(true);
+                output = file.write(false);
+                writer.write(output, pixels, width, height);
+            }catch(Throwable t){
+                failure = new ArcRuntimeException("Error writing PNG: " + file, t);
+            }finally{
+                Streams.close(output);
+                writer.dispose();
+            }
+
+            Throwable result = failure;
+            Runnable callback = () -> {
+                if(result == null){
+                    if(done != null) done.run();
+                }else if(error != null){
+                    error.get(result);
+                }else{
+                    Log.err(result);
+                }
+            };
+            if(Core.app != null){
+                Core.app.post(callback);
+            }else{
+                callback.run();
+            }
+        });
+    }
+
     /**
      * PNG encoder with compression. An instance can be reused to encode multiple PNGs with minimal allocation.
      *
@@ -71,13 +127,18 @@ public class PixmapIO{
         private static final byte COMPRESSION_DEFLATE = 0;
         private static final byte FILTER_NONE = 0;
         private static final byte INTERLACE_NONE = 0;
-        private static final byte PAETH = 4;
+        private static final byte NONE = 0, SUB = 1, UP = 2, AVERAGE = 3, PAETH = 4;
+        /** Uncompressed size of each independently deflated stripe in parallel mode. */
+        private static final int STRIPE_SIZE = 128 * 1024;
+        /** Maximum deflate window, used as the preset dictionary of each stripe. */
+        private static final int DICTIONARY_SIZE = 32 * 1024;
 
         private final ChunkBuffer buffer;
         private final Deflater deflater;
         private ByteSeq lineOutBytes, curLineBytes, prevLineBytes;
-        private boolean flipY = true;
-        private int lastLineLen;
+        private boolean flipY = true, parallel;
+        private int lastLineLen, compression = Deflater.DEFAULT_COMPRESSION;
+        private FilterMode filter = FilterMode.paeth;
 
         public PNG(){
             this(128 * 128);
@@ -96,6 +157,22 @@ public class PixmapIO{
         /** Sets the deflate compression level. Default is {@link Deflater#DEFAULT_COMPRESSION}. */
         public void setCompression(int level){
             deflater.setLevel(level);
+            compression = level;
+        }
+
+        /** Sets how scanlines are filtered before compression. Default is {@link FilterMode#paeth}. */
+        public void setFilter(FilterMode filter){
+            this.filter = filter;
+        }
+
+        /**
+         * If true, images larger than a single stripe are split into stripes of rows that are filtered and deflated concurrently
+         * on the common fork-join pool. Each stripe is primed with the end of the previous one as a preset dictionary and ends
+         * with a sync flush, so the result is a single standard zlib stream that compresses almost as well as a serial one.
+         * Default is false.
+         */
+        public void setParallel(boolean parallel){
+            this.parallel = parallel;
         }
 
         public void write(Fi file, Pixmap pixmap) throws IOException{
@@ -109,13 +186,20 @@ public class PixmapIO{
 
         /** Writes the pixmap to the stream without closing the stream. */
         public void write(OutputStream output, Pixmap pixmap) throws IOException{
-            DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(buffer, deflater);
+            write(output, pixels(pixmap), pixmap.getWidth(), pixmap.getHeight());
+        }
+
+        /**
+         * Writes RGBA8888 pixel data to the stream without closing the stream.
+         * @param pixels rows of RGBA8888 pixels, top to bottom. Only absolute reads are used, so the position is left untouched.
+         */
+        public void write(OutputStream output, ByteBuffer pixels, int width, int height) throws IOException{
             DataOutputStream dataOutput = new DataOutputStream(output);
             dataOutput.write(SIGNATURE);
 
             buffer.writeInt(IHDR);
-            buffer.writeInt(pixmap.getWidth());
-            buffer.writeInt(pixmap.getHeight());
+            buffer.writeInt(width);
+            buffer.writeInt(height);
             buffer.writeByte(8); // 8 bits per component.
             buffer.writeByte(COLOR_ARGB);
             buffer.writeByte(COMPRESSION_DEFLATE);
@@ -124,9 +208,24 @@ public class PixmapIO{
             buffer.endChunk(dataOutput);
 
             buffer.writeInt(IDAT);
+            int lineLen = width * 4;
+            if(parallel && ForkJoinPool.getCommonPoolParallelism() > 1 && (long)(lineLen + 1) * height > STRIPE_SIZE){
+                writeParallel(pixels, lineLen, height);
+            }else{
+                writeSerial(pixels, lineLen, height);
+            }
+            buffer.endChunk(dataOutput);
+
+            buffer.writeInt(IEND);
+            buffer.endChunk(dataOutput);
+
+            output.flush();
+        }
+
+        private void writeSerial(ByteBuffer pixels, int lineLen, int height) throws IOException{
+            DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(buffer, deflater);
             deflater.reset();
 
-            int lineLen = pixmap.getWidth() * 4;
             byte[] lineOut, curLine, prevLine;
             if(lineOutBytes == null){
                 lineOut = (lineOutBytes = new ByteSeq(lineLen)).items;
@@ -141,62 +240,184 @@ public class PixmapIO{
             }
             lastLineLen = lineLen;
 
-            ByteBuffer pixels = pixmap.getPixels();
-            int oldPosition = pixels.position();
-            boolean rgba8888 = pixmap.getFormat() == Format.rgba8888;
-            for(int y = 0, h = pixmap.getHeight(); y < h; y++){
-                int py = flipY ? (h - y - 1) : y;
-                if(rgba8888){
-                    pixels.position(py * lineLen);
-                    pixels.get(curLine, 0, lineLen);
-                }else{
-                    for(int px = 0, x = 0; px < pixmap.getWidth(); px++){
-                        int pixel = pixmap.getPixel(px, py);
-                        curLine[x++] = (byte)((pixel >> 24) & 0xff);
-                        curLine[x++] = (byte)((pixel >> 16) & 0xff);
-                        curLine[x++] = (byte)((pixel >> 8) & 0xff);
-                        curLine[x++] = (byte)(pixel & 0xff);
-                    }
-                }
-
-                lineOut[0] = (byte)(curLine[0] - prevLine[0]);
-                lineOut[1] = (byte)(curLine[1] - prevLine[1]);
-                lineOut[2] = (byte)(curLine[2] - prevLine[2]);
-                lineOut[3] = (byte)(curLine[3] - prevLine[3]);
-
-                for(int x = 4; x < lineLen; x++){
-                    int a = curLine[x - 4] & 0xff;
-                    int b = prevLine[x] & 0xff;
-                    int c = prevLine[x - 4] & 0xff;
-                    int p = a + b - c;
-                    int pa = p - a;
-                    if(pa < 0) pa = -pa;
-                    int pb = p - b;
-                    if(pb < 0) pb = -pb;
-                    int pc = p - c;
-                    if(pc < 0) pc = -pc;
-                    if(pa <= pb && pa <= pc)
-                        c = a;
-                    else if(pb <= pc) //
-                        c = b;
-                    lineOut[x] = (byte)(curLine[x] - c);
-                }
+            ByteBuffer rows = pixels.duplicate();
+            for(int y = 0; y < height; y++){
+                readLine(rows, curLine, lineLen, flipY ? (height - y - 1) : y);
 
-                deflaterOutput.write(PAETH);
+                deflaterOutput.write(filter(filter, curLine, prevLine, lineOut, 0, lineLen));
                 deflaterOutput.write(lineOut, 0, lineLen);
 
                 byte[] temp = curLine;
                 curLine = prevLine;
                 prevLine = temp;
             }
-            pixels.position(oldPosition);
             deflaterOutput.finish();
-            buffer.endChunk(dataOutput);
+        }
 
-            buffer.writeInt(IEND);
-            buffer.endChunk(dataOutput);
+        private void writeParallel(ByteBuffer pixels, int lineLen, int height) throws IOException{
+            int rowLen = lineLen + 1;
+            int rowsPerStripe = Math.max(1, STRIPE_SIZE / rowLen);
+            int stripes = (height + rowsPerStripe - 1) / rowsPerStripe;
+            byte[][] filtered = new byte[stripes][], compressed = new byte[stripes][];
+            ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>(stripes);
 
-            output.flush();
+            //filtering only depends on the source rows, so every stripe is independent
+            for(int i = 0; i < stripes; i++){
+                int stripe = i;
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    int start = stripe * rowsPerStripe, end = Math.min(start + rowsPerStripe, height);
+                    byte[] out = filtered[stripe] = new byte[(end - start) * rowLen];
+                    byte[] curLine = new byte[lineLen], prevLine = new byte[lineLen];
+                    ByteBuffer rows = pixels.duplicate();
+
+                    if(start > 0) readLine(rows, prevLine, lineLen, flipY ? (height - start) : start - 1);
+                    for(int y = start; y < end; y++){
+                        readLine(rows, curLine, lineLen, flipY ? (height - y - 1) : y);
+                        int offset = (y - start) * rowLen;
+                        out[offset] = filter(filter, curLine, prevLine, out, offset + 1, lineLen);
+
+                        byte[] temp = curLine;
+                        curLine = prevLine;
+                        prevLine = temp;
+                    }
+                }));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            tasks.clear();
+
+            for(int i = 0; i < stripes; i++){
+                int stripe = i;
+                tasks.add(ForkJoinTask.adapt(() -> compressed[stripe] = deflateStripe(stripe == 0 ? null : filtered[stripe - 1], filtered[stripe], stripe == stripes - 1)));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            Adler32 adler = new Adler32();
+            //zlib header: deflate with a 32K window, no preset dictionary for the stream as a whole
+            buffer.writeByte(0x78);
+            buffer.writeByte(0x9C);
+            for(int i = 0; i < stripes; i++){
+                buffer.write(compressed[i]);
+                adler.update(filtered[i]);
+            }
+            buffer.writeInt((int)adler.getValue());
+        }
+
+        /** Deflates one stripe as raw deflate data. All but the last stripe end on a byte boundary with a sync flush. */
+        private byte[] deflateStripe(byte[] previous, byte[] data, boolean last){
+            Deflater deflater = new Deflater(compression, true);
+            try{
+                if(previous != null){
+                    int length = Math.min(previous.length, DICTIONARY_SIZE);
+                    deflater.setDictionary(previous, previous.length - length, length);
+                }
+                deflater.setInput(data);
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+                byte[] chunk = new byte[16 * 1024];
+                if(last){
+                    deflater.finish();
+                    while(!deflater.finished()){
+                        out.write(chunk, 0, deflater.deflate(chunk));
+                    }
+                }else{
+                    int written;
+                    do{
+                        written = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+                        out.write(chunk, 0, written);
+                    }while(written == chunk.length);
+                }
+                return out.toByteArray();
+            }finally{
+                deflater.end();
+            }
+        }
+
+        private static void readLine(ByteBuffer pixels, byte[] line, int lineLen, int y){
+            pixels.position(y * lineLen);
+            pixels.get(line, 0, lineLen);
+        }
+
+        /** @return RGBA8888 pixel data for the pixmap, converting it if it uses another format. */
+        private static ByteBuffer pixels(Pixmap pixmap){
+            if(pixmap.getFormat() == Format.rgba8888) return pixmap.getPixels();
+
+            int width = pixmap.getWidth(), height = pixmap.getHeight();
+            ByteBuffer out = ByteBuffer.allocate(width * height * 4);
+            for(int y = 0; y < height; y++){
+                for(int x = 0; x < width; x++){
+                    out.putInt(pixmap.getPixel(x, y));
+                }
+            }
+            out.flip();
+            return out;
+        }
+
+        /**
+         * Filters one scanline into out, starting at offset.
+         * @return the PNG filter type that was used.
+         */
+        static byte filter(FilterMode mode, byte[] curLine, byte[] prevLine, byte[] out, int offset, int lineLen){
+            byte type;
+            switch(mode){
+                case none: type = NONE; break;
+                case paeth: type = PAETH; break;
+                default: type = choose(curLine, prevLine, lineLen);
+            }
+
+            for(int x = 0; x < lineLen; x++){
+                int a = x < 4 ? 0 : curLine[x - 4] & 0xff;
+                int b = prevLine[x] & 0xff;
+                int c = x < 4 ? 0 : prevLine[x - 4] & 0xff;
+                out[offset + x] = (byte)(curLine[x] - predict(type, a, b, c));
+            }
+            return type;
+        }
+
+        /** Picks the filter with the lowest sum of absolute differences, the heuristic recommended by the PNG specification. */
+        private static byte choose(byte[] curLine, byte[] prevLine, int lineLen){
+            long none = 0, sub = 0, up = 0, average = 0, paeth = 0;
+            for(int x = 0; x < lineLen; x++){
+                int a = x < 4 ? 0 : curLine[x - 4] & 0xff;
+                int b = prevLine[x] & 0xff;
+                int c = x < 4 ? 0 : prevLine[x - 4] & 0xff;
+                int value = curLine[x];
+                none += Math.abs((byte)value);
+                sub += Math.abs((byte)(value - a));
+                up += Math.abs((byte)(value - b));
+                average += Math.abs((byte)(value - ((a + b) >>> 1)));
+                paeth += Math.abs((byte)(value - paeth(a, b, c)));
+            }
+
+            byte type = NONE;
+            long best = none;
+            if(sub < best){ best = sub; type = SUB; }
+            if(up < best){ best = up; type = UP; }
+            if(average < best){ best = average; type = AVERAGE; }
+            if(paeth < best){ type = PAETH; }
+            return type;
+        }
+
+        private static int predict(byte type, int a, int b, int c){
+            switch(type){
+                case SUB: return a;
+                case UP: return b;
+                case AVERAGE: return (a + b) >>> 1;
+                case PAETH: return paeth(a, b, c);
+                default: return 0;
+            }
+        }
+
+        private static int paeth(int a, int b, int c){
+            int p = a + b - c;
+            int pa = p - a;
+            if(pa < 0) pa = -pa;
+            int pb = p - b;
+            if(pb < 0) pb = -pb;
+            int pc = p - c;
+            if(pc < 0) pc = -pc;
+            if(pa <= pb && pa <= pc) return a;
+            if(pb <= pc) return b;
+            return c;
         }
 
         @Override
@@ -204,6 +425,16 @@ public class PixmapIO{
             deflater.end();
         }
 
+        /** How scanlines are filtered before compression. */
+        public enum FilterMode{
+            /** No filtering. Fastest, but compresses poorly. */
+            none,
+            /** Paeth filtering for every row, which works well for most images. */
+            paeth,
+            /** Picks the best of the five PNG filters for each row. Slower to encode, but usually produces smaller files. */
+            adaptive
+        }
+
         static class ChunkBuffer extends DataOutputStream{
             final ByteArrayOutputStream buffer;
             final CRC32 crc;
@@ -10,11 +10,19 @@ import arc.struct.*;
 import arc.util.*;
 
 import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 /** Various pixmap utilities. */
 public class Pixmaps{
+    /** Input value of {@link #distanceTransform(double[], double[], int[], double[], int)} for samples that are not features. */
+    public static final double infinity = 1e20;
     private static Pixmap drawPixmap;
-    private static IntSeq tmpArray = new IntSeq();
+
+    /** Whether operations on large images are split into row stripes that run in parallel on the common fork-join pool. */
+    public static boolean parallel = true;
+    /** Images with fewer pixels than this are always processed on the calling thread. */
+    public static int parallelThreshold = 256 * 256;
 
     public static Pixmap noise(int w, int h){
         Pixmap out = new Pixmap(w, h);
@@ -48,18 +56,42 @@ public class Pixmaps{
     }
 
     public static Pixmap median(Pixmap input, int radius, double percentile){
-        return median(input, radius, percentile, tmpArray);
+        return median(input, radius, percentile, new IntSeq());
     }
 
+    /** @param tmp receives the offsets of the circular kernel. */
     public static Pixmap median(Pixmap input, int radius, double percentile, IntSeq tmp){
-        Pixmap pixmap = new Pixmap(input.getWidth(), input.getHeight());
-        input.each((x, y) -> {
-            tmp.clear();
-            Geometry.circle(x, y, pixmap.getWidth(), pixmap.getHeight(), radius, (cx, cy) -> tmp.add(input.getPixel(cx, cy)));
-            tmp.sort();
-            pixmap.draw(x, y, tmp.get(Mathf.clamp((int)(tmp.size * percentile), 0, tmp.size - 1)));
+        int width = input.getWidth(), height = input.getHeight();
+        int[] src = read(input), dst = new int[width * height];
+
+        tmp.clear();
+        for(int dx = -radius; dx <= radius; dx++){
+            for(int dy = -radius; dy <= radius; dy++){
+                if(Mathf.within(dx, dy, radius)) tmp.add(dx, dy);
+            }
+        }
+        int[] offsets = tmp.items;
+        int kernel = tmp.size;
+
+        rows(width, height, (start, end) -> {
+            int[] values = new int[kernel / 2];
+            for(int y = start; y < end; y++){
+                for(int x = 0; x < width; x++){
+                    int count = 0;
+                    for(int i = 0; i < kernel; i += 2){
+                        int wx = x + offsets[i], wy = y + offsets[i + 1];
+                        if(wx >= 0 && wy >= 0 && wx < width && wy < height){
+                            values[count++] = src[wx + wy * width];
+                        }
+                    }
+                    if(count == 0) continue;
+                    Arrays.sort(values, 0, count);
+                    dst[x + y * width] = visible(values[Mathf.clamp((int)(count * percentile), 0, count - 1)]);
+                }
+            }
         });
-        return pixmap;
+
+        return create(width, height, dst);
     }
 
     public static Pixmap copy(Pixmap input){
@@ -80,69 +112,120 @@ public class Pixmaps{
     }
 
     public static Pixmap scale(Pixmap input, float scalex, float scaley){
-        Pixmap pixmap = new Pixmap((int)(input.getWidth() * scalex), (int)(input.getHeight() * scaley), Format.rgba8888);
-        for(int x = 0; x < pixmap.getWidth(); x++){
-            for(int y = 0; y < pixmap.getHeight(); y++){
-                pixmap.draw(x, y, input.getPixel((int)(x / scalex), (int)(y / scaley)));
-            }
+        int srcWidth = input.getWidth(), srcHeight = input.getHeight();
+        int width = (int)(srcWidth * scalex), height = (int)(srcHeight * scaley);
+        int[] src = read(input), dst = new int[width * height];
+
+        //nearest neighbour is separable: source columns are resolved once, and repeated source rows are copied
+        int[] columns = new int[width];
+        for(int x = 0; x < width; x++){
+            columns[x] = (int)(x / scalex);
         }
-        return pixmap;
+
+        rows(width, height, (start, end) -> {
+            int lastRow = -1;
+            for(int y = start; y < end; y++){
+                int row = (int)(y / scaley), offset = y * width;
+                if(row == lastRow){
+                    System.arraycopy(dst, offset - width, dst, offset, width);
+                    continue;
+                }
+                lastRow = row;
+
+                for(int x = 0; x < width; x++){
+                    int column = columns[x];
+                    dst[offset + x] = column >= 0 && row >= 0 && column < srcWidth && row < srcHeight ? visible(src[column + row * srcWidth]) : 0;
+                }
+            }
+        });
+
+        return create(width, height, dst);
     }
 
+    /**
+     * Outlines all opaque pixels in a circle of the specified thickness.
+     * Uses a distance transform, so its cost does not depend on thickness.
+     */
     public static Pixmap outline(Pixmap input, Color color, int thickness){
-        if(thickness == 1){
-            return outline(input, color);
-        }else{
-            Pixmap pixmap = copy(input);
-            pixmap.setColor(color);
-
-            for(int x = 0; x < pixmap.getWidth(); x++){
-                for(int y = 0; y < pixmap.getHeight(); y++){
-                    if(empty(input.getPixel(x, y))){
-                        boolean found = false;
-                        outer:
-                        for(int dx = -thickness; dx <= thickness; dx++){
-                            for(int dy = -thickness; dy <= thickness; dy++){
-                                if(Mathf.dst2(dx, dy) <= thickness * thickness && !empty(input.getPixel(x + dx, y + dy))){
-                                    found = true;
-                                    break outer;
-                                }
-                            }
-                        }
-                        if(found){
-                            pixmap.draw(x, y);
-                        }
-                    }
+        if(thickness == 1) return outline(input, color);
+
+        Pixmap pixmap = copy(input);
+        if(thickness <= 0) return pixmap;
 
+        int width = pixmap.getWidth(), height = pixmap.getHeight(), outline = visible(Color.rgba8888(color.r, color.g, color.b, color.a));
+        int[] pixels = pixmap.readPixels(null);
+        double[] grid = new double[width * height];
 
+        //squared euclidean distance to the nearest opaque pixel, one column pass and one row pass
+        rows(height, width, (start, end) -> {
+            double[] f = new double[height], d = new double[height], z = new double[height + 1];
+            int[] v = new int[height];
+
+            for(int x = start; x < end; x++){
+                for(int y = 0; y < height; y++){
+                    f[y] = empty(pixels[x + y * width]) ? infinity : 0;
+                }
+                distanceTransform(f, d, v, z, height);
+                for(int y = 0; y < height; y++){
+                    grid[x + y * width] = d[y];
                 }
             }
-            return pixmap;
-        }
+        });
+
+        int limit = thickness * thickness;
+        rows(width, height, (start, end) -> {
+            double[] f = new double[width], d = new double[width], z = new double[width + 1];
+            int[] v = new int[width];
+
+            for(int y = start; y < end; y++){
+                int offset = y * width;
+                System.arraycopy(grid, offset, f, 0, width);
+                distanceTransform(f, d, v, z, width);
+                for(int x = 0; x < width; x++){
+                    if(d[x] <= limit && empty(pixels[offset + x])){
+                        pixels[offset + x] = outline;
+                    }
+                }
+            }
+        });
+
+        pixmap.writePixels(pixels);
+        return pixmap;
     }
 
     public static Pixmap outline(Pixmap input, Color color){
         Pixmap pixmap = copy(input);
-        pixmap.setColor(color);
-
-        for(int x = 0; x < pixmap.getWidth(); x++){
-            for(int y = 0; y < pixmap.getHeight(); y++){
-                if(empty(input.getPixel(x, y)) &&
-                (!empty(input.getPixel(x, y + 1)) || !empty(input.getPixel(x, y - 1)) || !empty(input.getPixel(x - 1, y)) || !empty(input.getPixel(x + 1, y))))
-                    pixmap.draw(x, y);
+        int width = pixmap.getWidth(), height = pixmap.getHeight(), outline = visible(Color.rgba8888(color.r, color.g, color.b, color.a));
+        int[] src = pixmap.readPixels(null), dst = src.clone();
+
+        rows(width, height, (start, end) -> {
+            for(int y = start; y < end; y++){
+                for(int x = 0; x < width; x++){
+                    int i = x + y * width;
+                    if(empty(src[i]) &&
+                    ((y + 1 < height && !empty(src[i + width])) || (y > 0 && !empty(src[i - width])) || (x > 0 && !empty(src[i - 1])) || (x + 1 < width && !empty(src[i + 1]))))
+                        dst[i] = outline;
+                }
             }
-        }
+        });
+
+        pixmap.writePixels(dst);
         return pixmap;
     }
 
     public static Pixmap zoom(Pixmap input, int scale){
-        Pixmap pixmap = new Pixmap(input.getWidth(), input.getHeight(), Format.rgba8888);
-        for(int x = 0; x < pixmap.getWidth(); x++){
-            for(int y = 0; y < pixmap.getHeight(); y++){
-                pixmap.draw(x, y, input.getPixel(x / scale + pixmap.getWidth() / 2 / scale, y / scale + pixmap.getHeight() / 2 / scale));
+        int width = input.getWidth(), height = input.getHeight();
+        int[] src = read(input), dst = new int[width * height];
+        rows(width, height, (start, end) -> {
+            for(int y = start; y < end; y++){
+                int sy = y / scale + height / 2 / scale;
+                for(int x = 0; x < width; x++){
+                    int sx = x / scale + width / 2 / scale;
+                    dst[x + y * width] = sx < width && sy < height ? visible(src[sx + sy * width]) : 0;
+                }
             }
-        }
-        return pixmap;
+        });
+        return create(width, height, dst);
     }
 
     public static Pixmap resize(Pixmap input, int width, int height){
@@ -168,26 +251,118 @@ public class Pixmaps{
     }
 
     public static Pixmap rotate(Pixmap input, float angle){
-        Vec2 vector = new Vec2();
-        Pixmap pixmap = new Pixmap(input.getHeight(), input.getWidth(), Format.rgba8888);
+        int srcWidth = input.getWidth(), srcHeight = input.getHeight(), width = srcHeight, height = srcWidth;
+        int[] src = read(input), dst = new int[width * height], targets = new int[srcWidth * srcHeight];
+
+        //targets are resolved in parallel; blending stays serial, since several source pixels can land on the same target
+        rows(srcWidth, srcHeight, (start, end) -> {
+            Vec2 vector = new Vec2();
+            for(int y = start; y < end; y++){
+                for(int x = 0; x < srcWidth; x++){
+                    vector.set(x - srcWidth / 2f + 0.5f, y - srcHeight / 2f);
+                    vector.rotate(-angle);
+                    int px = (int)(vector.x + srcWidth / 2f + 0.01f) - srcWidth / 2 + width / 2;
+                    int py = (int)(vector.y + srcHeight / 2f + 0.01f) - srcHeight / 2 + height / 2;
+                    targets[x + y * srcWidth] = px >= 0 && py >= 0 && px < width && py < height ? px + py * width : -1;
+                }
+            }
+        });
 
-        for(int x = 0; x < input.getWidth(); x++){
-            for(int y = 0; y < input.getHeight(); y++){
-                vector.set(x - input.getWidth() / 2f + 0.5f, y - input.getHeight() / 2f);
-                vector.rotate(-angle);
-                int px = (int)(vector.x + input.getWidth() / 2f + 0.01f);
-                int py = (int)(vector.y + input.getHeight() / 2f + 0.01f);
-                pixmap.draw(px - input.getWidth() / 2 + pixmap.getWidth() / 2, py - input.getHeight() / 2 + pixmap.getHeight() / 2, input.getPixel(x, y));
+        for(int x = 0; x < srcWidth; x++){
+            for(int y = 0; y < srcHeight; y++){
+                int i = targets[x + y * srcWidth];
+                if(i != -1) dst[i] = Pixmap.blend(src[x + y * srcWidth], dst[i]);
             }
         }
 
-        return pixmap;
+        return create(width, height, dst);
     }
 
     public static boolean empty(int i){
         return (i & 0x000000ff) == 0;
     }
 
+    /** @return the pixels of a pixmap as RGBA8888 values in row-major order. Formats other than RGBA8888 are converted. */
+    public static int[] read(Pixmap pixmap){
+        if(pixmap.getFormat() == Format.rgba8888) return pixmap.readPixels(null);
+
+        int width = pixmap.getWidth(), height = pixmap.getHeight();
+        int[] out = new int[width * height];
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+                out[x + y * width] = pixmap.getPixel(x, y);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Runs an operation over the rows of an image. If {@link #parallel} is set and the image has at least
+     * {@link #parallelThreshold} pixels, the rows are split into stripes that run concurrently on the common fork-join pool,
+     * so the operation must only write to the rows it is given.
+     * @param stripe receives the first row (inclusive) and last row (exclusive) of each stripe.
+     */
+    public static void rows(int width, int height, Intc2 stripe){
+        if(!useParallel(width, height)){
+            stripe.get(0, height);
+            return;
+        }
+
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        //a few stripes per thread for load balancing, but never so thin that scheduling dominates
+        int grain = Math.max(Math.max(1, height / (threads * 4)), 4096 / Math.max(width, 1));
+        new RowTask(stripe, 0, height, grain).invoke();
+    }
+
+    /** @return whether {@link #rows(int, int, Intc2)} would run in parallel for an image of this size. */
+    public static boolean useParallel(int width, int height){
+        return parallel && height >= 2 && ForkJoinPool.getCommonPoolParallelism() >= 2 && (long)width * height >= parallelThreshold;
+    }
+
+    /** @return a new RGBA8888 pixmap holding the specified pixels. */
+    public static Pixmap create(int width, int height, int[] pixels){
+        Pixmap pixmap = new Pixmap(width, height, Format.rgba8888);
+        pixmap.writePixels(pixels);
+        return pixmap;
+    }
+
+    /** @return the value a blended draw of this color leaves on a cleared pixmap; fully transparent colors leave zero. */
+    private static int visible(int color){
+        return empty(color) ? 0 : color;
+    }
+
+    /**
+     * One-dimensional squared distance transform of a sampled function, after Felzenszwalb and Huttenlocher.
+     * @param f the input samples, where {@link #infinity} marks pixels that are not features
+     * @param d the output squared distances
+     * @param v scratch array of parabola positions, at least n long
+     * @param z scratch array of parabola boundaries, at least n + 1 long
+     */
+    public static void distanceTransform(double[] f, double[] d, int[] v, double[] z, int n){
+        int k = 0;
+        v[0] = 0;
+        z[0] = -infinity;
+        z[1] = infinity;
+
+        for(int q = 1; q < n; q++){
+            double s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            while(s <= z[k]){
+                k--;
+                s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = infinity;
+        }
+
+        k = 0;
+        for(int q = 0; q < n; q++){
+            while(z[k + 1] < q) k++;
+            d[q] = (q - v[k]) * (q - v[k]) + f[v[k]];
+        }
+    }
+
     public static void traverse(Pixmap input, Intc2 t){
         for(int x = 0; x < input.getWidth(); x++){
             for(int y = 0; y < input.getHeight(); y++){
@@ -197,17 +372,21 @@ public class Pixmaps{
     }
 
     public static Pixmap huePixmap(int width, int height){
-        Pixmap pixmap = new Pixmap(width, height, Format.rgba8888);
         Color color = new Color(1, 1, 1, 1);
+        int[] columns = new int[width], dst = new int[width * height];
 
         for(int x = 0; x < width; x++){
             color.fromHsv(x / (float)width, 1f, 1);
-            pixmap.setColor(color);
-            for(int y = 0; y < height; y++){
-                pixmap.draw(x, y);
-            }
+            columns[x] = visible(Color.rgba8888(color.r, color.g, color.b, color.a));
         }
-        return pixmap;
+
+        rows(width, height, (start, end) -> {
+            for(int y = start; y < end; y++){
+                System.arraycopy(columns, 0, dst, y * width, width);
+            }
+        });
+
+        return create(width, height, dst);
     }
 
     public static Texture hueTexture(int width, int height){
@@ -240,4 +419,28 @@ public class Pixmaps{
         drawPixmap.fill();
         texture.draw(drawPixmap, x, y);
     }
+
+    static class RowTask extends RecursiveAction{
+        private static final long serialVersionUID = 4196273681920938217L;
+
+        final Intc2 stripe;
+        final int start, end, grain;
+
+        RowTask(Intc2 stripe, int start, int end, int grain){
+            this.stripe = stripe;
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute(){
+            if(end - start <= grain){
+                stripe.get(start, end);
+            }else{
+                int mid = (start + end) >>> 1;
+                invokeAll(new RowTask(stripe, start, mid, grain), new RowTask(stripe, mid, end, grain));
+            }
+        }
+    }
 }
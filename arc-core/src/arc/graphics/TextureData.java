@@ -3,6 +3,7 @@ package arc.graphics;
 import arc.files.Fi;
 import arc.graphics.Pixmap.Format;
 import arc.graphics.gl.FileTextureData;
+import arc.graphics.gl.KTXTextureData;
 import arc.graphics.gl.MipMapGenerator;
 
 /**
@@ -76,6 +77,12 @@ public interface TextureData{
 
     static TextureData load(Fi file, Format format, boolean useMipMaps){
         if(file == null) return null;
+        if(KTXTextureData.isKTX(file)){
+            //prepared right away, like decoded images, so the size is known before upload
+            KTXTextureData data = new KTXTextureData(file, useMipMaps);
+            data.prepare();
+            return data;
+        }
         return new FileTextureData(file, new Pixmap(file), format, useMipMaps);
     }
 
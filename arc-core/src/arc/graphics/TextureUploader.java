@@ -0,0 +1,265 @@
+package arc.graphics;
+
+import arc.graphics.Pixmap.*;
+import arc.graphics.gl.*;
+import arc.struct.*;
+import arc.util.*;
+
+import java.nio.*;
+
+/**
+ * Uploads texture data in steps, so that large textures can be loaded over several frames without a single frame taking the
+ * whole upload. Pixels are uploaded in bands of rows with glTexSubImage2D, and mipmaps are generated in a step of their own.
+ * The time each step takes is measured, and {@link #update(long)} only starts steps whose estimated cost fits before its
+ * deadline.
+ * <p>
+ * Textures returned by {@link #load(Texture, TextureData)} can be used right away, but their contents are undefined until
+ * {@link #isUploading(Texture)} returns false. All methods must be called on the GL thread.
+ */
+public class TextureUploader{
+    /** The approximate number of bytes uploaded in one step. Textures smaller than this are uploaded immediately. */
+    public int stepBytes = 256 * 1024;
+
+    final Seq<Upload> uploads = new Seq<>();
+    /** Smoothed cost of uploads in nanoseconds per byte. The first guess is corrected after a few steps. */
+    float nanosPerByte = 1f;
+
+    /**
+     * Creates a texture for the data, or loads it into an existing texture, and queues its pixels for upload. Custom texture
+     * data and small images are uploaded immediately.
+     * @param texture the texture to load the data into, or null to create a new one
+     */
+    public Texture load(@Nullable Texture texture, TextureData data){
+        if(!data.isPrepared()) data.prepare();
+
+        long bytes = (long)data.getWidth() * data.getHeight() * 4;
+        if(data.isCustom() || bytes <= stepBytes){
+            long start = Time.nanos();
+            if(texture == null){
+                texture = new Texture(data);
+            }else{
+                texture.load(data);
+            }
+            measure(bytes, Time.timeSinceNanos(start));
+            return texture;
+        }
+
+        //allocate storage now, so the texture has its final size and parameters before any pixels arrive
+        Storage storage = new Storage(data.getWidth(), data.getHeight(), data.getFormat());
+        if(texture == null){
+            texture = new Texture(storage);
+        }else{
+            texture.load(storage);
+        }
+        texture.data = data;
+
+        uploads.add(new Upload(texture, data));
+        return texture;
+    }
+
+    /** @return whether the texture has pixels or mipmaps left to upload. */
+    public boolean isUploading(Texture texture){
+        for(int i = 0; i < uploads.size; i++){
+            if(uploads.get(i).texture == texture) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stops uploading to the texture and releases the pixels that were left. The texture keeps whatever was uploaded so far.
+     * @return whether the texture had an upload in progress.
+     */
+    public boolean cancel(Texture texture){
+        for(int i = 0; i < uploads.size; i++){
+            Upload upload = uploads.get(i);
+            if(upload.texture == texture){
+                uploads.remove(i);
+                if(upload.disposePixmap && upload.pixmap != null) upload.pixmap.dispose();
+                upload.pixmap = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return whether there is nothing left to upload. */
+    public boolean isEmpty(){
+        return uploads.isEmpty();
+    }
+
+    /**
+     * Runs upload steps until the deadline. A step is only started if its estimated cost fits in the remaining time, except for
+     * the first one, so that uploads always make progress.
+     * @param deadline the time to stop at, in {@link Time#nanos()}
+     * @return whether all uploads are done.
+     */
+    public boolean update(long deadline){
+        boolean first = true;
+        while(uploads.size > 0){
+            Upload upload = uploads.first();
+            long bytes = upload.nextBytes();
+            if(!first && Time.nanos() + (long)(bytes * nanosPerByte) > deadline) return false;
+            first = false;
+
+            long start = Time.nanos();
+            boolean done = upload.step();
+            measure(bytes, Time.timeSinceNanos(start));
+            if(done) uploads.remove(0);
+        }
+        return true;
+    }
+
+    /** Uploads everything that is left. */
+    public void finish(){
+        while(uploads.size > 0){
+            if(uploads.first().step()) uploads.remove(0);
+        }
+    }
+
+    /** @return the measured upload cost in nanoseconds per byte. */
+    public float getNanosPerByte(){
+        return nanosPerByte;
+    }
+
+    void measure(long bytes, long nanos){
+        if(bytes <= 0) return;
+        nanosPerByte += (nanos / (float)bytes - nanosPerByte) * 0.25f;
+    }
+
+    class Upload{
+        final Texture texture;
+        final TextureData data;
+        final boolean mipmaps;
+        Pixmap pixmap;
+        boolean disposePixmap, converted, mipmapped;
+        int row;
+
+        Upload(Texture texture, TextureData data){
+            this.texture = texture;
+            this.data = data;
+            this.mipmaps = data.useMipMaps();
+            this.pixmap = data.consumePixmap();
+            this.disposePixmap = data.disposePixmap();
+            this.converted = data.getFormat() == pixmap.getFormat();
+        }
+
+        /** @return the estimated number of bytes the next step processes. */
+        long nextBytes(){
+            if(!converted){
+                return (long)pixmap.getWidth() * pixmap.getHeight() * 4;
+            }
+            if(row < pixmap.getHeight()){
+                return (long)rowsPerStep() * rowBytes();
+            }
+            //the whole mip chain is a third of the first level
+            return mipmaps && !mipmapped ? (long)pixmap.getHeight() * rowBytes() / 3 : 0;
+        }
+
+        /** Runs the next step. @return whether the upload is complete. */
+        boolean step(){
+            if(!converted){
+                Pixmap tmp = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), data.getFormat());
+                tmp.setBlending(Pixmap.Blending.none);
+                tmp.drawPixmap(pixmap, 0, 0, 0, 0, pixmap.getWidth(), pixmap.getHeight());
+                if(disposePixmap) pixmap.dispose();
+                pixmap = tmp;
+                disposePixmap = true;
+                converted = true;
+                return false;
+            }
+
+            texture.bind();
+            if(row < pixmap.getHeight()){
+                int rows = Math.min(rowsPerStep(), pixmap.getHeight() - row);
+                ByteBuffer pixels = pixmap.getPixels().duplicate();
+                pixels.limit((row + rows) * rowBytes());
+                pixels.position(row * rowBytes());
+
+                Gl.pixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+                Gl.texSubImage2D(texture.glTarget, 0, 0, row, pixmap.getWidth(), rows, pixmap.getGLFormat(), pixmap.getGLType(),
+                pixels.slice());
+                row += rows;
+            }else if(mipmaps){
+                MipMapGenerator.generateMipMapLevels(texture.glTarget, pixmap, pixmap.getWidth(), pixmap.getHeight());
+                mipmapped = true;
+            }
+            Gl.bindTexture(texture.glTarget, 0);
+
+            if(row >= pixmap.getHeight() && (!mipmaps || mipmapped)){
+                if(disposePixmap) pixmap.dispose();
+                pixmap = null;
+                return true;
+            }
+            return false;
+        }
+
+        int rowBytes(){
+            return pixmap.getPixels().capacity() / pixmap.getHeight();
+        }
+
+        int rowsPerStep(){
+            return Math.max(stepBytes / rowBytes(), 1);
+        }
+    }
+
+    /** Allocates texture storage without uploading any pixels. */
+    static class Storage implements TextureData{
+        final int width, height;
+        final Format format;
+
+        Storage(int width, int height, Format format){
+            this.width = width;
+            this.height = height;
+            this.format = format;
+        }
+
+        @Override
+        public void consumeCustomData(int target){
+            Gl.texImage2D(target, 0, format.toGlFormat(), width, height, 0, format.toGlFormat(), format.toGlType(), null);
+        }
+
+        @Override
+        public boolean isCustom(){
+            return true;
+        }
+
+        @Override
+        public boolean isPrepared(){
+            return true;
+        }
+
+        @Override
+        public void prepare(){
+        }
+
+        @Override
+        public Pixmap consumePixmap(){
+            throw new ArcRuntimeException("This TextureData implementation does not return a Pixmap");
+        }
+
+        @Override
+        public boolean disposePixmap(){
+            throw new ArcRuntimeException("This TextureData implementation does not return a Pixmap");
+        }
+
+        @Override
+        public int getWidth(){
+            return width;
+        }
+
+        @Override
+        public int getHeight(){
+            return height;
+        }
+
+        @Override
+        public Format getFormat(){
+            return format;
+        }
+
+        @Override
+        public boolean useMipMaps(){
+            return false;
+        }
+    }
+}
@@ -17,7 +17,8 @@ public final class VertexAttribute{
     texCoords = new VertexAttribute(2, Shader.texcoordAttribute + "0"),
     normal = new VertexAttribute(3, Shader.normalAttribute),
     color = new VertexAttribute(4, GL20.GL_UNSIGNED_BYTE, true, Shader.colorAttribute),
-    mixColor = new VertexAttribute(4, GL20.GL_UNSIGNED_BYTE, true, Shader.mixColorAttribute);
+    mixColor = new VertexAttribute(4, GL20.GL_UNSIGNED_BYTE, true, Shader.mixColorAttribute),
+    texIndex = new VertexAttribute(1, Shader.texIndexAttribute);
 
     /** the number of components this attribute has **/
     public final int components;
@@ -2,11 +2,16 @@ package arc.graphics.g2d;
 
 import arc.graphics.*;
 import arc.graphics.gl.*;
+import arc.graphics.profiling.*;
+import arc.graphics.profiling.RenderProfiler.*;
 import arc.math.*;
 import arc.util.*;
 
 /** Base batch class. Provides a mesh, texture, shader, and other state. */
 public abstract class Batch implements Disposable{
+    /** Receives every flush that draws something, if set. See {@link RenderProfiler#enable()}. */
+    public static @Nullable RenderProfiler profiler;
+
     protected Mesh mesh;
 
     protected float z;
@@ -15,6 +20,8 @@ public abstract class Batch implements Disposable{
     protected Texture lastTexture = null;
 
     protected boolean apply;
+    /** Why the current flush happens. Set by {@link #flush(FlushReason)}; flushes through {@link #flush()} are explicit. */
+    protected FlushReason flushReason = FlushReason.explicit;
 
     protected final Mat transformMatrix = new Mat();
     protected final Mat projectionMatrix = new Mat();
@@ -24,6 +31,9 @@ public abstract class Batch implements Disposable{
 
     protected Shader shader, customShader = null;
     protected boolean ownsShader;
+    /** The shader that the uniform locations were resolved for. */
+    protected @Nullable Shader uniformShader;
+    protected int projTransLocation = -1, textureLocation = -1;
 
     protected final Color color = new Color(1, 1, 1, 1);
     protected float colorPacked = Color.whiteFloatBits;
@@ -101,9 +111,22 @@ public abstract class Batch implements Disposable{
 
     protected abstract void flush();
 
+    /** Flushes for a reason other than an explicit flush, so that profilers can tell why batches break. */
+    protected void flush(FlushReason reason){
+        FlushReason last = flushReason;
+        flushReason = reason;
+        flush();
+        flushReason = last;
+    }
+
+    /** Reports a flush that drew the given number of sprites to the {@link #profiler}. */
+    protected void profileFlush(int sprites){
+        if(profiler != null) profiler.flush(flushReason, sprites);
+    }
+
     protected void setBlending(Blending blending){
         if(this.blending != blending){
-            flush();
+            flush(FlushReason.blending);
         }
         this.blending = blending;
     }
@@ -125,23 +148,38 @@ public abstract class Batch implements Disposable{
     }
 
     protected void setProjection(Mat projection){
-        flush();
+        flush(FlushReason.projection);
         projectionMatrix.set(projection);
     }
 
     protected void setTransform(Mat transform){
-        flush();
+        flush(FlushReason.projection);
         transformMatrix.set(transform);
     }
 
     protected void setupMatrices(){
         combinedMatrix.set(projectionMatrix).mul(transformMatrix);
-        getShader().setUniformMatrix4("u_projTrans", combinedMatrix);
-        getShader().setUniformi("u_texture", 0);
+        Shader shader = getShader();
+        resolveUniforms(shader);
+        shader.setUniformMatrix4(projTransLocation, combinedMatrix);
+        shader.setUniformi(textureLocation, 0);
+    }
+
+    /**
+     * Resolves the locations of the uniforms set in {@link #setupMatrices()}, so that they are not looked up by name on every flush.
+     * @return whether the shader changed since the last call, and the locations were resolved again.
+     */
+    protected boolean resolveUniforms(Shader shader){
+        if(uniformShader == shader) return false;
+        uniformShader = shader;
+        projTransLocation = shader.fetchUniformLocation("u_projTrans");
+        //not every shader samples a single texture
+        textureLocation = shader.fetchUniformLocation("u_texture", false);
+        return true;
     }
 
     protected void switchTexture(Texture texture){
-        flush();
+        flush(FlushReason.texture);
         lastTexture = texture;
     }
 
@@ -150,7 +188,7 @@ public abstract class Batch implements Disposable{
     }
 
     protected void setShader(Shader shader, boolean apply){
-        flush();
+        flush(FlushReason.shader);
         customShader = shader;
         this.apply = apply;
     }
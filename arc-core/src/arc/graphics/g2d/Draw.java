@@ -4,6 +4,7 @@ import arc.*;
 import arc.func.*;
 import arc.graphics.*;
 import arc.graphics.gl.*;
+import arc.graphics.profiling.RenderProfiler.*;
 import arc.math.*;
 import arc.math.geom.*;
 import arc.util.*;
@@ -355,7 +356,7 @@ public class Draw{
     }
 
     public static void proj(float x, float y, float w, float h){
-        Draw.flush();
+        Core.batch.flush(FlushReason.projection);
         lastProj = null;
         batch.getProjection().setOrtho(x, y, w, h);
     }
@@ -10,6 +10,11 @@ class DrawRequest implements Comparable<DrawRequest>{
     Blending blending;
     Runnable run;
 
+    /** @return the texture this request draws with, or null for runnables. */
+    Texture texture(){
+        return texture != null ? texture : run != null ? null : region.texture;
+    }
+
     @Override
     public int compareTo(DrawRequest o){
         return Float.compare(z, o.z);
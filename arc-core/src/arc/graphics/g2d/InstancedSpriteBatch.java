@@ -0,0 +1,250 @@
+package arc.graphics.g2d;
+
+import arc.*;
+import arc.graphics.*;
+import arc.graphics.gl.*;
+import arc.graphics.profiling.RenderProfiler.*;
+import arc.util.*;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * A batch that draws each sprite as one instance of a shared quad, using instanced rendering. Requires OpenGL 3.0.
+ * <p>
+ * Instead of 4 transformed vertices, each sprite is stored as a single record of position, size, origin, rotation, texture
+ * coordinates and colors. The vertex shader expands and rotates the quad, so sprites need about half the bandwidth and no
+ * trigonometry on the CPU.
+ * </p>
+ * Raw vertex data ({@link Draw#vert}) and custom shaders cannot be expressed as instances; these are drawn by an internal
+ * {@link SpriteBatch} that shares this batch's state.
+ */
+public class InstancedSpriteBatch extends Batch{
+    //xy + size + origin + rotation + uv rect + color + mix_color
+    public static final int INSTANCE_SIZE = 2 + 2 + 2 + 1 + 4 + 1 + 1;
+
+    protected final float[] instances;
+    protected final ByteBuffer instanceBytes;
+    protected final int maxInstances;
+    protected final SpriteBatch fallback;
+    protected int quadBuffer, instanceBuffer, vaoHandle;
+
+    /** Number of rendering calls, ever. Will not be reset unless set manually. **/
+    int totalRenderCalls = 0;
+    /** The maximum number of sprites rendered in one batch so far. **/
+    int maxSpritesInBatch = 0;
+
+    /**
+     * Constructs a new InstancedSpriteBatch with a size of 4096 and the default shader.
+     * @see #InstancedSpriteBatch(int, Shader)
+     */
+    public InstancedSpriteBatch(){
+        this(4096, null);
+    }
+
+    /**
+     * @param size The max number of sprites in a single batch.
+     * @param defaultShader The default shader to use, which must expand instances like {@link #createShader()}.
+     * This is not owned by the batch and must be disposed separately.
+     */
+    public InstancedSpriteBatch(int size, Shader defaultShader){
+        if(Core.gl30 == null) throw new ArcRuntimeException("InstancedSpriteBatch requires OpenGL 3.0.");
+
+        projectionMatrix.setOrtho(0, 0, Core.graphics.getWidth(), Core.graphics.getHeight());
+
+        maxInstances = size;
+        instances = new float[size * INSTANCE_SIZE];
+        instanceBytes = Buffers.newUnsafeByteBuffer(instances.length * 4);
+        fallback = new SpriteBatch(Math.min(size, 8191));
+
+        if(defaultShader == null){
+            shader = createShader();
+            ownsShader = true;
+        }else{
+            shader = defaultShader;
+        }
+
+        IntBuffer handle = Buffers.newIntBuffer(1);
+        Core.gl30.glGenVertexArrays(1, handle);
+        vaoHandle = handle.get(0);
+        Gl.bindVertexArray(vaoHandle);
+
+        //quad corners, drawn as a triangle strip
+        ByteBuffer corners = Buffers.newByteBuffer(8 * 4);
+        corners.asFloatBuffer().put(new float[]{0f, 0f, 0f, 1f, 1f, 0f, 1f, 1f});
+        quadBuffer = Gl.genBuffer();
+        Gl.bindBuffer(Gl.arrayBuffer, quadBuffer);
+        Gl.bufferData(Gl.arrayBuffer, 8 * 4, corners, Gl.staticDraw);
+        attribute("a_corner", 2, Gl.floatV, false, 8, 0, 0);
+
+        instanceBuffer = Gl.genBuffer();
+        Gl.bindBuffer(Gl.arrayBuffer, instanceBuffer);
+        Gl.bufferData(Gl.arrayBuffer, instanceBytes.capacity(), null, Gl.streamDraw);
+        int stride = INSTANCE_SIZE * 4;
+        attribute("a_position", 2, Gl.floatV, false, stride, 0, 1);
+        attribute("a_size", 2, Gl.floatV, false, stride, 8, 1);
+        attribute("a_origin", 2, Gl.floatV, false, stride, 16, 1);
+        attribute("a_rotation", 1, Gl.floatV, false, stride, 24, 1);
+        attribute("a_uv", 4, Gl.floatV, false, stride, 28, 1);
+        attribute("a_color", 4, Gl.unsignedByte, true, stride, 44, 1);
+        attribute("a_mix_color", 4, Gl.unsignedByte, true, stride, 48, 1);
+
+        Gl.bindVertexArray(0);
+        Gl.bindBuffer(Gl.arrayBuffer, 0);
+    }
+
+    private void attribute(String name, int components, int type, boolean normalized, int stride, int offset, int divisor){
+        int location = shader.getAttributeLocation(name);
+        if(location < 0) return;
+
+        Gl.enableVertexAttribArray(location);
+        Gl.vertexAttribPointer(location, components, type, normalized, stride, offset);
+        Core.gl30.glVertexAttribDivisor(location, divisor);
+    }
+
+    @Override
+    protected void flush(){
+        fallback.flush(flushReason);
+        if(idx == 0) return;
+
+        shader.bind();
+        setupMatrices();
+
+        Gl.depthMask(false);
+        totalRenderCalls++;
+        int count = idx / INSTANCE_SIZE;
+        if(count > maxSpritesInBatch) maxSpritesInBatch = count;
+        profileFlush(count);
+
+        blending.apply();
+        lastTexture.bind();
+
+        instanceBytes.clear();
+        Buffers.copy(instances, instanceBytes, idx, 0);
+
+        Gl.bindVertexArray(vaoHandle);
+        Gl.bindBuffer(Gl.arrayBuffer, instanceBuffer);
+        //orphan the previous contents, so the driver does not wait for the last draw call to finish
+        Gl.bufferData(Gl.arrayBuffer, instanceBytes.capacity(), null, Gl.streamDraw);
+        Gl.bufferSubData(Gl.arrayBuffer, 0, idx * 4, instanceBytes);
+        Core.gl30.glDrawArraysInstanced(Gl.triangleStrip, 0, 4, count);
+        Gl.bindVertexArray(0);
+
+        idx = 0;
+    }
+
+    /** Flushes instances and prepares the fallback batch to draw with the current state. */
+    protected SpriteBatch fallback(){
+        if(idx > 0) flush();
+
+        SpriteBatch batch = fallback;
+        if(batch.blending != blending || batch.customShader != customShader || batch.apply != apply ||
+        !Arrays.equals(batch.projectionMatrix.val, projectionMatrix.val) || !Arrays.equals(batch.transformMatrix.val, transformMatrix.val)){
+            batch.flush();
+            batch.blending = blending;
+            batch.customShader = customShader;
+            batch.apply = apply;
+            batch.projectionMatrix.set(projectionMatrix);
+            batch.transformMatrix.set(transformMatrix);
+        }
+        batch.colorPacked = colorPacked;
+        batch.mixColorPacked = mixColorPacked;
+        return batch;
+    }
+
+    @Override
+    protected void draw(Texture texture, float[] spriteVertices, int offset, int count){
+        fallback().draw(texture, spriteVertices, offset, count);
+    }
+
+    @Override
+    protected void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation){
+        if(customShader != null){
+            fallback().draw(region, x, y, originX, originY, width, height, rotation);
+            return;
+        }
+
+        if(fallback.idx > 0){
+            fallback.flush();
+        }
+
+        Texture texture = region.texture;
+        if(texture != lastTexture){
+            switchTexture(texture);
+        }else if(idx == instances.length){
+            flush(FlushReason.full);
+        }
+
+        float[] instances = this.instances;
+        int idx = this.idx;
+        this.idx += INSTANCE_SIZE;
+
+        instances[idx] = x;
+        instances[idx + 1] = y;
+        instances[idx + 2] = width;
+        instances[idx + 3] = height;
+        instances[idx + 4] = originX;
+        instances[idx + 5] = originY;
+        instances[idx + 6] = rotation;
+        instances[idx + 7] = region.u;
+        instances[idx + 8] = region.v2;
+        instances[idx + 9] = region.u2;
+        instances[idx + 10] = region.v;
+        instances[idx + 11] = colorPacked;
+        instances[idx + 12] = mixColorPacked;
+    }
+
+    @Override
+    public void dispose(){
+        super.dispose();
+        fallback.dispose();
+        Buffers.disposeUnsafeByteBuffer(instanceBytes);
+        Gl.deleteBuffer(quadBuffer);
+        Gl.deleteBuffer(instanceBuffer);
+        IntBuffer handle = Buffers.newIntBuffer(1);
+        handle.put(vaoHandle);
+        handle.flip();
+        Gl.deleteVertexArrays(1, handle);
+    }
+
+    public static Shader createShader(){
+        return new Shader(
+        "attribute vec2 a_corner;\n" +
+        "attribute vec2 a_position;\n" +
+        "attribute vec2 a_size;\n" +
+        "attribute vec2 a_origin;\n" +
+        "attribute float a_rotation;\n" +
+        "attribute vec4 a_uv;\n" +
+        "attribute vec4 a_color;\n" +
+        "attribute vec4 a_mix_color;\n" +
+        "uniform mat4 u_projTrans;\n" +
+        "varying vec4 v_color;\n" +
+        "varying vec4 v_mix_color;\n" +
+        "varying vec2 v_texCoords;\n" +
+        "\n" +
+        "void main(){\n" +
+        "   float angle = radians(a_rotation);\n" +
+        "   float c = cos(angle), s = sin(angle);\n" +
+        "   vec2 local = a_corner * a_size - a_origin;\n" +
+        "   vec2 pos = a_position + a_origin + vec2(c * local.x - s * local.y, s * local.x + c * local.y);\n" +
+        "   v_color = a_color;\n" +
+        "   v_color.a = v_color.a * (255.0/254.0);\n" +
+        "   v_mix_color = a_mix_color;\n" +
+        "   v_mix_color.a *= (255.0/254.0);\n" +
+        "   v_texCoords = mix(a_uv.xy, a_uv.zw, a_corner);\n" +
+        "   gl_Position = u_projTrans * vec4(pos, 0.0, 1.0);\n" +
+        "}",
+
+        "\n" +
+        "varying lowp vec4 v_color;\n" +
+        "varying lowp vec4 v_mix_color;\n" +
+        "varying highp vec2 v_texCoords;\n" +
+        "uniform highp sampler2D u_texture;\n" +
+        "\n" +
+        "void main(){\n" +
+        "  vec4 c = texture2D(u_texture, v_texCoords);\n" +
+        "  gl_FragColor = v_color * mix(c, vec4(v_mix_color.rgb, c.a), v_mix_color.a);\n" +
+        "}"
+        );
+    }
+}
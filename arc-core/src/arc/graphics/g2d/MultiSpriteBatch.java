@@ -0,0 +1,270 @@
+package arc.graphics.g2d;
+
+import arc.*;
+import arc.graphics.*;
+import arc.graphics.gl.*;
+import arc.graphics.profiling.RenderProfiler.*;
+import arc.math.*;
+
+import java.util.*;
+
+/**
+ * A sprite batch that binds several textures to different texture units at once. Each vertex stores the index of its texture,
+ * so the batch only flushes when all texture slots are taken or the buffer is full, instead of on every texture switch.
+ * When a custom shader is set, only one texture is bound at a time, as custom shaders are expected to sample {@code u_texture}.
+ */
+public class MultiSpriteBatch extends Batch{
+    //xy + color + uv + mix_color + texture index
+    public static final int VERTEX_SIZE = 2 + 1 + 2 + 1 + 1;
+    public static final int SPRITE_SIZE = 4 * VERTEX_SIZE;
+    /** Upper limit on texture units. The default shader selects a sampler with one branch per unit, so this is kept small. */
+    public static final int maxTextureLimit = 16;
+
+    protected final float[] vertices;
+    /** Textures bound for the current batch. The index of a texture in this array is its texture unit. */
+    protected final Texture[] textures;
+    protected final int maxTextures;
+    protected int textureCount;
+
+    protected final String[] textureUniforms;
+    /** Locations of {@link #textureUniforms} in the current shader. */
+    protected final int[] textureLocations;
+
+    /** Number of rendering calls, ever. Will not be reset unless set manually. **/
+    int totalRenderCalls = 0;
+    /** The maximum number of sprites rendered in one batch so far. **/
+    int maxSpritesInBatch = 0;
+
+    /**
+     * Constructs a new MultiSpriteBatch with a size of 4096 and the default shader.
+     * @see #MultiSpriteBatch(int, Shader)
+     */
+    public MultiSpriteBatch(){
+        this(4096, null);
+    }
+
+    /**
+     * Constructs a new MultiSpriteBatch with the default shader.
+     * @see #MultiSpriteBatch(int, Shader)
+     */
+    public MultiSpriteBatch(int size){
+        this(size, null);
+    }
+
+    /**
+     * Constructs a new MultiSpriteBatch. The number of texture slots is queried from {@link Gl#maxTextureImageUnits}.
+     * @param size The max number of sprites in a single batch. Max of 8191.
+     * @param defaultShader The default shader to use, which must declare a {@code u_textures} sampler array with a slot for every
+     * texture unit. This is not owned by the batch and must be disposed separately.
+     */
+    public MultiSpriteBatch(int size, Shader defaultShader){
+        // 32767 is max vertex index, so 32767 / 4 vertices per sprite = 8191 sprites max.
+        if(size > 8191) throw new IllegalArgumentException("Can't have more than 8191 sprites per batch: " + size);
+
+        maxTextures = Mathf.clamp(Gl.getInt(Gl.maxTextureImageUnits), 1, maxTextureLimit);
+        textures = new Texture[maxTextures];
+        textureUniforms = new String[maxTextures];
+        textureLocations = new int[maxTextures];
+        for(int i = 0; i < maxTextures; i++){
+            textureUniforms[i] = "u_textures[" + i + "]";
+        }
+
+        projectionMatrix.setOrtho(0, 0, Core.graphics.getWidth(), Core.graphics.getHeight());
+
+        mesh = new Mesh(true, false, true, size * 4, size * 6,
+        VertexAttribute.position,
+        VertexAttribute.color,
+        VertexAttribute.texCoords,
+        VertexAttribute.mixColor,
+        VertexAttribute.texIndex
+        );
+
+        vertices = new float[size * SPRITE_SIZE];
+
+        int len = size * 6;
+        short[] indices = new short[len];
+        short j = 0;
+        for(int i = 0; i < len; i += 6, j += 4){
+            indices[i] = j;
+            indices[i + 1] = (short)(j + 1);
+            indices[i + 2] = (short)(j + 2);
+            indices[i + 3] = (short)(j + 2);
+            indices[i + 4] = (short)(j + 3);
+            indices[i + 5] = j;
+        }
+        mesh.setIndices(indices);
+
+        if(defaultShader == null){
+            shader = createShader(maxTextures);
+            ownsShader = true;
+        }else{
+            shader = defaultShader;
+        }
+    }
+
+    /** @return the number of textures that can be bound at once with the current shader. */
+    public int getMaxTextures(){
+        return customShader == null ? maxTextures : 1;
+    }
+
+    @Override
+    protected void flush(){
+        if(idx == 0) return;
+
+        getShader().bind();
+        setupMatrices();
+
+        if(customShader != null && apply){
+            customShader.apply();
+        }
+
+        Gl.depthMask(false);
+        totalRenderCalls++;
+        int spritesInBatch = idx / SPRITE_SIZE;
+        if(spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
+        int count = spritesInBatch * 6;
+        profileFlush(spritesInBatch);
+
+        blending.apply();
+
+        //bind in reverse, so unit 0 is active afterwards like everywhere else
+        for(int i = textureCount - 1; i >= 0; i--){
+            textures[i].bind(i);
+        }
+
+        Mesh mesh = this.mesh;
+        mesh.setVertices(vertices, 0, idx);
+        mesh.getIndicesBuffer().position(0);
+        mesh.getIndicesBuffer().limit(count);
+        mesh.render(getShader(), Gl.triangles, 0, count);
+
+        idx = 0;
+        Arrays.fill(textures, 0, textureCount, null);
+        textureCount = 0;
+    }
+
+    @Override
+    protected void setupMatrices(){
+        combinedMatrix.set(projectionMatrix).mul(transformMatrix);
+        Shader shader = getShader();
+        resolveUniforms(shader);
+        shader.setUniformMatrix4(projTransLocation, combinedMatrix);
+        if(customShader != null){
+            shader.setUniformi(textureLocation, 0);
+        }else{
+            for(int i = 0; i < textureCount; i++){
+                shader.setUniformi(textureLocations[i], i);
+            }
+        }
+    }
+
+    @Override
+    protected boolean resolveUniforms(Shader shader){
+        if(!super.resolveUniforms(shader)) return false;
+        for(int i = 0; i < maxTextures; i++){
+            textureLocations[i] = shader.fetchUniformLocation(textureUniforms[i], false);
+        }
+        return true;
+    }
+
+    @Override
+    protected void switchTexture(Texture texture){
+        textureIndex(texture);
+    }
+
+    /** @return the texture unit of this texture in the current batch. Flushes if no slot is free. */
+    protected float textureIndex(Texture texture){
+        for(int i = textureCount - 1; i >= 0; i--){
+            if(textures[i] == texture) return i;
+        }
+
+        if(textureCount >= getMaxTextures()){
+            flush(FlushReason.texture);
+        }
+
+        lastTexture = texture;
+        textures[textureCount] = texture;
+        return textureCount++;
+    }
+
+    @Override
+    protected void draw(Texture texture, float[] spriteVertices, int offset, int count){
+        int end = offset + count;
+
+        for(int i = offset; i < end; i += SpriteBatch.SPRITE_SIZE){
+            if(idx == vertices.length) flush(FlushReason.full);
+            float index = textureIndex(texture);
+
+            float[] vertices = this.vertices;
+            int vertexCount = Math.min(SpriteBatch.SPRITE_SIZE, end - i) / SpriteBatch.VERTEX_SIZE;
+            for(int v = 0; v < vertexCount; v++){
+                System.arraycopy(spriteVertices, i + v * SpriteBatch.VERTEX_SIZE, vertices, idx, SpriteBatch.VERTEX_SIZE);
+                vertices[idx + SpriteBatch.VERTEX_SIZE] = index;
+                idx += VERTEX_SIZE;
+            }
+        }
+    }
+
+    @Override
+    protected void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation){
+        if(idx == vertices.length) flush(FlushReason.full);
+        float index = textureIndex(region.texture);
+
+        float[] vertices = this.vertices;
+        int idx = this.idx;
+        this.idx += SPRITE_SIZE;
+
+        SpriteBatch.writeVertices(vertices, idx, VERTEX_SIZE, region, x, y, originX, originY, width, height, rotation, colorPacked, mixColorPacked);
+        vertices[idx + 6] = index;
+        vertices[idx + 13] = index;
+        vertices[idx + 20] = index;
+        vertices[idx + 27] = index;
+    }
+
+    /** Creates the default shader, which samples one of {@code textures} units based on the texture index attribute. */
+    public static Shader createShader(int textures){
+        StringBuilder sample = new StringBuilder();
+        for(int i = 0; i < textures; i++){
+            if(i > 0) sample.append("  else ");
+            else sample.append("  ");
+            if(i < textures - 1) sample.append("if(v_tex_index < ").append(i).append(".5) ");
+            sample.append("c = texture2D(u_textures[").append(i).append("], v_texCoords);\n");
+        }
+
+        return new Shader(
+        "attribute vec4 a_position;\n" +
+        "attribute vec4 a_color;\n" +
+        "attribute vec2 a_texCoord0;\n" +
+        "attribute vec4 a_mix_color;\n" +
+        "attribute float a_tex_index;\n" +
+        "uniform mat4 u_projTrans;\n" +
+        "varying vec4 v_color;\n" +
+        "varying vec4 v_mix_color;\n" +
+        "varying vec2 v_texCoords;\n" +
+        "varying float v_tex_index;\n" +
+        "\n" +
+        "void main(){\n" +
+        "   v_color = a_color;\n" +
+        "   v_color.a = v_color.a * (255.0/254.0);\n" +
+        "   v_mix_color = a_mix_color;\n" +
+        "   v_mix_color.a *= (255.0/254.0);\n" +
+        "   v_texCoords = a_texCoord0;\n" +
+        "   v_tex_index = a_tex_index;\n" +
+        "   gl_Position = u_projTrans * a_position;\n" +
+        "}",
+
+        "\n" +
+        "varying lowp vec4 v_color;\n" +
+        "varying lowp vec4 v_mix_color;\n" +
+        "varying highp vec2 v_texCoords;\n" +
+        "varying mediump float v_tex_index;\n" +
+        "uniform highp sampler2D u_textures[" + textures + "];\n" +
+        "\n" +
+        "void main(){\n" +
+        "  vec4 c;\n" +
+        sample +
+        "  gl_FragColor = v_color * mix(c, vec4(v_mix_color.rgb, c.a), v_mix_color.a);\n" +
+        "}"
+        );
+    }
+}
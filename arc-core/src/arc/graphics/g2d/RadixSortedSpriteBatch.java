@@ -0,0 +1,238 @@
+package arc.graphics.g2d;
+
+import arc.graphics.*;
+import arc.graphics.gl.*;
+import arc.struct.*;
+
+import java.util.*;
+
+/**
+ * A sorting batch that stores requests in flat primitive arrays instead of pooled {@link DrawRequest} objects.
+ * Sprite vertices are computed when the request is queued, and requests are ordered with a stable radix sort on their Z value,
+ * so queuing and flushing do not allocate once the buffers have grown to fit a frame.
+ */
+public class RadixSortedSpriteBatch extends SpriteBatch{
+    protected float[] requestVertices = new float[1024 * SPRITE_SIZE];
+    protected Texture[] requestTextures = new Texture[1024];
+    protected Blending[] requestBlending = new Blending[1024];
+    protected Runnable[] requestRuns = new Runnable[1024];
+    protected float[] requestColors = new float[1024];
+    protected float[] requestMixColors = new float[1024];
+    /**
+     * Sort keys. The upper 32 bits contain the Z value in an order-preserving unsigned form.
+     * When sorting by state, a second sort uses the index of the request's Z group instead, with the blending and texture of the
+     * request in the lower 32 bits.
+     */
+    protected long[] requestKeys = new long[1024];
+    /** Request indices in drawing order. Only valid while flushing. */
+    protected int[] requestOrder = new int[1024];
+    protected int requestCount;
+
+    protected final Sort sorter = new Sort();
+    protected boolean sort;
+    protected boolean flushing;
+
+    /**
+     * If true, requests with the same Z are additionally ordered by blending and texture, which reduces flushes. Runnables are
+     * barriers: they keep their place, and requests are not moved past them.
+     */
+    public boolean sortByState;
+    /** When sorting by state, Z values are rounded down to a multiple of this before comparing. 0 groups identical Z values only. */
+    public float zBucket;
+    /** Number of texture or blending changes between sorted requests, ever. Will not be reset unless set manually. */
+    public int stateChanges;
+    /** Number of texture or blending changes avoided by {@link #sortByState}, ever. Will not be reset unless set manually. */
+    public int stateChangesSaved;
+
+    @Override
+    protected void setSort(boolean sort){
+        if(this.sort != sort){
+            flush();
+        }
+        this.sort = sort;
+    }
+
+    @Override
+    protected void setShader(Shader shader, boolean apply){
+        if(!flushing && sort){
+            throw new IllegalArgumentException("Shaders cannot be set while sorting is enabled. Set shaders inside Draw.run(...).");
+        }
+        super.setShader(shader, apply);
+    }
+
+    @Override
+    protected void setBlending(Blending blending){
+        this.blending = blending;
+    }
+
+    @Override
+    protected void draw(Texture texture, float[] spriteVertices, int offset, int count){
+        if(sort && !flushing){
+            //requests are replayed one whole sprite at a time
+            if(count % SPRITE_SIZE != 0){
+                throw new IllegalArgumentException("Vertex count must be a multiple of " + SPRITE_SIZE + " while sorting, got " + count + ".");
+            }
+            for(int i = offset; i < offset + count; i += SPRITE_SIZE){
+                int index = obtain();
+                System.arraycopy(spriteVertices, i, requestVertices, index * SPRITE_SIZE, SPRITE_SIZE);
+                requestTextures[index] = texture;
+            }
+        }else{
+            super.draw(texture, spriteVertices, offset, count);
+        }
+    }
+
+    @Override
+    protected void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation){
+        if(sort && !flushing){
+            int index = obtain();
+            writeVertices(requestVertices, index * SPRITE_SIZE, region, x, y, originX, originY, width, height, rotation);
+            requestTextures[index] = region.texture;
+        }else{
+            super.draw(region, x, y, originX, originY, width, height, rotation);
+        }
+    }
+
+    @Override
+    protected void draw(Runnable request){
+        if(sort && !flushing){
+            int index = obtain();
+            requestRuns[index] = request;
+        }else{
+            super.draw(request);
+        }
+    }
+
+    /** Allocates a new request with the current Z, blending and colors, and returns its index. */
+    protected int obtain(){
+        if(requestCount == requestKeys.length){
+            resize(requestCount * 2);
+        }
+
+        int index = requestCount++;
+        requestKeys[index] = (long)sortKey(z) << 32;
+        requestBlending[index] = blending;
+        requestColors[index] = colorPacked;
+        requestMixColors[index] = mixColorPacked;
+        return index;
+    }
+
+    protected void resize(int capacity){
+        requestVertices = Arrays.copyOf(requestVertices, capacity * SPRITE_SIZE);
+        requestTextures = Arrays.copyOf(requestTextures, capacity);
+        requestBlending = Arrays.copyOf(requestBlending, capacity);
+        requestRuns = Arrays.copyOf(requestRuns, capacity);
+        requestColors = Arrays.copyOf(requestColors, capacity);
+        requestMixColors = Arrays.copyOf(requestMixColors, capacity);
+        requestKeys = Arrays.copyOf(requestKeys, capacity);
+        requestOrder = new int[capacity];
+    }
+
+    @Override
+    protected void flush(){
+        flushRequests();
+        super.flush();
+    }
+
+    protected void flushRequests(){
+        if(!flushing && requestCount > 0){
+            flushing = true;
+            for(int i = 0; i < requestCount; i++){
+                requestOrder[i] = i;
+            }
+            sortRequests();
+            float preColor = colorPacked, preMixColor = mixColorPacked;
+            Blending preBlending = blending;
+
+            for(int j = 0; j < requestCount; j++){
+                int index = requestOrder[j];
+
+                colorPacked = requestColors[index];
+                mixColorPacked = requestMixColors[index];
+
+                super.setBlending(requestBlending[index]);
+
+                Runnable run = requestRuns[index];
+                if(run != null){
+                    run.run();
+                }else{
+                    super.draw(requestTextures[index], requestVertices, index * SPRITE_SIZE, SPRITE_SIZE);
+                }
+            }
+
+            colorPacked = preColor;
+            mixColorPacked = preMixColor;
+            color.abgr8888(colorPacked);
+            mixColor.abgr8888(mixColorPacked);
+            blending = preBlending;
+
+            //release references so textures and runnables can be collected
+            Arrays.fill(requestTextures, 0, requestCount, null);
+            Arrays.fill(requestRuns, 0, requestCount, null);
+            Arrays.fill(requestBlending, 0, requestCount, null);
+            requestCount = 0;
+
+            flushing = false;
+        }
+    }
+
+    /** Sorts {@link #requestOrder} by the request keys. The order is stable for requests with equal keys. */
+    protected void sortRequests(){
+        sorter.radixSort(requestKeys, requestOrder, requestCount);
+
+        if(sortByState){
+            int unsorted = countStateChanges();
+
+            //keys are now in Z order. replace the Z with the index of its group, a run of requests with the same bucketed Z, and
+            //add the state. runnables can change any state, such as framebuffers or shaders, so each one gets a group of its own
+            //and nothing is moved across it. sorting again then only reorders requests within a group
+            int group = 0;
+            float lastZ = 0f;
+            boolean lastRun = false;
+            for(int j = 0; j < requestCount; j++){
+                int index = requestOrder[j];
+                float z = fromSortKey((int)(requestKeys[j] >>> 32));
+                if(zBucket > 0f) z = (float)Math.floor(z / zBucket);
+                boolean run = requestRuns[index] != null;
+                if(j > 0 && (run || lastRun || z != lastZ)) group++;
+                lastZ = z;
+                lastRun = run;
+
+                requestKeys[j] = ((long)group << 32) | (run ? 0 : SortedSpriteBatch.stateKey(requestTextures[index], requestBlending[index]) & 0xffffffffL);
+            }
+            sorter.radixSort(requestKeys, requestOrder, requestCount);
+
+            int sorted = countStateChanges();
+            stateChanges += sorted;
+            stateChangesSaved += unsorted - sorted;
+        }
+    }
+
+    /** @return the number of texture or blending changes between sprite requests in the current {@link #requestOrder}. */
+    protected int countStateChanges(){
+        int changes = 0;
+        Texture prevTexture = null;
+        Blending prevBlending = null;
+        for(int j = 0; j < requestCount; j++){
+            int index = requestOrder[j];
+            if(requestRuns[index] != null) continue;
+            if(prevBlending != null && (requestTextures[index] != prevTexture || requestBlending[index] != prevBlending)){
+                changes++;
+            }
+            prevTexture = requestTextures[index];
+            prevBlending = requestBlending[index];
+        }
+        return changes;
+    }
+
+    /** Converts a float to an int whose unsigned ordering matches {@link Float#compare(float, float)}. */
+    protected static int sortKey(float z){
+        int bits = Float.floatToRawIntBits(z);
+        return bits ^ ((bits >> 31) | 0x80000000);
+    }
+
+    /** Inverse of {@link #sortKey(float)}. */
+    protected static float fromSortKey(int key){
+        return Float.intBitsToFloat(key < 0 ? key ^ 0x80000000 : ~key);
+    }
+}
@@ -4,11 +4,29 @@ import arc.graphics.*;
 import arc.graphics.gl.*;
 import arc.struct.*;
 
+import java.util.*;
+
 public class SortedSpriteBatch extends SpriteBatch{
     protected Seq<DrawRequest> requestPool = new Seq<>(10000);
     protected Seq<DrawRequest> requests = new Seq<>(DrawRequest.class);
     protected boolean sort;
     protected boolean flushing;
+    protected final Comparator<DrawRequest> stateComparator = (a, b) -> {
+        int result = Float.compare(bucket(a.z), bucket(b.z));
+        return result != 0 ? result : Integer.compare(stateKey(a.texture(), a.blending), stateKey(b.texture(), b.blending));
+    };
+
+    /**
+     * If true, requests with the same Z are additionally ordered by blending and texture, which reduces flushes. Runnables are
+     * barriers: they keep their place, and requests are not moved past them.
+     */
+    public boolean sortByState;
+    /** When sorting by state, Z values are rounded down to a multiple of this before comparing. 0 groups identical Z values only. */
+    public float zBucket;
+    /** Number of texture or blending changes between sorted requests, ever. Will not be reset unless set manually. */
+    public int stateChanges;
+    /** Number of texture or blending changes avoided by {@link #sortByState}, ever. Will not be reset unless set manually. */
+    public int stateChangesSaved;
 
     @Override
     protected void setSort(boolean sort){
@@ -137,5 +155,46 @@ public class SortedSpriteBatch extends SpriteBatch{
 
     protected void sortRequests(){
         requests.sort();
+
+        if(sortByState){
+            int unsorted = countStateChanges();
+            //runnables can change any state, such as framebuffers or shaders, so requests are never moved across one
+            DrawRequest[] items = requests.items;
+            for(int start = 0, end; start < requests.size; start = end + 1){
+                end = start;
+                while(end < requests.size && items[end].run == null) end++;
+                if(end - start > 1) Sort.instance().sort(items, stateComparator, start, end);
+            }
+            int sorted = countStateChanges();
+            stateChanges += sorted;
+            stateChangesSaved += unsorted - sorted;
+        }
+    }
+
+    /** @return the number of texture or blending changes between sprite requests in their current order. */
+    protected int countStateChanges(){
+        int changes = 0;
+        Texture prevTexture = null;
+        Blending prevBlending = null;
+        for(int i = 0; i < requests.size; i++){
+            DrawRequest req = requests.items[i];
+            if(req.run != null) continue;
+            Texture texture = req.texture();
+            if(prevBlending != null && (texture != prevTexture || req.blending != prevBlending)){
+                changes++;
+            }
+            prevTexture = texture;
+            prevBlending = req.blending;
+        }
+        return changes;
+    }
+
+    protected float bucket(float z){
+        return zBucket > 0f ? (float)Math.floor(z / zBucket) : z;
+    }
+
+    /** @return a key that groups requests with the same blending and texture. Used as a secondary sort key. */
+    static int stateKey(Texture texture, Blending blending){
+        return (blending == null ? 0 : blending.ordinal() << 24) | (texture == null ? 0 : texture.getTextureObjectHandle() & 0xffffff);
     }
 }
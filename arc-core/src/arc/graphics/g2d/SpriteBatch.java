@@ -3,6 +3,7 @@ package arc.graphics.g2d;
 import arc.*;
 import arc.graphics.*;
 import arc.graphics.gl.*;
+import arc.graphics.profiling.RenderProfiler.*;
 import arc.math.*;
 
 public class SpriteBatch extends Batch{
@@ -50,7 +51,7 @@ public class SpriteBatch extends Batch{
         if(size > 0){
             projectionMatrix.setOrtho(0, 0, Core.graphics.getWidth(), Core.graphics.getHeight());
 
-            mesh = new Mesh(true, false, size * 4, size * 6,
+            mesh = new Mesh(true, false, true, size * 4, size * 6,
             VertexAttribute.position,
             VertexAttribute.color,
             VertexAttribute.texCoords,
@@ -100,6 +101,7 @@ public class SpriteBatch extends Batch{
         int spritesInBatch = idx / SPRITE_SIZE;
         if(spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
         int count = spritesInBatch * 6;
+        profileFlush(spritesInBatch);
 
         blending.apply();
 
@@ -123,7 +125,7 @@ public class SpriteBatch extends Batch{
         }else{
             remainingVertices -= idx;
             if(remainingVertices == 0){
-                flush();
+                flush(FlushReason.full);
                 remainingVertices = verticesLength;
             }
         }
@@ -134,7 +136,7 @@ public class SpriteBatch extends Batch{
         count -= copyCount;
         while(count > 0){
             offset += copyCount;
-            flush();
+            flush(FlushReason.full);
             copyCount = Math.min(verticesLength, count);
             System.arraycopy(spriteVertices, offset, vertices, 0, copyCount);
             idx += copyCount;
@@ -149,12 +151,25 @@ public class SpriteBatch extends Batch{
         if(texture != lastTexture){
             switchTexture(texture);
         }else if(idx == vertices.length){
-            flush();
+            flush(FlushReason.full);
         }
 
-        float[] vertices = this.vertices;
-        int idx = this.idx;
-        this.idx += SPRITE_SIZE;
+        writeVertices(vertices, idx, region, x, y, originX, originY, width, height, rotation);
+        idx += SPRITE_SIZE;
+    }
+
+    /** Writes the 4 vertices of a sprite into the specified array, using the current color and mix color. */
+    protected void writeVertices(float[] vertices, int idx, TextureRegion region, float x, float y, float originX, float originY, float width, float height, float rotation){
+        writeVertices(vertices, idx, VERTEX_SIZE, region, x, y, originX, originY, width, height, rotation, colorPacked, mixColorPacked);
+    }
+
+    /**
+     * Writes the position, color, UV and mix color of the 4 vertices of a sprite. Vertices start {@code stride} floats apart, so
+     * batches with a larger vertex format can fill in their extra attributes afterwards.
+     */
+    static void writeVertices(float[] vertices, int idx, int stride, TextureRegion region, float x, float y, float originX, float originY,
+                              float width, float height, float rotation, float color, float mixColor){
+        float x1, y1, x2, y2, x3, y3, x4, y4;
 
         if(!Mathf.zero(rotation)){
             //bottom left and top right corner points relative to origin
@@ -169,89 +184,60 @@ public class SpriteBatch extends Batch{
             float cos = Mathf.cosDeg(rotation);
             float sin = Mathf.sinDeg(rotation);
 
-            float x1 = cos * fx - sin * fy + worldOriginX;
-            float y1 = sin * fx + cos * fy + worldOriginY;
-            float x2 = cos * fx - sin * fy2 + worldOriginX;
-            float y2 = sin * fx + cos * fy2 + worldOriginY;
-            float x3 = cos * fx2 - sin * fy2 + worldOriginX;
-            float y3 = sin * fx2 + cos * fy2 + worldOriginY;
-            float x4 = x1 + (x3 - x2);
-            float y4 = y3 - (y2 - y1);
-
-            float u = region.u;
-            float v = region.v2;
-            float u2 = region.u2;
-            float v2 = region.v;
-
-            float color = this.colorPacked;
-            float mixColor = this.mixColorPacked;
-
-            vertices[idx] = x1;
-            vertices[idx + 1] = y1;
-            vertices[idx + 2] = color;
-            vertices[idx + 3] = u;
-            vertices[idx + 4] = v;
-            vertices[idx + 5] = mixColor;
-
-            vertices[idx + 6] = x2;
-            vertices[idx + 7] = y2;
-            vertices[idx + 8] = color;
-            vertices[idx + 9] = u;
-            vertices[idx + 10] = v2;
-            vertices[idx + 11] = mixColor;
-
-            vertices[idx + 12] = x3;
-            vertices[idx + 13] = y3;
-            vertices[idx + 14] = color;
-            vertices[idx + 15] = u2;
-            vertices[idx + 16] = v2;
-            vertices[idx + 17] = mixColor;
-
-            vertices[idx + 18] = x4;
-            vertices[idx + 19] = y4;
-            vertices[idx + 20] = color;
-            vertices[idx + 21] = u2;
-            vertices[idx + 22] = v;
-            vertices[idx + 23] = mixColor;
+            x1 = cos * fx - sin * fy + worldOriginX;
+            y1 = sin * fx + cos * fy + worldOriginY;
+            x2 = cos * fx - sin * fy2 + worldOriginX;
+            y2 = sin * fx + cos * fy2 + worldOriginY;
+            x3 = cos * fx2 - sin * fy2 + worldOriginX;
+            y3 = sin * fx2 + cos * fy2 + worldOriginY;
+            x4 = x1 + (x3 - x2);
+            y4 = y3 - (y2 - y1);
         }else{
-            float fx2 = x + width;
-            float fy2 = y + height;
-            float u = region.u;
-            float v = region.v2;
-            float u2 = region.u2;
-            float v2 = region.v;
-
-            float color = this.colorPacked;
-            float mixColor = this.mixColorPacked;
-
-            vertices[idx] = x;
-            vertices[idx + 1] = y;
-            vertices[idx + 2] = color;
-            vertices[idx + 3] = u;
-            vertices[idx + 4] = v;
-            vertices[idx + 5] = mixColor;
-
-            vertices[idx + 6] = x;
-            vertices[idx + 7] = fy2;
-            vertices[idx + 8] = color;
-            vertices[idx + 9] = u;
-            vertices[idx + 10] = v2;
-            vertices[idx + 11] = mixColor;
-
-            vertices[idx + 12] = fx2;
-            vertices[idx + 13] = fy2;
-            vertices[idx + 14] = color;
-            vertices[idx + 15] = u2;
-            vertices[idx + 16] = v2;
-            vertices[idx + 17] = mixColor;
-
-            vertices[idx + 18] = fx2;
-            vertices[idx + 19] = y;
-            vertices[idx + 20] = color;
-            vertices[idx + 21] = u2;
-            vertices[idx + 22] = v;
-            vertices[idx + 23] = mixColor;
+            x1 = x;
+            y1 = y;
+            x2 = x;
+            y2 = y + height;
+            x3 = x + width;
+            y3 = y + height;
+            x4 = x + width;
+            y4 = y;
         }
+
+        float u = region.u;
+        float v = region.v2;
+        float u2 = region.u2;
+        float v2 = region.v;
+
+        vertices[idx] = x1;
+        vertices[idx + 1] = y1;
+        vertices[idx + 2] = color;
+        vertices[idx + 3] = u;
+        vertices[idx + 4] = v;
+        vertices[idx + 5] = mixColor;
+
+        idx += stride;
+        vertices[idx] = x2;
+        vertices[idx + 1] = y2;
+        vertices[idx + 2] = color;
+        vertices[idx + 3] = u;
+        vertices[idx + 4] = v2;
+        vertices[idx + 5] = mixColor;
+
+        idx += stride;
+        vertices[idx] = x3;
+        vertices[idx + 1] = y3;
+        vertices[idx + 2] = color;
+        vertices[idx + 3] = u2;
+        vertices[idx + 4] = v2;
+        vertices[idx + 5] = mixColor;
+
+        idx += stride;
+        vertices[idx] = x4;
+        vertices[idx + 1] = y4;
+        vertices[idx + 2] = color;
+        vertices[idx + 3] = u2;
+        vertices[idx + 4] = v;
+        vertices[idx + 5] = mixColor;
     }
 
     public static Shader createShader(){
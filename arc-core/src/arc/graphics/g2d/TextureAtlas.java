@@ -13,7 +13,10 @@ import arc.util.*;
 import arc.util.io.*;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static arc.graphics.Texture.TextureWrap.*;
 
@@ -114,22 +117,50 @@ public class TextureAtlas implements Disposable{
     }
 
     private void load(TextureAtlasData data){
-        ObjectMap<AtlasPage, Texture> pageToTexture = new ObjectMap<>();
-        for(AtlasPage page : data.pages){
-            Texture texture = null;
-            if(page.texture == null){
-                texture = new Texture(page.textureFile, page.format, page.useMipMaps);
-                texture.setFilter(page.minFilter, page.magFilter);
-                texture.setWrap(page.uWrap, page.vWrap);
-            }else{
-                texture = page.texture;
-                texture.setFilter(page.minFilter, page.magFilter);
-                texture.setWrap(page.uWrap, page.vWrap);
+        Seq<AtlasPage> pages = data.pages;
+        TextureData[] decoded = new TextureData[pages.size];
+
+        //page images are decoded on worker threads; only the GL upload has to happen on this one
+        Seq<ForkJoinTask<?>> tasks = new Seq<>();
+        for(int i = 0; i < pages.size; i++){
+            AtlasPage page = pages.get(i);
+            if(page.texture != null) continue;
+            int index = i;
+            tasks.add(ForkJoinTask.adapt(() -> decoded[index] = TextureData.load(page.textureFile, page.format, page.useMipMaps)));
+        }
+        //every decode has to finish before failures are handled, otherwise a running worker could still fill in decoded[] afterwards
+        for(int i = 0; i < tasks.size - 1; i++){
+            tasks.get(i).fork();
+        }
+        if(tasks.size > 0) tasks.peek().quietlyInvoke();
+        Throwable failure = null;
+        for(ForkJoinTask<?> task : tasks){
+            task.quietlyJoin();
+            if(failure == null) failure = task.getException();
+        }
+        if(failure != null){
+            for(TextureData page : decoded){
+                if(page == null || page.isCustom()) continue;
+                if(!page.isPrepared()) page.prepare();
+                if(page.disposePixmap()) page.consumePixmap().dispose();
             }
+            if(failure instanceof RuntimeException) throw (RuntimeException)failure;
+            if(failure instanceof Error) throw (Error)failure;
+            throw new ArcRuntimeException(failure);
+        }
+
+        ObjectMap<AtlasPage, Texture> pageToTexture = new ObjectMap<>();
+        for(int i = 0; i < pages.size; i++){
+            AtlasPage page = pages.get(i);
+            Texture texture = page.texture == null ? new Texture(decoded[i]) : page.texture;
+            texture.setFilter(page.minFilter, page.magFilter);
+            texture.setWrap(page.uWrap, page.vWrap);
             textures.add(texture);
             pageToTexture.put(page, texture);
         }
 
+        regions.ensureCapacity(data.regions.size);
+        regionmap.ensureCapacity(data.regions.size);
         for(Region region : data.regions){
             int width = region.width;
             int height = region.height;
@@ -342,11 +373,116 @@ public class TextureAtlas implements Disposable{
         pixmaps.clear();
     }
 
+    /**
+     * Page and region data of a pack file. Both the text format and the binary format written by TexturePacker with
+     * {@code binaryAtlas} enabled are supported; binary files are recognized by {@link #binaryMagic}.
+     * <p>
+     * The binary format is big-endian. It starts with {@link #binaryMagic} and a {@link #binaryVersion} byte, followed by pages
+     * until the end of the file. Strings are an unsigned short byte length followed by UTF-8 bytes. Each page is its image name,
+     * unsigned short width and height, format, min filter, mag filter, u wrap and v wrap as enum names, and an int region count.
+     * Each region is its name, a flags byte (1: rotate, 2: splits, 4: pads), unsigned short left, top, width and height, four
+     * shorts of splits and pads when flagged, unsigned short original width and height, short x and y offset and an int index.
+     */
     public static class TextureAtlasData{
+        public static final byte[] binaryMagic = {(byte)0xAB, 'A', 'T', 'L'};
+        public static final int binaryVersion = 1;
+
         final Seq<AtlasPage> pages = new Seq<>();
         final Seq<Region> regions = new Seq<>();
 
         public TextureAtlasData(Fi packFile, Fi imagesDir, boolean flip){
+            if(isBinary(packFile)){
+                try{
+                    readBinary(map(packFile), imagesDir, flip);
+                }catch(Exception ex){
+                    throw new ArcRuntimeException("Error reading binary pack file: " + packFile, ex);
+                }
+            }else{
+                readText(packFile, imagesDir, flip);
+            }
+
+            regions.sort(indexComparator);
+        }
+
+        /** @return whether this file starts with {@link #binaryMagic}. */
+        public static boolean isBinary(Fi packFile){
+            InputStream input = packFile.read();
+            try{
+                for(byte b : binaryMagic){
+                    if(input.read() != (b & 0xff)) return false;
+                }
+                return true;
+            }catch(IOException e){
+                return false;
+            }finally{
+                Streams.close(input);
+            }
+        }
+
+        /** Memory maps the file where possible, otherwise reads it fully. */
+        static ByteBuffer map(Fi file){
+            ByteBuffer buffer;
+            try{
+                buffer = file.map();
+            }catch(ArcRuntimeException e){
+                buffer = ByteBuffer.wrap(file.readBytes());
+            }
+            return buffer.order(ByteOrder.BIG_ENDIAN);
+        }
+
+        void readBinary(ByteBuffer buffer, Fi imagesDir, boolean flip){
+            buffer.position(binaryMagic.length);
+            int version = buffer.get();
+            if(version != binaryVersion) throw new ArcRuntimeException("Unsupported binary atlas version: " + version);
+
+            while(buffer.hasRemaining()){
+                Fi file = imagesDir.child(readString(buffer));
+                int pageWidth = buffer.getShort() & 0xffff, pageHeight = buffer.getShort() & 0xffff;
+                Format format = Format.valueOf(readString(buffer));
+                TextureFilter min = TextureFilter.valueOf(readString(buffer));
+                TextureFilter mag = TextureFilter.valueOf(readString(buffer));
+                TextureWrap uWrap = TextureWrap.valueOf(readString(buffer));
+                TextureWrap vWrap = TextureWrap.valueOf(readString(buffer));
+
+                AtlasPage page = new AtlasPage(file, pageWidth, pageHeight, min.isMipMap(), format, min, mag, uWrap, vWrap);
+                pages.add(page);
+
+                int count = buffer.getInt();
+                regions.ensureCapacity(count);
+                for(int i = 0; i < count; i++){
+                    Region region = new Region();
+                    region.page = page;
+                    region.name = readString(buffer);
+                    int flags = buffer.get();
+                    region.rotate = (flags & 1) != 0;
+                    region.left = buffer.getShort() & 0xffff;
+                    region.top = buffer.getShort() & 0xffff;
+                    region.width = buffer.getShort() & 0xffff;
+                    region.height = buffer.getShort() & 0xffff;
+                    if((flags & 2) != 0){
+                        region.splits = new int[]{buffer.getShort(), buffer.getShort(), buffer.getShort(), buffer.getShort()};
+                    }
+                    if((flags & 4) != 0){
+                        region.pads = new int[]{buffer.getShort(), buffer.getShort(), buffer.getShort(), buffer.getShort()};
+                    }
+                    region.originalWidth = buffer.getShort() & 0xffff;
+                    region.originalHeight = buffer.getShort() & 0xffff;
+                    region.offsetX = buffer.getShort();
+                    region.offsetY = buffer.getShort();
+                    region.index = buffer.getInt();
+                    region.flip = flip;
+                    regions.add(region);
+                }
+            }
+        }
+
+        static String readString(ByteBuffer buffer){
+            byte[] bytes = new byte[buffer.getShort() & 0xffff];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void readText(Fi packFile, Fi imagesDir, boolean flip){
             BufferedReader reader = new BufferedReader(new InputStreamReader(packFile.read()), 64);
             try{
                 AtlasPage pageImage = null;
@@ -435,8 +571,6 @@ public class TextureAtlas implements Disposable{
             }finally{
                 Streams.close(reader);
             }
-
-            regions.sort(indexComparator);
         }
 
         public Seq<AtlasPage> getPages(){
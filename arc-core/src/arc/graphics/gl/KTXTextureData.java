@@ -0,0 +1,259 @@
+package arc.graphics.gl;
+
+import arc.files.*;
+import arc.graphics.*;
+import arc.graphics.Pixmap.*;
+import arc.util.*;
+
+import java.nio.*;
+
+/**
+ * A {@link TextureData} for KTX 1 and KTX 2 containers holding a 2D texture. Compressed payloads (ETC2/EAC, ASTC, BC1-7) are
+ * uploaded as-is with glCompressedTexImage2D, so they keep their size in video memory and skip image decoding entirely.
+ * Uncompressed KTX 1 data and RGB(A)8 KTX 2 data are uploaded with glTexImage2D.
+ * <p>
+ * Mip levels stored in the file are uploaded directly. Uncompressed textures with a single level get generated mipmaps if
+ * requested; compressed textures cannot, so they should be written with a full mip chain instead. Cubemaps, arrays, 3D
+ * textures and supercompressed KTX 2 files are not supported. Whether a compressed format can be used depends on the device.
+ */
+public class KTXTextureData implements TextureData{
+    private static final byte[] ktx1Identifier = {(byte)0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte)0xBB, '\r', '\n', 0x1A, '\n'};
+    private static final byte[] ktx2Identifier = {(byte)0xAB, 'K', 'T', 'X', ' ', '2', '0', (byte)0xBB, '\r', '\n', 0x1A, '\n'};
+
+    final Fi file;
+    final boolean useMipMaps;
+    boolean isPrepared;
+    ByteBuffer data;
+    int width, height, levels, internalFormat, glFormat, glType, alignment;
+    boolean compressed;
+    int[] levelOffsets, levelSizes;
+
+    public KTXTextureData(Fi file, boolean useMipMaps){
+        this.file = file;
+        this.useMipMaps = useMipMaps;
+    }
+
+    /** @return whether the file has a .ktx or .ktx2 extension. */
+    public static boolean isKTX(Fi file){
+        return file.extEquals("ktx") || file.extEquals("ktx2");
+    }
+
+    @Override
+    public boolean isPrepared(){
+        return isPrepared;
+    }
+
+    @Override
+    public void prepare(){
+        if(isPrepared) throw new ArcRuntimeException("Already prepared");
+
+        ByteBuffer data;
+        try{
+            //mapped files can be handed to GL without a copy
+            data = file.map();
+        }catch(ArcRuntimeException e){
+            byte[] bytes = file.readBytes();
+            data = ByteBuffer.allocateDirect(bytes.length);
+            data.put(bytes);
+            data.clear();
+        }
+
+        if(matches(data, ktx1Identifier)){
+            readKTX1(data);
+        }else if(matches(data, ktx2Identifier)){
+            readKTX2(data);
+        }else{
+            throw new ArcRuntimeException("Not a KTX file: " + file);
+        }
+
+        this.data = data;
+        isPrepared = true;
+    }
+
+    private void readKTX1(ByteBuffer data){
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if(data.getInt(12) != 0x04030201) data.order(ByteOrder.BIG_ENDIAN);
+
+        glType = data.getInt(16);
+        glFormat = data.getInt(24);
+        internalFormat = data.getInt(28);
+        width = data.getInt(36);
+        height = Math.max(data.getInt(40), 1);
+        int depth = data.getInt(44), elements = data.getInt(48), faces = data.getInt(52);
+        levels = Math.max(data.getInt(56), 1);
+        check(depth == 0 && elements == 0 && faces == 1, "only 2D textures are supported");
+
+        compressed = glType == 0;
+        //uncompressed KTX 1 rows are padded to 4 bytes
+        alignment = 4;
+        levelOffsets = new int[levels];
+        levelSizes = new int[levels];
+
+        int offset = 64 + data.getInt(60);
+        for(int i = 0; i < levels; i++){
+            int size = data.getInt(offset);
+            levelOffsets[i] = offset + 4;
+            levelSizes[i] = size;
+            offset += 4 + ((size + 3) & ~3);
+        }
+    }
+
+    private void readKTX2(ByteBuffer data){
+        data.order(ByteOrder.LITTLE_ENDIAN);
+
+        int vkFormat = data.getInt(12);
+        width = data.getInt(20);
+        height = Math.max(data.getInt(24), 1);
+        int depth = data.getInt(28), layers = data.getInt(32), faces = data.getInt(36);
+        levels = Math.max(data.getInt(40), 1);
+        check(depth == 0 && layers == 0 && faces == 1, "only 2D textures are supported");
+        check(data.getInt(44) == 0, "supercompressed data is not supported");
+
+        alignment = 1;
+        compressed = true;
+        switch(vkFormat){
+            case 23: internalFormat = glFormat = GL20.GL_RGB; glType = GL20.GL_UNSIGNED_BYTE; compressed = false; break;
+            case 37: internalFormat = glFormat = GL20.GL_RGBA; glType = GL20.GL_UNSIGNED_BYTE; compressed = false; break;
+            case 43: internalFormat = GL30.GL_SRGB8_ALPHA8; glFormat = GL20.GL_RGBA; glType = GL20.GL_UNSIGNED_BYTE; compressed = false; break;
+            default: internalFormat = compressedFormat(vkFormat);
+        }
+        check(internalFormat != 0, "unsupported Vulkan format " + vkFormat);
+
+        levelOffsets = new int[levels];
+        levelSizes = new int[levels];
+        for(int i = 0; i < levels; i++){
+            levelOffsets[i] = (int)data.getLong(80 + i * 24);
+            levelSizes[i] = (int)data.getLong(88 + i * 24);
+        }
+    }
+
+    /** @return the GL internal format of a compressed Vulkan format, or 0 if it is not supported. */
+    static int compressedFormat(int vkFormat){
+        //ASTC: unorm and sRGB variants alternate, in the same block size order as the GL enums
+        if(vkFormat >= 157 && vkFormat <= 184){
+            int block = (vkFormat - 157) / 2;
+            return ((vkFormat - 157) % 2 == 0 ? 0x93B0 : 0x93D0) + block;
+        }
+        //ETC2 RGB8, sRGB8, punchthrough, sRGB punchthrough, RGBA8, sRGB8 alpha8
+        if(vkFormat >= 147 && vkFormat <= 152) return 0x9274 + (vkFormat - 147);
+        //EAC R11, signed R11, RG11, signed RG11
+        if(vkFormat >= 153 && vkFormat <= 156) return 0x9270 + (vkFormat - 153);
+
+        switch(vkFormat){
+            case 131: return 0x83F0; //BC1 RGB
+            case 132: return 0x8C4C;
+            case 133: return 0x83F1; //BC1 RGBA
+            case 134: return 0x8C4D;
+            case 135: return 0x83F2; //BC2
+            case 136: return 0x8C4E;
+            case 137: return 0x83F3; //BC3
+            case 138: return 0x8C4F;
+            case 139: return 0x8DBB; //BC4
+            case 140: return 0x8DBC;
+            case 141: return 0x8DBD; //BC5
+            case 142: return 0x8DBE;
+            case 143: return 0x8E8F; //BC6H
+            case 144: return 0x8E8E;
+            case 145: return 0x8E8C; //BC7
+            case 146: return 0x8E8D;
+            default: return 0;
+        }
+    }
+
+    private void check(boolean condition, String message){
+        if(!condition) throw new ArcRuntimeException("Unsupported KTX file " + file + ": " + message);
+    }
+
+    private static boolean matches(ByteBuffer data, byte[] identifier){
+        if(data.capacity() < 64) return false;
+        for(int i = 0; i < identifier.length; i++){
+            if(data.get(i) != identifier[i]) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void consumeCustomData(int target){
+        if(!isPrepared) throw new ArcRuntimeException("Call prepare() before calling consumeCustomData()");
+
+        Gl.pixelStorei(GL20.GL_UNPACK_ALIGNMENT, alignment);
+        for(int level = 0; level < levels; level++){
+            ByteBuffer image = data.duplicate();
+            image.limit(levelOffsets[level] + levelSizes[level]);
+            image.position(levelOffsets[level]);
+            image = image.slice();
+
+            int levelWidth = Math.max(width >> level, 1), levelHeight = Math.max(height >> level, 1);
+            if(compressed){
+                Gl.compressedTexImage2D(target, level, internalFormat, levelWidth, levelHeight, 0, levelSizes[level], image);
+            }else{
+                Gl.texImage2D(target, level, internalFormat, levelWidth, levelHeight, 0, glFormat, glType, image);
+            }
+        }
+
+        if(useMipMaps && levels == 1 && !compressed){
+            Gl.generateMipmap(target);
+        }
+
+        data = null;
+        isPrepared = false;
+    }
+
+    /** @return whether the data is in a compressed GPU format. Only valid after {@link #prepare()}. */
+    public boolean isCompressed(){
+        return compressed;
+    }
+
+    /** @return the GL internal format of the data. Only valid after {@link #prepare()}. */
+    public int getInternalFormat(){
+        return internalFormat;
+    }
+
+    /** @return the number of mip levels stored in the file. Only valid after {@link #prepare()}. */
+    public int getLevels(){
+        return levels;
+    }
+
+    @Override
+    public Pixmap consumePixmap(){
+        throw new ArcRuntimeException("This TextureData implementation does not return a Pixmap");
+    }
+
+    @Override
+    public boolean disposePixmap(){
+        throw new ArcRuntimeException("This TextureData implementation does not return a Pixmap");
+    }
+
+    @Override
+    public int getWidth(){
+        return width;
+    }
+
+    @Override
+    public int getHeight(){
+        return height;
+    }
+
+    @Override
+    public Format getFormat(){
+        return Format.rgba8888;
+    }
+
+    @Override
+    public boolean useMipMaps(){
+        return useMipMaps;
+    }
+
+    @Override
+    public boolean isCustom(){
+        return true;
+    }
+
+    public Fi getFileHandle(){
+        return file;
+    }
+
+    public String toString(){
+        return file.toString();
+    }
+}
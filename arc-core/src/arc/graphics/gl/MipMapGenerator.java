@@ -43,6 +43,23 @@ public class MipMapGenerator{
         }
     }
 
+    /**
+     * Generates the mipmaps of a {@link Texture} whose first level already contains the {@link Pixmap}, for uploads that set the
+     * first level separately. The texture must be bound for this to work.
+     */
+    public static void generateMipMapLevels(int target, Pixmap pixmap, int textureWidth, int textureHeight){
+        if(useHWMipMap && (Core.app.isAndroid() || Core.app.isWeb() || Core.app.isIOS() || hasFramebufferObjects())){
+            Gl.generateMipmap(target);
+        }else{
+            generateMipMapLevelsCPU(target, pixmap, textureWidth, textureHeight);
+        }
+    }
+
+    private static boolean hasFramebufferObjects(){
+        return Core.graphics.supportsExtension("GL_ARB_framebuffer_object")
+        || Core.graphics.supportsExtension("GL_EXT_framebuffer_object") || Core.gl30 != null;
+    }
+
     private static void generateMipMapGLES20(int target, Pixmap pixmap){
         Gl.texImage2D(target, 0, pixmap.getGLInternalFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
         pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
@@ -50,8 +67,7 @@ public class MipMapGenerator{
     }
 
     private static void generateMipMapDesktop(int target, Pixmap pixmap, int textureWidth, int textureHeight){
-        if(Core.graphics.supportsExtension("GL_ARB_framebuffer_object")
-        || Core.graphics.supportsExtension("GL_EXT_framebuffer_object") || Core.gl30 != null){
+        if(hasFramebufferObjects()){
             Gl.texImage2D(target, 0, pixmap.getGLInternalFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
             pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
             Gl.generateMipmap(target);
@@ -63,6 +79,10 @@ public class MipMapGenerator{
     private static void generateMipMapCPU(int target, Pixmap pixmap, int textureWidth, int textureHeight){
         Gl.texImage2D(target, 0, pixmap.getGLInternalFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
         pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
+        generateMipMapLevelsCPU(target, pixmap, textureWidth, textureHeight);
+    }
+
+    private static void generateMipMapLevelsCPU(int target, Pixmap pixmap, int textureWidth, int textureHeight){
         if((Core.gl20 == null) && textureWidth != textureHeight)
             throw new ArcRuntimeException("texture width and height must be square when using mipmapping.");
         int width = pixmap.getWidth() / 2;
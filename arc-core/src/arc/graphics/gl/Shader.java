@@ -22,6 +22,8 @@ import java.nio.*;
  *
  * <p>
  * When a Shader is bound one can set uniforms, vertex attributes and attributes as needed via the respective methods.
+ * The last value set for each uniform is remembered, and setting the same value again does not upload anything. Code that sets
+ * uniforms often can resolve them with {@link #fetchUniformLocation(String)} and pass the location instead of the name.
  * </p>
  *
  *
@@ -45,6 +47,8 @@ public class Shader implements Disposable{
     public static final String colorAttribute = "a_color";
     /** default name for mix color attributes **/
     public static final String mixColorAttribute = "a_mix_color";
+    /** default name for texture index attributes, used by batches that sample multiple textures **/
+    public static final String texIndexAttribute = "a_tex_index";
     /** default name for texcoords attributes, append texture unit number **/
     public static final String texcoordAttribute = "a_texCoord";
     /** default name for tangent attribute **/
@@ -65,6 +69,10 @@ public class Shader implements Disposable{
      * as-is, you should include a newline (`\n`) if needed.
      */
     public static String prependFragmentCode = "";
+    /** locations above this are not cached; drivers usually hand out small, dense locations **/
+    private static final int maxCachedLocation = 1024;
+    private static final int kindUnknown = 0, kindInt1 = 1, kindInt2 = 2, kindInt3 = 3, kindInt4 = 4,
+    kindFloat1 = 5, kindFloat2 = 6, kindFloat3 = 7, kindFloat4 = 8, kindMat3 = 9, kindMat3Transposed = 10, kindMat4 = 11;
     /** uniform lookup **/
     private final ObjectIntMap<String> uniforms = new ObjectIntMap<>();
     /** uniform types **/
@@ -98,6 +106,11 @@ public class Shader implements Disposable{
     /** fragment shader handle **/
     private int fragmentShaderHandle;
     private boolean disposed;
+    /**
+     * Last uploaded uniform values, indexed by location. The first element is the kind of upload, the rest are the raw bits of the
+     * values. Uniforms are part of the program, so these stay valid across binds.
+     */
+    private int[][] uniformCache = {};
 
     /**
      * Constructs a new Shader and immediately compiles it.
@@ -295,7 +308,12 @@ public class Shader implements Disposable{
         return location;
     }
 
-    private int fetchUniformLocation(String name){
+    /**
+     * Resolves the location of a uniform, for use with the overloads of the uniform setters that take a location. Those skip the
+     * name lookup, so code that sets uniforms often should resolve them once.
+     * @return the location, or -1 if the uniform does not exist
+     */
+    public int fetchUniformLocation(String name){
         return fetchUniformLocation(name, pedantic);
     }
 
@@ -312,18 +330,87 @@ public class Shader implements Disposable{
         return location;
     }
 
+    /**
+     * Forgets the uniform values uploaded so far, so that the next value set for every uniform is uploaded even if it is the same.
+     * Must be called if the uniforms of this program were changed without going through this class.
+     */
+    public void invalidateUniforms(){
+        for(int[] cached : uniformCache){
+            if(cached != null) cached[0] = kindUnknown;
+        }
+    }
+
+    /** @return the cache entry of a location with room for the given number of values, or null if it can't be cached. */
+    private int[] uniformSlot(int location, int values){
+        if(location < 0 || location >= maxCachedLocation) return null;
+        if(location >= uniformCache.length){
+            int[][] cache = new int[Math.min(Math.max(location + 1, uniformCache.length * 2), maxCachedLocation)][];
+            System.arraycopy(uniformCache, 0, cache, 0, uniformCache.length);
+            uniformCache = cache;
+        }
+        int[] cached = uniformCache[location];
+        if(cached == null || cached.length < values + 1){
+            uniformCache[location] = cached = new int[values + 1];
+        }
+        return cached;
+    }
+
+    /** @return whether the values differ from the last ones uploaded to the location. If they do, they are remembered. */
+    private boolean uniformChanged(int location, int kind, int v1, int v2, int v3, int v4){
+        //GL ignores uploads to -1
+        if(location == -1) return false;
+        int[] cached = uniformSlot(location, 4);
+        if(cached == null) return true;
+        if(cached[0] == kind && cached[1] == v1 && cached[2] == v2 && cached[3] == v3 && cached[4] == v4) return false;
+        cached[0] = kind;
+        cached[1] = v1;
+        cached[2] = v2;
+        cached[3] = v3;
+        cached[4] = v4;
+        return true;
+    }
+
+    private boolean uniformChanged(int location, float v1, float v2, float v3, float v4, int kind){
+        return uniformChanged(location, kind, Float.floatToRawIntBits(v1), Float.floatToRawIntBits(v2), Float.floatToRawIntBits(v3), Float.floatToRawIntBits(v4));
+    }
+
+    private boolean uniformChanged(int location, int kind, float[] values, int offset, int length){
+        if(location == -1) return false;
+        int[] cached = uniformSlot(location, length);
+        if(cached == null) return true;
+        boolean same = cached[0] == kind;
+        for(int i = 0; i < length; i++){
+            int bits = Float.floatToRawIntBits(values[offset + i]);
+            if(cached[i + 1] != bits){
+                cached[i + 1] = bits;
+                same = false;
+            }
+        }
+        cached[0] = kind;
+        return !same;
+    }
+
+    /**
+     * Forgets all cached values after an array upload. The locations of array elements are chosen by the driver and need not
+     * follow the location of the array, so there is no telling which cached locations the upload wrote to.
+     */
+    private void uniformArrayChanged(int location){
+        if(location != -1) invalidateUniforms();
+    }
+
     /**
      * Sets the uniform with the given name. The {@link Shader} must be bound for this to work.
      * @param name the name of the uniform
      * @param value the value
      */
     public void setUniformi(String name, int value){
-        int location = fetchUniformLocation(name);
-        Gl.uniform1i(location, value);
+        setUniformi(fetchUniformLocation(name), value);
     }
 
     public void setUniformi(int location, int value){
-        Gl.uniform1i(location, value);
+        if(uniformChanged(location, kindInt1, value, 0, 0, 0)){
+            Gl.uniform1i(location, value);
+        }
     }
 
     /**
@@ -333,12 +420,13 @@ public class Shader implements Disposable{
      * @param value2 the second value
      */
     public void setUniformi(String name, int value1, int value2){
-        int location = fetchUniformLocation(name);
-        Gl.uniform2i(location, value1, value2);
+        setUniformi(fetchUniformLocation(name), value1, value2);
     }
 
     public void setUniformi(int location, int value1, int value2){
-        Gl.uniform2i(location, value1, value2);
+        if(uniformChanged(location, kindInt2, value1, value2, 0, 0)){
+            Gl.uniform2i(location, value1, value2);
+        }
     }
 
     /**
@@ -349,12 +437,13 @@ public class Shader implements Disposable{
      * @param value3 the third value
      */
     public void setUniformi(String name, int value1, int value2, int value3){
-        int location = fetchUniformLocation(name);
-        Gl.uniform3i(location, value1, value2, value3);
+        setUniformi(fetchUniformLocation(name), value1, value2, value3);
     }
 
     public void setUniformi(int location, int value1, int value2, int value3){
-        Gl.uniform3i(location, value1, value2, value3);
+        if(uniformChanged(location, kindInt3, value1, value2, value3, 0)){
+            Gl.uniform3i(location, value1, value2, value3);
+        }
     }
 
     /**
@@ -366,12 +455,13 @@ public class Shader implements Disposable{
      * @param value4 the fourth value
      */
     public void setUniformi(String name, int value1, int value2, int value3, int value4){
-        int location = fetchUniformLocation(name);
-        Gl.uniform4i(location, value1, value2, value3, value4);
+        setUniformi(fetchUniformLocation(name), value1, value2, value3, value4);
     }
 
     public void setUniformi(int location, int value1, int value2, int value3, int value4){
-        Gl.uniform4i(location, value1, value2, value3, value4);
+        if(uniformChanged(location, kindInt4, value1, value2, value3, value4)){
+            Gl.uniform4i(location, value1, value2, value3, value4);
+        }
     }
 
     /**
@@ -380,12 +470,13 @@ public class Shader implements Disposable{
      * @param value the value
      */
     public void setUniformf(String name, float value){
-        int location = fetchUniformLocation(name);
-        Gl.uniform1f(location, value);
+        setUniformf(fetchUniformLocation(name), value);
     }
 
     public void setUniformf(int location, float value){
-        Gl.uniform1f(location, value);
+        if(uniformChanged(location, value, 0f, 0f, 0f, kindFloat1)){
+            Gl.uniform1f(location, value);
+        }
     }
 
     /**
@@ -395,12 +486,13 @@ public class Shader implements Disposable{
      * @param value2 the second value
      */
     public void setUniformf(String name, float value1, float value2){
-        int location = fetchUniformLocation(name);
-        Gl.uniform2f(location, value1, value2);
+        setUniformf(fetchUniformLocation(name), value1, value2);
     }
 
     public void setUniformf(int location, float value1, float value2){
-        Gl.uniform2f(location, value1, value2);
+        if(uniformChanged(location, value1, value2, 0f, 0f, kindFloat2)){
+            Gl.uniform2f(location, value1, value2);
+        }
     }
 
     /**
@@ -411,12 +503,13 @@ public class Shader implements Disposable{
      * @param value3 the third value
      */
     public void setUniformf(String name, float value1, float value2, float value3){
-        int location = fetchUniformLocation(name);
-        Gl.uniform3f(location, value1, value2, value3);
+        setUniformf(fetchUniformLocation(name), value1, value2, value3);
     }
 
     public void setUniformf(int location, float value1, float value2, float value3){
-        Gl.uniform3f(location, value1, value2, value3);
+        if(uniformChanged(location, value1, value2, value3, 0f, kindFloat3)){
+            Gl.uniform3f(location, value1, value2, value3);
+        }
     }
 
     /**
@@ -428,47 +521,48 @@ public class Shader implements Disposable{
      * @param value4 the fourth value
      */
     public void setUniformf(String name, float value1, float value2, float value3, float value4){
-        int location = fetchUniformLocation(name);
-        Gl.uniform4f(location, value1, value2, value3, value4);
+        setUniformf(fetchUniformLocation(name), value1, value2, value3, value4);
     }
 
     public void setUniformf(int location, float value1, float value2, float value3, float value4){
-        Gl.uniform4f(location, value1, value2, value3, value4);
+        if(uniformChanged(location, value1, value2, value3, value4, kindFloat4)){
+            Gl.uniform4f(location, value1, value2, value3, value4);
+        }
     }
 
     public void setUniform1fv(String name, float[] values, int offset, int length){
-        int location = fetchUniformLocation(name);
-        Gl.uniform1fv(location, length, values, offset);
+        setUniform1fv(fetchUniformLocation(name), values, offset, length);
     }
 
     public void setUniform1fv(int location, float[] values, int offset, int length){
+        uniformArrayChanged(location);
         Gl.uniform1fv(location, length, values, offset);
     }
 
     public void setUniform2fv(String name, float[] values, int offset, int length){
-        int location = fetchUniformLocation(name);
-        Gl.uniform2fv(location, length / 2, values, offset);
+        setUniform2fv(fetchUniformLocation(name), values, offset, length);
     }
 
     public void setUniform2fv(int location, float[] values, int offset, int length){
+        uniformArrayChanged(location);
         Gl.uniform2fv(location, length / 2, values, offset);
     }
 
     public void setUniform3fv(String name, float[] values, int offset, int length){
-        int location = fetchUniformLocation(name);
-        Gl.uniform3fv(location, length / 3, values, offset);
+        setUniform3fv(fetchUniformLocation(name), values, offset, length);
     }
 
     public void setUniform3fv(int location, float[] values, int offset, int length){
+        uniformArrayChanged(location);
         Gl.uniform3fv(location, length / 3, values, offset);
     }
 
     public void setUniform4fv(String name, float[] values, int offset, int length){
-        int location = fetchUniformLocation(name);
-        Gl.uniform4fv(location, length / 4, values, offset);
+        setUniform4fv(fetchUniformLocation(name), values, offset, length);
     }
 
     public void setUniform4fv(int location, float[] values, int offset, int length){
+        uniformArrayChanged(location);
         Gl.uniform4fv(location, length / 4, values, offset);
     }
 
@@ -496,19 +590,35 @@ public class Shader implements Disposable{
     }
 
     public void setUniformMatrix(int location, Mat matrix, boolean transpose){
-        Gl.uniformMatrix3fv(location, 1, transpose, matrix.val, 0);
+        if(uniformChanged(location, transpose ? kindMat3Transposed : kindMat3, matrix.val, 0, 9)){
+            Gl.uniformMatrix3fv(location, 1, transpose, matrix.val, 0);
+        }
     }
 
     public void setUniformMatrix4(String name, float[] val){
-        Gl.uniformMatrix4fv(fetchUniformLocation(name), 1, false, val, 0);
+        setUniformMatrix4(fetchUniformLocation(name), val);
+    }
+
+    public void setUniformMatrix4(int location, float[] val){
+        if(uniformChanged(location, kindMat4, val, 0, 16)){
+            Gl.uniformMatrix4fv(location, 1, false, val, 0);
+        }
     }
 
     public void setUniformMatrix4(String name, Mat mat){
-        Gl.uniformMatrix4fv(fetchUniformLocation(name), 1, false, copyTransform(mat), 0);
+        setUniformMatrix4(fetchUniformLocation(name), copyTransform(mat));
+    }
+
+    public void setUniformMatrix4(int location, Mat mat){
+        setUniformMatrix4(location, copyTransform(mat));
     }
 
     public void setUniformMatrix4(String name, Mat mat, float near, float far){
-        Gl.uniformMatrix4fv(fetchUniformLocation(name), 1, false, copyTransform(mat, near, far), 0);
+        setUniformMatrix4(fetchUniformLocation(name), copyTransform(mat, near, far));
+    }
+
+    public void setUniformMatrix4(int location, Mat mat, float near, float far){
+        setUniformMatrix4(location, copyTransform(mat, near, far));
     }
 
     /**
@@ -520,6 +630,7 @@ public class Shader implements Disposable{
     public void setUniformMatrix3fv(String name, FloatBuffer buffer, int count, boolean transpose){
         buffer.position(0);
         int location = fetchUniformLocation(name);
+        uniformArrayChanged(location);
         Gl.uniformMatrix3fv(location, count, transpose, buffer);
     }
 
@@ -532,11 +643,19 @@ public class Shader implements Disposable{
     public void setUniformMatrix4fv(String name, FloatBuffer buffer, int count, boolean transpose){
         buffer.position(0);
         int location = fetchUniformLocation(name);
+        uniformArrayChanged(location);
         Gl.uniformMatrix4fv(location, count, transpose, buffer);
     }
 
     public void setUniformMatrix4fv(int location, float[] values, int offset, int length){
-        Gl.uniformMatrix4fv(location, length / 16, false, values, offset);
+        if(length == 16){
+            if(uniformChanged(location, kindMat4, values, offset, 16)){
+                Gl.uniformMatrix4fv(location, 1, false, values, offset);
+            }
+        }else{
+            uniformArrayChanged(location);
+            Gl.uniformMatrix4fv(location, length / 16, false, values, offset);
+        }
     }
 
     public void setUniformMatrix4fv(String name, float[] values, int offset, int length){
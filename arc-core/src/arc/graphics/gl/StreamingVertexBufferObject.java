@@ -0,0 +1,210 @@
+package arc.graphics.gl;
+
+import arc.*;
+import arc.graphics.*;
+import arc.struct.*;
+import arc.util.*;
+
+import java.nio.*;
+
+/**
+ * A {@link VertexData} implementation for vertices that are replaced every frame, such as the contents of a sprite batch.
+ * Requires OpenGL 3.0, as it uses a vertex array object.
+ * <p>
+ * The GPU buffer is a ring several times larger than the vertex capacity. Each upload is written to the next free region of the
+ * ring with glBufferSubData, and attribute pointers are moved to that region, so a new upload never overwrites data that a
+ * previous draw call may still be reading. Once the ring is full, the whole buffer is orphaned with a null glBufferData call,
+ * letting the driver hand out fresh storage instead of waiting for the GPU.
+ * </p>
+ */
+public class StreamingVertexBufferObject implements VertexData{
+    final static IntBuffer tmpHandle = Buffers.newIntBuffer(1);
+
+    final Mesh mesh;
+    final FloatBuffer buffer;
+    final ByteBuffer byteBuffer;
+    final int ringSize;
+    int bufferHandle;
+    int vaoHandle = -1;
+    boolean isDirty = false;
+    /** Byte offset where the next upload will be written. */
+    int writeOffset;
+    /** Byte offset of the most recent upload. */
+    int drawOffset;
+    /** Byte offset of the region the attribute pointers currently reference, or -1 if they were never set. */
+    int pointerOffset = -1;
+    IntSeq cachedLocations = new IntSeq();
+
+    /** Number of uploads, ever. Will not be reset unless set manually. */
+    public int uploads;
+    /** Number of times the buffer was orphaned, ever. Will not be reset unless set manually. */
+    public int orphans;
+
+    /**
+     * Constructs a new StreamingVertexBufferObject with a ring of 4 regions.
+     * @param numVertices the maximum number of vertices uploaded at once
+     */
+    public StreamingVertexBufferObject(int numVertices, Mesh mesh){
+        this(numVertices, 4, mesh);
+    }
+
+    /**
+     * @param numVertices the maximum number of vertices uploaded at once
+     * @param regions how many full uploads fit into the ring before it is orphaned
+     */
+    public StreamingVertexBufferObject(int numVertices, int regions, Mesh mesh){
+        this.mesh = mesh;
+
+        byteBuffer = Buffers.newUnsafeByteBuffer(mesh.vertexSize * numVertices);
+        buffer = byteBuffer.asFloatBuffer();
+        buffer.flip();
+        byteBuffer.flip();
+        ringSize = byteBuffer.capacity() * Math.max(regions, 1);
+
+        bufferHandle = Gl.genBuffer();
+        Gl.bindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+        Gl.bufferData(GL20.GL_ARRAY_BUFFER, ringSize, null, GL20.GL_STREAM_DRAW);
+        Gl.bindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+
+        tmpHandle.clear();
+        Core.gl30.glGenVertexArrays(1, tmpHandle);
+        vaoHandle = tmpHandle.get();
+    }
+
+    @Override
+    public int size(){
+        return buffer.limit() * 4 / mesh.vertexSize;
+    }
+
+    @Override
+    public int max(){
+        return byteBuffer.capacity() / mesh.vertexSize;
+    }
+
+    @Override
+    public FloatBuffer buffer(){
+        isDirty = true;
+        return buffer;
+    }
+
+    @Override
+    public void set(float[] vertices, int offset, int count){
+        isDirty = true;
+        Buffers.copy(vertices, byteBuffer, count, offset);
+        buffer.position(0);
+        buffer.limit(count);
+    }
+
+    @Override
+    public void update(int targetOffset, float[] vertices, int sourceOffset, int count){
+        isDirty = true;
+        final int pos = byteBuffer.position();
+        byteBuffer.position(targetOffset * 4);
+        Buffers.copy(vertices, sourceOffset, count, byteBuffer);
+        byteBuffer.position(pos);
+        buffer.position(0);
+    }
+
+    @Override
+    public void bind(Shader shader){
+        Gl.bindVertexArray(vaoHandle);
+
+        if(isDirty){
+            upload();
+        }
+
+        bindAttributes(shader);
+    }
+
+    /** Writes the staged vertices into the next free region of the ring, orphaning the buffer if there is no space left. */
+    private void upload(){
+        int bytes = buffer.limit() * 4;
+        byteBuffer.position(0);
+        byteBuffer.limit(bytes);
+
+        Gl.bindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+        if(writeOffset + bytes > ringSize){
+            Gl.bufferData(GL20.GL_ARRAY_BUFFER, ringSize, null, GL20.GL_STREAM_DRAW);
+            writeOffset = 0;
+            orphans++;
+        }
+        Gl.bufferSubData(GL20.GL_ARRAY_BUFFER, writeOffset, bytes, byteBuffer);
+
+        drawOffset = writeOffset;
+        writeOffset += bytes;
+        uploads++;
+        isDirty = false;
+    }
+
+    private void bindAttributes(Shader shader){
+        //vertices of each upload start at a different offset, so the attribute pointers must follow them
+        boolean stillValid = pointerOffset == drawOffset && cachedLocations.size != 0;
+
+        if(stillValid){
+            for(int i = 0; stillValid && i < mesh.attributes.length; i++){
+                VertexAttribute attribute = mesh.attributes[i];
+                int location = shader.getAttributeLocation(attribute.alias);
+                stillValid = location == cachedLocations.get(i);
+            }
+        }
+
+        if(!stillValid){
+            pointerOffset = drawOffset;
+
+            Gl.bindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+            unbindAttributes(shader);
+            cachedLocations.clear();
+
+            int offset = 0;
+            for(int i = 0; i < mesh.attributes.length; i++){
+                VertexAttribute attribute = mesh.attributes[i];
+                cachedLocations.add(shader.getAttributeLocation(attribute.alias));
+                int aoffset = offset;
+                offset += attribute.size;
+
+                int location = cachedLocations.get(i);
+                if(location < 0){
+                    continue;
+                }
+
+                shader.enableVertexAttribute(location);
+                shader.setVertexAttribute(location, attribute.components, attribute.type, attribute.normalized, mesh.vertexSize, drawOffset + aoffset);
+            }
+        }
+    }
+
+    private void unbindAttributes(Shader shader){
+        if(cachedLocations.size == 0){
+            return;
+        }
+
+        for(int i = 0; i < mesh.attributes.length; i++){
+            int location = cachedLocations.get(i);
+            if(location < 0){
+                continue;
+            }
+            shader.disableVertexAttribute(location);
+        }
+    }
+
+    @Override
+    public void unbind(Shader shader){
+        Gl.bindVertexArray(0);
+    }
+
+    @Override
+    public void dispose(){
+        Gl.bindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        Gl.deleteBuffer(bufferHandle);
+        bufferHandle = 0;
+        Buffers.disposeUnsafeByteBuffer(byteBuffer);
+
+        if(vaoHandle != -1){
+            tmpHandle.clear();
+            tmpHandle.put(vaoHandle);
+            tmpHandle.flip();
+            Gl.deleteVertexArrays(1, tmpHandle);
+            vaoHandle = -1;
+        }
+    }
+}
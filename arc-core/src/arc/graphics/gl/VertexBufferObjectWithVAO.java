@@ -104,7 +104,7 @@ public class VertexBufferObjectWithVAO implements VertexData{
 
     @Override
     public void bind(Shader shader){
-        Core.gl30.glBindVertexArray(vaoHandle);
+        Gl.bindVertexArray(vaoHandle);
 
         bindAttributes(shader);
 
@@ -164,7 +164,7 @@ public class VertexBufferObjectWithVAO implements VertexData{
 
     private void bindData(){
         if(isDirty){
-            Core.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+            Gl.bindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
             byteBuffer.limit(buffer.limit() * 4);
             Core.gl.glBufferData(GL20.GL_ARRAY_BUFFER, byteBuffer.limit(), byteBuffer, usage);
             isDirty = false;
@@ -173,7 +173,7 @@ public class VertexBufferObjectWithVAO implements VertexData{
 
     @Override
     public void unbind(Shader shader){
-        Core.gl30.glBindVertexArray(0);
+        Gl.bindVertexArray(0);
         isBound = false;
     }
 
@@ -182,8 +182,8 @@ public class VertexBufferObjectWithVAO implements VertexData{
      */
     @Override
     public void dispose(){
-        Core.gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
-        Core.gl.glDeleteBuffer(bufferHandle);
+        Gl.bindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        Gl.deleteBuffer(bufferHandle);
         bufferHandle = 0;
         Buffers.disposeUnsafeByteBuffer(byteBuffer);
         deleteVAO();
@@ -200,7 +200,7 @@ public class VertexBufferObjectWithVAO implements VertexData{
             tmpHandle.clear();
             tmpHandle.put(vaoHandle);
             tmpHandle.flip();
-            Core.gl30.glDeleteVertexArrays(1, tmpHandle);
+            Gl.deleteVertexArrays(1, tmpHandle);
             vaoHandle = -1;
         }
     }
@@ -0,0 +1,131 @@
+package arc.graphics.profiling;
+
+import arc.*;
+import arc.files.*;
+import arc.graphics.*;
+import arc.util.*;
+import arc.util.io.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+
+/**
+ * Records every GL call into a binary trace, which can be analyzed or replayed without a GPU by {@link GLTraceAnalyzer}. Like
+ * {@link GLProfiler}, enabling replaces the {@code GL20} and {@code GL30} instances with ones that record each call before
+ * passing it on. Buffer arguments are copied into the trace, so recording is slow and traces of texture uploads are large;
+ * record a few frames at a time.
+ * <p>
+ * {@link #frame()} must be called once per frame, for example at the end of the application's update, to split the trace into
+ * frames.
+ */
+public class GLRecorder implements Disposable{
+    private final Graphics graphics;
+    private final Writes write;
+    private final GL20 gl20;
+    private final @Nullable GL30 gl30;
+    private final GL20 proxy;
+    private boolean enabled, disposed;
+    private int frames;
+    private long calls;
+
+    /** Creates a recorder that writes its trace to a file. */
+    public GLRecorder(Graphics graphics, Fi file){
+        this(graphics, file.write(false));
+    }
+
+    /** Creates a recorder that writes its trace to a stream. The stream is closed when the recorder is disposed. */
+    public GLRecorder(Graphics graphics, OutputStream output){
+        this.graphics = graphics;
+        this.gl20 = graphics.getGL20();
+        this.gl30 = graphics.getGL30();
+        this.write = new Writes(new DataOutputStream(new BufferedOutputStream(output, 1 << 16)));
+
+        GLTrace.writeHeader(write);
+
+        Object target = gl30 != null ? gl30 : gl20;
+        Class<?> type = gl30 != null ? GL30.class : GL20.class;
+        proxy = (GL20)Proxy.newProxyInstance(GLRecorder.class.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+            if(method.getDeclaringClass() == Object.class){
+                return method.invoke(this, args);
+            }
+
+            GLTrace.writeCall(write, GLTrace.ids.get(method, -1), method, args);
+            calls++;
+            try{
+                return method.invoke(target, args);
+            }catch(InvocationTargetException e){
+                throw e.getCause();
+            }
+        });
+    }
+
+    /** Starts recording by replacing the {@code GL20} and {@code GL30} instances with recording ones. */
+    public void enable(){
+        if(enabled || disposed) return;
+
+        if(gl30 != null){
+            graphics.setGL30((GL30)proxy);
+        }else{
+            graphics.setGL20(proxy);
+        }
+        enabled = true;
+    }
+
+    /** Stops recording by restoring the original {@code GL20} and {@code GL30} instances. The trace can be continued later. */
+    public void disable(){
+        if(!enabled) return;
+
+        if(gl30 != null){
+            graphics.setGL30(gl30);
+        }else{
+            graphics.setGL20(gl20);
+        }
+        enabled = false;
+        flush();
+    }
+
+    /** @return whether calls are currently being recorded. */
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /** Marks the end of a frame in the trace. Does nothing while disabled. */
+    public void frame(){
+        if(!enabled) return;
+        GLTrace.writeVarInt(write, GLTrace.frameEnd);
+        frames++;
+    }
+
+    /** @return the number of frames recorded so far. */
+    public int getFrames(){
+        return frames;
+    }
+
+    /** @return the number of calls recorded so far. */
+    public long getCalls(){
+        return calls;
+    }
+
+    /** Writes any buffered data to the output. */
+    public void flush(){
+        try{
+            ((DataOutputStream)write.output).flush();
+        }catch(IOException e){
+            throw new ArcRuntimeException(e);
+        }
+    }
+
+    /** Stops recording and closes the output. */
+    @Override
+    public void dispose(){
+        if(disposed) return;
+        disable();
+        write.close();
+        disposed = true;
+    }
+
+    @Override
+    public boolean isDisposed(){
+        return disposed;
+    }
+}
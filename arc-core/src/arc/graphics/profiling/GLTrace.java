@@ -0,0 +1,293 @@
+package arc.graphics.profiling;
+
+import arc.graphics.*;
+import arc.struct.*;
+import arc.util.*;
+import arc.util.io.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.util.*;
+
+/**
+ * The binary format of GL command traces written by {@link GLRecorder}.
+ * <p>
+ * A trace starts with a header listing the signature of every GL method, so that traces stay readable when the GL interfaces
+ * change. Every call is then stored as the index of its method in that list, followed by its arguments: ints as zigzag varints,
+ * floats and longs as raw bits, and buffers as a snapshot of their remaining contents. Buffers that GL writes into, such as
+ * those of glGet* and glGen*, only store their size. Index 0 marks the end of a frame.
+ */
+public final class GLTrace{
+    static final int magic = 0x41474C54, version = 1;
+    static final int frameEnd = 0;
+
+    static final int bufferByte = 0, bufferShort = 1, bufferInt = 2, bufferFloat = 3, bufferLong = 4, bufferNone = 5;
+
+    /** GL30 methods, including those inherited from GL20, in a stable order. */
+    static final Method[] methods;
+    static final ObjectIntMap<Method> ids = new ObjectIntMap<>();
+
+    static{
+        methods = GL30.class.getMethods();
+        Arrays.sort(methods, (a, b) -> signature(a).compareTo(signature(b)));
+        for(int i = 0; i < methods.length; i++){
+            ids.put(methods[i], i + 1);
+        }
+    }
+
+    private GLTrace(){
+    }
+
+    static String signature(Method method){
+        StringBuilder out = new StringBuilder(method.getName()).append('(');
+        for(Class<?> type : method.getParameterTypes()){
+            out.append(type.getSimpleName()).append(',');
+        }
+        return out.append(')').toString();
+    }
+
+    /** @return whether GL writes into the buffer arguments of this method, instead of reading them. */
+    static boolean writesBuffers(Method method){
+        String name = method.getName();
+        return name.startsWith("glGet") || name.startsWith("glGen") || name.equals("glReadPixels") || name.equals("glMapBufferRange");
+    }
+
+    static void writeHeader(Writes write){
+        write.i(magic);
+        write.i(version);
+        write.i(methods.length);
+        for(Method method : methods){
+            writeString(write, signature(method));
+        }
+    }
+
+    static void writeVarInt(Writes write, int value){
+        int v = (value << 1) ^ (value >> 31);
+        while((v & ~0x7F) != 0){
+            write.b((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        write.b(v);
+    }
+
+    static int readVarInt(Reads read){
+        int result = 0, shift = 0, b;
+        do{
+            b = read.ub();
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        }while((b & 0x80) != 0);
+        return (result >>> 1) ^ -(result & 1);
+    }
+
+    //writeUTF is limited to 64k, which long shader sources can exceed
+    static void writeString(Writes write, String string){
+        byte[] bytes = string.getBytes(Strings.utf8);
+        writeVarInt(write, bytes.length);
+        write.b(bytes);
+    }
+
+    static String readString(Reads read){
+        return new String(read.b(new byte[readVarInt(read)]), Strings.utf8);
+    }
+
+    static void writeCall(Writes write, int id, Method method, Object[] args){
+        writeVarInt(write, id);
+        if(args == null) return;
+
+        boolean output = writesBuffers(method);
+        for(Object arg : args){
+            if(arg instanceof Integer){
+                writeVarInt(write, (Integer)arg);
+            }else if(arg instanceof Float){
+                write.f((Float)arg);
+            }else if(arg instanceof Boolean){
+                write.bool((Boolean)arg);
+            }else if(arg instanceof Long){
+                write.l((Long)arg);
+            }else if(arg instanceof String){
+                writeString(write, (String)arg);
+            }else if(arg instanceof String[]){
+                String[] strings = (String[])arg;
+                writeVarInt(write, strings.length);
+                for(String s : strings) writeString(write, s);
+            }else if(arg instanceof int[]){
+                int[] ints = (int[])arg;
+                writeVarInt(write, ints.length);
+                for(int i : ints) writeVarInt(write, i);
+            }else if(arg instanceof float[]){
+                float[] floats = (float[])arg;
+                writeVarInt(write, floats.length);
+                for(float f : floats) write.f(f);
+            }else{
+                writeBuffer(write, (Buffer)arg, output);
+            }
+        }
+    }
+
+    static void writeBuffer(Writes write, @Nullable Buffer buffer, boolean output){
+        if(buffer == null){
+            write.b(bufferNone);
+            return;
+        }
+
+        int kind = buffer instanceof ByteBuffer ? bufferByte : buffer instanceof ShortBuffer ? bufferShort : buffer instanceof IntBuffer ? bufferInt :
+            buffer instanceof FloatBuffer ? bufferFloat : buffer instanceof LongBuffer ? bufferLong : -1;
+        if(kind == -1) throw new ArcRuntimeException("Unsupported buffer type: " + buffer.getClass());
+
+        int count = buffer.remaining();
+        write.b(kind | (output ? 0x80 : 0));
+        writeVarInt(write, count);
+        if(output) return;
+
+        int pos = buffer.position();
+        switch(kind){
+            case bufferByte:{
+                byte[] bytes = new byte[count];
+                ((ByteBuffer)buffer).duplicate().get(bytes);
+                write.b(bytes);
+                break;
+            }
+            case bufferShort: for(int i = 0; i < count; i++) write.s(((ShortBuffer)buffer).get(pos + i)); break;
+            case bufferInt: for(int i = 0; i < count; i++) write.i(((IntBuffer)buffer).get(pos + i)); break;
+            case bufferFloat: for(int i = 0; i < count; i++) write.f(((FloatBuffer)buffer).get(pos + i)); break;
+            case bufferLong: for(int i = 0; i < count; i++) write.l(((LongBuffer)buffer).get(pos + i)); break;
+        }
+    }
+
+    static Object readArg(Reads read, Class<?> type){
+        if(type == int.class) return readVarInt(read);
+        if(type == float.class) return read.f();
+        if(type == boolean.class) return read.bool();
+        if(type == long.class) return read.l();
+        if(type == String.class) return readString(read);
+        if(type == String[].class){
+            String[] strings = new String[readVarInt(read)];
+            for(int i = 0; i < strings.length; i++) strings[i] = readString(read);
+            return strings;
+        }
+        if(type == int[].class){
+            int[] ints = new int[readVarInt(read)];
+            for(int i = 0; i < ints.length; i++) ints[i] = readVarInt(read);
+            return ints;
+        }
+        if(type == float[].class){
+            float[] floats = new float[readVarInt(read)];
+            for(int i = 0; i < floats.length; i++) floats[i] = read.f();
+            return floats;
+        }
+        return readBuffer(read);
+    }
+
+    static @Nullable Buffer readBuffer(Reads read){
+        int header = read.ub();
+        int kind = header & 0x7F;
+        if(kind == bufferNone) return null;
+
+        boolean output = (header & 0x80) != 0;
+        int count = readVarInt(read);
+        switch(kind){
+            case bufferByte:{
+                ByteBuffer buffer = Buffers.newByteBuffer(count);
+                if(!output){
+                    buffer.put(read.b(new byte[count]));
+                    buffer.clear();
+                }
+                return buffer;
+            }
+            case bufferShort:{
+                ShortBuffer buffer = Buffers.newShortBuffer(count);
+                if(!output) for(int i = 0; i < count; i++) buffer.put(i, read.s());
+                return buffer;
+            }
+            case bufferInt:{
+                IntBuffer buffer = Buffers.newIntBuffer(count);
+                if(!output) for(int i = 0; i < count; i++) buffer.put(i, read.i());
+                return buffer;
+            }
+            case bufferFloat:{
+                FloatBuffer buffer = Buffers.newFloatBuffer(count);
+                if(!output) for(int i = 0; i < count; i++) buffer.put(i, read.f());
+                return buffer;
+            }
+            case bufferLong:{
+                LongBuffer buffer = Buffers.newByteBuffer(count * 8).asLongBuffer();
+                if(!output) for(int i = 0; i < count; i++) buffer.put(i, read.l());
+                return buffer;
+            }
+            default: throw new ArcRuntimeException("Corrupt trace: unknown buffer type " + kind);
+        }
+    }
+
+    /** @return the size of a buffer in bytes, or 0 if it is null. */
+    static int bytes(@Nullable Buffer buffer){
+        if(buffer == null) return 0;
+        int size = buffer instanceof ByteBuffer ? 1 : buffer instanceof ShortBuffer ? 2 : buffer instanceof LongBuffer ? 8 : 4;
+        return buffer.remaining() * size;
+    }
+
+    /** Reads the calls of a trace one by one. */
+    public static class Reader implements Closeable{
+        final Reads read;
+        final Method[] local;
+
+        /** The method of the current call, or null if the current entry is the end of a frame. */
+        public @Nullable Method method;
+        /** The arguments of the current call. */
+        public Object[] args;
+
+        public Reader(InputStream input){
+            read = new Reads(new DataInputStream(new BufferedInputStream(input)));
+            if(read.i() != magic) throw new ArcRuntimeException("Not a GL trace");
+            int v = read.i();
+            if(v != version) throw new ArcRuntimeException("Unsupported GL trace version: " + v);
+
+            ObjectMap<String, Method> bySignature = new ObjectMap<>();
+            for(Method method : methods){
+                bySignature.put(signature(method), method);
+            }
+            local = new Method[read.i() + 1];
+            for(int i = 1; i < local.length; i++){
+                local[i] = bySignature.get(readString(read));
+            }
+        }
+
+        /** Reads the next entry. @return false if the end of the trace was reached. */
+        public boolean next(){
+            int id;
+            try{
+                id = readVarInt(read);
+            }catch(RuntimeException e){
+                if(e.getCause() instanceof EOFException) return false;
+                throw e;
+            }
+
+            if(id == frameEnd){
+                method = null;
+                args = null;
+                return true;
+            }
+            if(id < 0 || id >= local.length) throw new ArcRuntimeException("Corrupt trace: unknown call " + id);
+            method = local[id];
+            if(method == null) throw new ArcRuntimeException("Trace contains a GL method that no longer exists (" + id + ")");
+
+            Class<?>[] types = method.getParameterTypes();
+            args = new Object[types.length];
+            for(int i = 0; i < types.length; i++){
+                args[i] = readArg(read, types[i]);
+            }
+            return true;
+        }
+
+        /** @return whether the current entry marks the end of a frame. */
+        public boolean isFrameEnd(){
+            return method == null;
+        }
+
+        @Override
+        public void close(){
+            read.close();
+        }
+    }
+}
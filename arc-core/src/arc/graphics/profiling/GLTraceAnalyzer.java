@@ -0,0 +1,336 @@
+package arc.graphics.profiling;
+
+import arc.files.*;
+import arc.graphics.*;
+import arc.struct.*;
+import arc.util.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Analyzes GL traces written by {@link GLRecorder}, without needing a GPU. For each frame, this reports the number of calls and
+ * draw calls, the bytes uploaded, calls that set state to the value it already had, and what changed between consecutive draw
+ * calls, which is what forced a batch to break.
+ * <p>
+ * The trace can also be replayed into another GL instance while it is analyzed, such as a {@link arc.mock.MockGL} for
+ * benchmarking the CPU cost of the calls, or a real context. Object handles are replayed as they were recorded, so a replay into
+ * a real context must start from a fresh context that hands out handles in the same order.
+ */
+public class GLTraceAnalyzer{
+    /** Causes of batch breaks: the kinds of state that changed between two draw calls. */
+    public static final String
+    causeTexture = "texture",
+    causeShader = "shader",
+    causeUniform = "uniform",
+    causeBlending = "blending",
+    causeBuffer = "buffer",
+    causeAttributes = "attributes",
+    causeFramebuffer = "framebuffer",
+    causeViewport = "viewport",
+    causeScissor = "scissor",
+    causeEnable = "enable",
+    causeState = "state",
+    /** Only vertex or index data was uploaded, usually because the batch was full. */
+    causeData = "data",
+    /** Nothing changed at all. */
+    causeNone = "none";
+
+    /** If set, every call is replayed into this GL instance. */
+    public @Nullable GL20 target;
+
+    private final ObjectMap<String, Object[]> state = new ObjectMap<>();
+    private final ObjectSet<String> pending = new ObjectSet<>();
+    private final Seq<String> tmpKeys = new Seq<>();
+    private int activeUnit, program;
+    private boolean uploadedSinceDraw;
+    private FrameStats frame;
+
+    public GLTraceAnalyzer(){
+    }
+
+    public GLTraceAnalyzer(@Nullable GL20 target){
+        this.target = target;
+    }
+
+    public Seq<FrameStats> analyze(Fi trace){
+        return analyze(trace.read());
+    }
+
+    /** Analyzes a whole trace. The stream is closed afterwards. @return the statistics of every frame. */
+    public Seq<FrameStats> analyze(InputStream input){
+        Seq<FrameStats> frames = new Seq<>();
+        state.clear();
+        pending.clear();
+        activeUnit = 0;
+        program = 0;
+        frame = new FrameStats(0);
+
+        try(GLTrace.Reader reader = new GLTrace.Reader(input)){
+            while(reader.next()){
+                if(reader.isFrameEnd()){
+                    frames.add(frame);
+                    frame = new FrameStats(frames.size);
+                    //changes before the first draw of a frame don't break anything
+                    pending.clear();
+                    uploadedSinceDraw = false;
+                }else{
+                    call(reader.method, reader.args);
+                }
+            }
+        }
+
+        if(frame.calls > 0) frames.add(frame);
+        return frames;
+    }
+
+    void call(Method method, Object[] args){
+        String name = method.getName();
+        frame.calls++;
+
+        if(target != null) replay(method, args);
+
+        boolean uniform = name.startsWith("glUniform");
+        if(!uniform && !GLTrace.writesBuffers(method)){
+            for(Object arg : args){
+                if(arg instanceof Buffer){
+                    int bytes = GLTrace.bytes((Buffer)arg);
+                    frame.bytesUploaded += bytes;
+                    if(bytes > 0) uploadedSinceDraw = true;
+                }
+            }
+        }
+
+        if(uniform){
+            state(name, "uniform " + program + " " + args[0], causeUniform, Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        switch(name){
+            case "glActiveTexture":
+                activeUnit = (Integer)args[0];
+                state(name, "activeTexture", null, args);
+                break;
+            case "glBindTexture":
+                state(name, "texture " + activeUnit + " " + args[0], causeTexture, args[1]);
+                break;
+            case "glUseProgram":
+                program = (Integer)args[0];
+                state(name, "program", causeShader, args);
+                break;
+            case "glEnable":
+            case "glDisable":
+                state(name, "cap " + args[0], causeEnable, name.equals("glEnable"));
+                break;
+            case "glBlendFunc":
+                state(name, "blendFunc", causeBlending, args[0], args[1], args[0], args[1]);
+                break;
+            case "glBlendFuncSeparate":
+                state(name, "blendFunc", causeBlending, args);
+                break;
+            case "glBlendEquation":
+                state(name, "blendEquation", causeBlending, args[0], args[0]);
+                break;
+            case "glBlendEquationSeparate":
+                state(name, "blendEquation", causeBlending, args);
+                break;
+            case "glBlendColor":
+                state(name, "blendColor", causeBlending, args);
+                break;
+            case "glBindBuffer":
+                state(name, "buffer " + args[0], causeBuffer, args[1]);
+                break;
+            case "glBindVertexArray":
+                if(state(name, "vertexArray", causeBuffer, args)){
+                    //these are part of the vertex array
+                    forget("buffer " + GL20.GL_ELEMENT_ARRAY_BUFFER);
+                    forget("attrib");
+                }
+                break;
+            case "glBindFramebuffer":
+                state(name, "framebuffer " + args[0], causeFramebuffer, args[1]);
+                break;
+            case "glBindRenderbuffer":
+                state(name, "renderbuffer", null, args);
+                break;
+            case "glViewport":
+                state(name, "viewport", causeViewport, args);
+                break;
+            case "glScissor":
+                state(name, "scissor", causeScissor, args);
+                break;
+            case "glEnableVertexAttribArray":
+            case "glDisableVertexAttribArray":
+                state(name, "attrib " + args[0], causeAttributes, name.equals("glEnableVertexAttribArray"));
+                break;
+            case "glVertexAttribPointer":
+                state(name, "attribPointer " + args[0], causeAttributes, args);
+                break;
+            case "glColorMask":
+            case "glDepthMask":
+            case "glDepthFunc":
+            case "glDepthRangef":
+            case "glStencilFunc":
+            case "glStencilOp":
+            case "glStencilMask":
+            case "glCullFace":
+            case "glFrontFace":
+            case "glPolygonOffset":
+            case "glLineWidth":
+                state(name, name, causeState, args);
+                break;
+            case "glStencilFuncSeparate":
+            case "glStencilOpSeparate":
+            case "glStencilMaskSeparate":{
+                String base = name.substring(0, name.length() - "Separate".length());
+                //the single-face shadow no longer describes both faces
+                forget(base);
+                state(name, base + " " + args[0], causeState, Arrays.copyOfRange(args, 1, args.length));
+                break;
+            }
+            case "glClearColor":
+            case "glClearDepthf":
+            case "glClearStencil":
+                state(name, name, null, args);
+                break;
+            case "glPixelStorei":
+            case "glHint":
+                state(name, name + " " + args[0], null, args[1]);
+                break;
+            case "glDeleteTexture":
+            case "glDeleteTextures":
+                //deleted handles are unbound, and may be handed out again
+                forget("texture");
+                break;
+            case "glDeleteBuffer":
+            case "glDeleteBuffers":
+                forget("buffer");
+                forget("attribPointer");
+                break;
+            case "glDeleteFramebuffer":
+            case "glDeleteFramebuffers":
+                forget("framebuffer");
+                break;
+            case "glDeleteProgram":
+                forget("program");
+                forget("uniform " + args[0] + " ");
+                break;
+            case "glDeleteVertexArrays":
+                forget("vertexArray");
+                break;
+            case "glDrawArrays":
+            case "glDrawElements":
+            case "glDrawArraysInstanced":
+            case "glDrawElementsInstanced":
+            case "glDrawRangeElements":
+                draw();
+                break;
+        }
+    }
+
+    void replay(Method method, Object[] args){
+        if(method.getDeclaringClass() == GL30.class && !(target instanceof GL30)){
+            throw new ArcRuntimeException("The trace uses " + method.getName() + ", but the replay target does not support GL30.");
+        }
+        try{
+            method.invoke(target, args);
+        }catch(InvocationTargetException e){
+            throw new ArcRuntimeException("Failed to replay " + method.getName(), e.getCause());
+        }catch(IllegalAccessException e){
+            throw new ArcRuntimeException(e);
+        }
+    }
+
+    void draw(){
+        if(frame.drawCalls > 0){
+            if(pending.size == 0){
+                frame.breaks.increment(uploadedSinceDraw ? causeData : causeNone);
+            }else{
+                for(String cause : pending){
+                    frame.breaks.increment(cause);
+                }
+            }
+        }
+        frame.drawCalls++;
+        pending.clear();
+        uploadedSinceDraw = false;
+    }
+
+    /**
+     * Records a piece of state being set.
+     * @param cause the batch break cause to attribute changes to, or null if the state doesn't affect drawing
+     * @return whether the state changed.
+     */
+    boolean state(String method, String key, @Nullable String cause, Object... value){
+        Object[] last = state.get(key);
+        if(last != null && Arrays.deepEquals(last, value)){
+            frame.redundantCalls++;
+            frame.redundant.increment(method);
+            return false;
+        }
+        state.put(key, value);
+        if(cause != null) pending.add(cause);
+        return true;
+    }
+
+    /** Forgets all state with keys starting with the prefix, so that the next call setting it counts as a change. */
+    void forget(String prefix){
+        tmpKeys.clear();
+        for(String key : state.keys()){
+            if(key.startsWith(prefix)) tmpKeys.add(key);
+        }
+        for(String key : tmpKeys){
+            state.remove(key);
+        }
+    }
+
+    /** Statistics of one frame of a trace. */
+    public static class FrameStats{
+        /** Index of the frame in the trace. */
+        public final int index;
+        public int calls, drawCalls, redundantCalls;
+        /** Bytes of buffer, texture and client-side vertex data sent to GL. Uniforms are not included. */
+        public long bytesUploaded;
+        /** Redundant calls by GL method name. */
+        public final ObjectIntMap<String> redundant = new ObjectIntMap<>();
+        /**
+         * Every draw call after the first one in a frame, by the kinds of state that changed since the previous draw call. A draw
+         * call that follows several kinds of changes is counted for each of them.
+         */
+        public final ObjectIntMap<String> breaks = new ObjectIntMap<>();
+
+        public FrameStats(int index){
+            this.index = index;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder out = new StringBuilder();
+            out.append("Frame ").append(index).append(": ").append(calls).append(" calls, ").append(drawCalls).append(" draw calls, ")
+            .append(redundantCalls).append(" redundant, ").append(bytesUploaded).append(" bytes uploaded");
+            append(out, "redundant", redundant);
+            append(out, "batch breaks", breaks);
+            return out.toString();
+        }
+
+        private static void append(StringBuilder out, String title, ObjectIntMap<String> counts){
+            if(counts.size == 0) return;
+
+            Seq<ObjectIntMap.Entry<String>> entries = new Seq<>();
+            for(ObjectIntMap.Entry<String> entry : counts){
+                ObjectIntMap.Entry<String> copy = new ObjectIntMap.Entry<>();
+                copy.key = entry.key;
+                copy.value = entry.value;
+                entries.add(copy);
+            }
+            entries.sort((a, b) -> b.value - a.value);
+
+            out.append("\n  ").append(title).append(':');
+            for(ObjectIntMap.Entry<String> entry : entries){
+                out.append(' ').append(entry.key).append('=').append(entry.value);
+            }
+        }
+    }
+}
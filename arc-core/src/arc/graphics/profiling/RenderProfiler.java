@@ -0,0 +1,275 @@
+package arc.graphics.profiling;
+
+import arc.*;
+import arc.graphics.*;
+import arc.graphics.g2d.*;
+import arc.graphics.gl.*;
+import arc.struct.*;
+import arc.util.*;
+
+import java.nio.*;
+
+/**
+ * Records what batches draw in each frame: every flush, the number of sprites it drew and why it happened. Flushes caused by a
+ * texture, blending, shader or projection change are what break batches apart, so this shows where draw calls come from.
+ * <p>
+ * Frames are delimited with {@link #begin()} and {@link #end()}, and only flushes between them are recorded. The last
+ * {@link #capacity} frames are kept in a ring buffer. If enabled and supported, the GPU time of each frame is measured with
+ * timer queries; the result arrives a few frames later, so the latest frames may not have it yet.
+ */
+public class RenderProfiler{
+    private static final int timeElapsed = 0x88BF, queryResult = 0x8866, queryResultAvailable = 0x8867;
+    /** Frames that may be in flight on the GPU at once, and so the number of timer queries used. */
+    private static final int queries = 4;
+
+    /** The reason a batch flushed. */
+    public enum FlushReason{
+        /** The texture changed, or all texture slots were used. */
+        texture,
+        /** The blending changed. */
+        blending,
+        /** The shader changed. */
+        shader,
+        /** The projection or transform matrix changed. */
+        projection,
+        /** The vertex buffer was full. */
+        full,
+        /** Flushed by a call to flush(), such as Draw.flush() or the end of a frame. */
+        explicit;
+
+        public static final FlushReason[] all = values();
+    }
+
+    /** The number of frames kept. */
+    public final int capacity;
+
+    private final FrameRecord[] records;
+    private int head, size;
+    private long frameId;
+    private boolean enabled, inFrame;
+    private @Nullable FrameRecord current;
+    private long beginTime, beginElided;
+
+    private boolean timing;
+    private @Nullable IntBuffer queryHandles;
+    private final FrameRecord[] queryRecords = new FrameRecord[queries];
+    private final IntBuffer result = Buffers.newIntBuffer(1);
+
+    public RenderProfiler(){
+        this(120);
+    }
+
+    public RenderProfiler(int capacity){
+        if(capacity < queries) throw new IllegalArgumentException("Capacity must be at least " + queries + ": " + capacity);
+        this.capacity = capacity;
+        records = new FrameRecord[capacity];
+        for(int i = 0; i < capacity; i++){
+            records[i] = new FrameRecord();
+        }
+    }
+
+    /** @return whether GPU timer queries are available on this device. */
+    public static boolean timerQueriesSupported(){
+        if(Core.gl30 == null) return false;
+        GLVersion version = Core.graphics.getGLVersion();
+        return (version.type == GLVersion.GlType.OpenGL && version.atLeast(3, 3)) ||
+            Core.graphics.supportsExtension("GL_ARB_timer_query") || Core.graphics.supportsExtension("GL_EXT_disjoint_timer_query");
+    }
+
+    /** Starts receiving flushes from batches. */
+    public void enable(){
+        enable(false);
+    }
+
+    /**
+     * Starts receiving flushes from batches.
+     * @param gpuTiming whether to measure GPU time with timer queries. Ignored if they are not supported.
+     */
+    public void enable(boolean gpuTiming){
+        if(enabled) return;
+        Batch.profiler = this;
+        enabled = true;
+
+        timing = gpuTiming && timerQueriesSupported();
+        if(timing && queryHandles == null){
+            queryHandles = Buffers.newIntBuffer(queries);
+            Core.gl30.glGenQueries(queries, queryHandles);
+        }
+    }
+
+    /** Stops receiving flushes, and frees the timer queries. Recorded frames are kept. */
+    public void disable(){
+        if(!enabled) return;
+        if(inFrame) end();
+        if(Batch.profiler == this) Batch.profiler = null;
+        enabled = false;
+
+        if(queryHandles != null){
+            Core.gl30.glDeleteQueries(queries, queryHandles);
+            queryHandles = null;
+            for(int i = 0; i < queries; i++){
+                queryRecords[i] = null;
+            }
+        }
+        timing = false;
+    }
+
+    public boolean isEnabled(){
+        return enabled;
+    }
+
+    /** Starts recording a frame. Does nothing if disabled. */
+    public void begin(){
+        if(!enabled || inFrame) return;
+        inFrame = true;
+
+        //the oldest record is reused; make sure no pending query still refers to it
+        FrameRecord record = records[head];
+        for(int i = 0; i < queries; i++){
+            if(queryRecords[i] == record) queryRecords[i] = null;
+        }
+        record.reset(frameId++);
+        current = record;
+
+        if(timing){
+            int slot = (int)(record.id % queries);
+            //a query can't be restarted before its result is read
+            collect(slot, true);
+            Core.gl30.glBeginQuery(timeElapsed, queryHandles.get(slot));
+            queryRecords[slot] = record;
+        }
+
+        beginElided = Gl.getElidedCalls();
+        beginTime = Time.nanos();
+    }
+
+    /** Ends the frame started with {@link #begin()}, and adds it to the recorded frames. */
+    public void end(){
+        if(!inFrame) return;
+        inFrame = false;
+
+        FrameRecord record = current;
+        record.cpuNanos = Time.timeSinceNanos(beginTime);
+        record.elidedCalls = Gl.getElidedCalls() - beginElided;
+        current = null;
+
+        head = (head + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+
+        if(timing){
+            Core.gl30.glEndQuery(timeElapsed);
+            for(int i = 0; i < queries; i++){
+                collect(i, false);
+            }
+        }
+    }
+
+    /** Reads the result of a timer query if there is one. @param wait whether to wait for a result that isn't available yet. */
+    private void collect(int slot, boolean wait){
+        FrameRecord record = queryRecords[slot];
+        if(record == null || record == current) return;
+
+        int query = queryHandles.get(slot);
+        if(!wait){
+            result.clear();
+            Core.gl30.glGetQueryObjectuiv(query, queryResultAvailable, result);
+            if(result.get(0) == 0) return;
+        }
+        result.clear();
+        Core.gl30.glGetQueryObjectuiv(query, queryResult, result);
+        record.gpuNanos = result.get(0) & 0xFFFFFFFFL;
+        queryRecords[slot] = null;
+    }
+
+    /** Called by batches when they flush. Does nothing outside of a frame. */
+    public void flush(FlushReason reason, int sprites){
+        if(current == null) return;
+        current.flushReasons.add(reason.ordinal());
+        current.flushSprites.add(sprites);
+        current.flushes++;
+        current.sprites += sprites;
+        current.flushesByReason[reason.ordinal()]++;
+        current.spritesByReason[reason.ordinal()] += sprites;
+    }
+
+    /** @return the number of recorded frames. */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * @param ago 0 for the last finished frame, 1 for the one before it, and so on.
+     * @return a recorded frame. This is reused once it leaves the ring buffer, so it should not be kept.
+     */
+    public FrameRecord get(int ago){
+        if(ago < 0 || ago >= size) throw new IndexOutOfBoundsException("ago: " + ago + ", size: " + size);
+        return records[(head - 1 - ago + capacity * 2) % capacity];
+    }
+
+    /** Forgets all recorded frames. */
+    public void clear(){
+        size = 0;
+        for(int i = 0; i < queries; i++){
+            queryRecords[i] = null;
+        }
+    }
+
+    /** @return a report of the recorded frames, oldest first. */
+    public String dump(){
+        StringBuilder out = new StringBuilder();
+        for(int i = size - 1; i >= 0; i--){
+            out.append(get(i)).append('\n');
+        }
+        return out.toString();
+    }
+
+    /** What was drawn in one frame. */
+    public static class FrameRecord{
+        /** Number of the frame, counted since the profiler was created. */
+        public long id;
+        /** Time between {@link #begin()} and {@link #end()}. */
+        public long cpuNanos;
+        /** GPU time of the frame, or -1 if it was not measured or the result has not arrived yet. */
+        public long gpuNanos = -1;
+        /** Calls skipped by {@link Gl} during the frame, because they would not have changed any state. */
+        public long elidedCalls;
+        public int flushes, sprites;
+        /** Flushes and sprites drawn by them, indexed by {@link FlushReason#ordinal()}. */
+        public final int[] flushesByReason = new int[FlushReason.all.length], spritesByReason = new int[FlushReason.all.length];
+        /** Reason ordinal and sprite count of each flush, in order. */
+        public final IntSeq flushReasons = new IntSeq(), flushSprites = new IntSeq();
+
+        void reset(long id){
+            this.id = id;
+            cpuNanos = 0;
+            gpuNanos = -1;
+            elidedCalls = 0;
+            flushes = sprites = 0;
+            for(int i = 0; i < flushesByReason.length; i++){
+                flushesByReason[i] = spritesByReason[i] = 0;
+            }
+            flushReasons.clear();
+            flushSprites.clear();
+        }
+
+        /** @return the number of flushes with this reason. */
+        public int flushes(FlushReason reason){
+            return flushesByReason[reason.ordinal()];
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder out = new StringBuilder();
+            out.append("Frame ").append(id).append(": cpu ").append(Strings.fixed(cpuNanos / 1000000f, 2)).append("ms");
+            if(gpuNanos >= 0) out.append(", gpu ").append(Strings.fixed(gpuNanos / 1000000f, 2)).append("ms");
+            out.append(", ").append(flushes).append(" flushes, ").append(sprites).append(" sprites, ").append(elidedCalls).append(" elided GL calls");
+            for(FlushReason reason : FlushReason.all){
+                int count = flushesByReason[reason.ordinal()];
+                if(count > 0){
+                    out.append("\n  ").append(reason).append(": ").append(count).append(" flushes, ").append(spritesByReason[reason.ordinal()]).append(" sprites");
+                }
+            }
+            return out.toString();
+        }
+    }
+}
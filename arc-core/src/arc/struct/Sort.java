@@ -13,7 +13,7 @@
 
 package arc.struct;
 
-import java.util.Comparator;
+import java.util.*;
 
 /**
  * Provides methods to sort arrays of objects. Sorting requires working memory and this class allows that memory to be reused to
@@ -29,6 +29,10 @@ public class Sort{
     private TimSort timSort;
     private ComparableTimSort comparableTimSort;
 
+    private long[] radixKeys = {};
+    private int[] radixValues = {};
+    private final int[] radixCounts = new int[8 * 256];
+
     /** Returns a Sort instance for convenience. Multiple threads must not use this instance at the same time. */
     public static Sort instance(){
         if(instance == null) instance = new Sort();
@@ -64,4 +68,65 @@ public class Sort{
         if(timSort == null) timSort = new TimSort();
         timSort.doSort(a, c, fromIndex, toIndex);
     }
+
+    /**
+     * Sorts the first {@code size} keys in ascending unsigned order using a stable LSD radix sort, moving each value along with
+     * its key. Passes over bytes that are identical for every key are skipped, so keys that only use their upper bits cost as much
+     * as narrower keys. Working memory is reused between calls.
+     */
+    public void radixSort(long[] keys, int[] values, int size){
+        if(size < 2) return;
+
+        if(radixKeys.length < size){
+            radixKeys = new long[size];
+            radixValues = new int[size];
+        }
+
+        int[] counts = radixCounts;
+        Arrays.fill(counts, 0);
+
+        //build the histograms of all 8 digits in a single pass
+        for(int i = 0; i < size; i++){
+            long key = keys[i];
+            for(int pass = 0; pass < 8; pass++){
+                counts[(pass << 8) | (int)((key >>> (pass << 3)) & 0xff)]++;
+            }
+        }
+
+        long[] srcKeys = keys, dstKeys = radixKeys;
+        int[] srcValues = values, dstValues = radixValues;
+
+        for(int pass = 0; pass < 8; pass++){
+            int offset = pass << 8, shift = pass << 3;
+
+            //every key shares this digit, so the pass would not change anything
+            if(counts[offset | (int)((srcKeys[0] >>> shift) & 0xff)] == size) continue;
+
+            int total = 0;
+            for(int i = offset; i < offset + 256; i++){
+                int count = counts[i];
+                counts[i] = total;
+                total += count;
+            }
+
+            for(int i = 0; i < size; i++){
+                long key = srcKeys[i];
+                int dst = counts[offset | (int)((key >>> shift) & 0xff)]++;
+                dstKeys[dst] = key;
+                dstValues[dst] = srcValues[i];
+            }
+
+            long[] tk = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tk;
+            int[] tv = srcValues;
+            srcValues = dstValues;
+            dstValues = tv;
+        }
+
+        if(srcKeys != keys){
+            System.arraycopy(srcKeys, 0, keys, 0, size);
+            System.arraycopy(srcValues, 0, values, 0, size);
+        }
+    }
 }
@@ -0,0 +1,163 @@
+import arc.files.*;
+import arc.graphics.g2d.TextureAtlas.*;
+import arc.graphics.g2d.TextureAtlas.TextureAtlasData.*;
+import arc.util.*;
+import org.junit.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AtlasTest{
+    static final String text =
+    "\n" +
+    "sprites.png\n" +
+    "size: 64, 32\n" +
+    "format: rgba8888\n" +
+    "filter: mipMapLinearLinear, linear\n" +
+    "repeat: xy\n" +
+    "button\n" +
+    "  rotate: true\n" +
+    "  xy: 2, 4\n" +
+    "  size: 10, 12\n" +
+    "  split: 1, 2, 3, 4\n" +
+    "  pad: 0, 1, 0, 1\n" +
+    "  orig: 12, 14\n" +
+    "  offset: 1, 2\n" +
+    "  index: -1\n" +
+    "frame\n" +
+    "  rotate: false\n" +
+    "  xy: 20, 0\n" +
+    "  size: 8, 8\n" +
+    "  orig: 8, 8\n" +
+    "  offset: 0, 0\n" +
+    "  index: 1\n" +
+    "frame\n" +
+    "  rotate: false\n" +
+    "  xy: 30, 0\n" +
+    "  size: 8, 8\n" +
+    "  orig: 8, 8\n" +
+    "  offset: 0, 0\n" +
+    "  index: 0\n" +
+    "\n" +
+    "icons.png\n" +
+    "size: 16, 16\n" +
+    "format: rgb888\n" +
+    "filter: nearest, nearest\n" +
+    "repeat: none\n" +
+    "panel\n" +
+    "  rotate: false\n" +
+    "  xy: 0, 0\n" +
+    "  size: 6, 5\n" +
+    "  split: 2, 2, 1, 1\n" +
+    "  orig: 7, 6\n" +
+    "  offset: -1, 1\n" +
+    "  index: -1\n";
+
+    @Test
+    public void binaryMatchesText() throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(TextureAtlasData.binaryMagic);
+        out.writeByte(TextureAtlasData.binaryVersion);
+
+        page(out, "sprites.png", 64, 32, "rgba8888", "mipMapLinearLinear", "linear", "repeat", "repeat", 3);
+        region(out, "button", true, 2, 4, 10, 12, new int[]{1, 2, 3, 4}, new int[]{0, 1, 0, 1}, 12, 14, 1, 2, -1);
+        region(out, "frame", false, 20, 0, 8, 8, null, null, 8, 8, 0, 0, 1);
+        region(out, "frame", false, 30, 0, 8, 8, null, null, 8, 8, 0, 0, 0);
+
+        page(out, "icons.png", 16, 16, "rgb888", "nearest", "nearest", "clampToEdge", "clampToEdge", 1);
+        region(out, "panel", false, 0, 0, 6, 5, new int[]{2, 2, 1, 1}, null, 7, 6, -1, 1, -1);
+
+        Fi dir = new Fi(File.createTempFile("atlas", "").getParentFile());
+        Fi textFile = new Fi(File.createTempFile("atlas", ".atlas"));
+        Fi binaryFile = new Fi(File.createTempFile("atlas", ".atlas"));
+        try{
+            textFile.writeString(text, false, StandardCharsets.UTF_8.name());
+            binaryFile.writeBytes(bytes.toByteArray());
+
+            assertFalse(TextureAtlasData.isBinary(textFile));
+            assertTrue(TextureAtlasData.isBinary(binaryFile));
+
+            for(boolean flip : new boolean[]{false, true}){
+                TextureAtlasData expected = new TextureAtlasData(textFile, dir, flip);
+                TextureAtlasData actual = new TextureAtlasData(binaryFile, dir, flip);
+
+                assertEquals(expected.getPages().size, actual.getPages().size);
+                for(int i = 0; i < expected.getPages().size; i++){
+                    assertPage(expected.getPages().get(i), actual.getPages().get(i));
+                }
+
+                assertEquals(expected.getRegions().size, actual.getRegions().size);
+                for(int i = 0; i < expected.getRegions().size; i++){
+                    Region a = expected.getRegions().get(i), b = actual.getRegions().get(i);
+                    assertEquals(expected.getPages().indexOf(a.page, true), actual.getPages().indexOf(b.page, true));
+                    assertEquals(a.name, b.name);
+                    assertEquals(a.index, b.index);
+                    assertEquals(a.rotate, b.rotate);
+                    assertEquals(a.flip, b.flip);
+                    assertEquals(a.left, b.left);
+                    assertEquals(a.top, b.top);
+                    assertEquals(a.width, b.width);
+                    assertEquals(a.height, b.height);
+                    assertEquals(a.originalWidth, b.originalWidth);
+                    assertEquals(a.originalHeight, b.originalHeight);
+                    assertEquals(a.offsetX, b.offsetX, 0f);
+                    assertEquals(a.offsetY, b.offsetY, 0f);
+                    assertTrue(Arrays.equals(a.splits, b.splits));
+                    assertTrue(Arrays.equals(a.pads, b.pads));
+                }
+            }
+        }finally{
+            textFile.delete();
+            binaryFile.delete();
+        }
+    }
+
+    void assertPage(AtlasPage a, AtlasPage b){
+        assertEquals(a.textureFile.path(), b.textureFile.path());
+        assertEquals(a.width, b.width, 0f);
+        assertEquals(a.height, b.height, 0f);
+        assertEquals(a.useMipMaps, b.useMipMaps);
+        assertEquals(a.format, b.format);
+        assertEquals(a.minFilter, b.minFilter);
+        assertEquals(a.magFilter, b.magFilter);
+        assertEquals(a.uWrap, b.uWrap);
+        assertEquals(a.vWrap, b.vWrap);
+    }
+
+    void page(DataOutputStream out, String name, int width, int height, String format, String min, String mag, String uWrap, String vWrap, int regions) throws IOException{
+        out.writeUTF(name);
+        out.writeShort(width);
+        out.writeShort(height);
+        out.writeUTF(format);
+        out.writeUTF(min);
+        out.writeUTF(mag);
+        out.writeUTF(uWrap);
+        out.writeUTF(vWrap);
+        out.writeInt(regions);
+    }
+
+    void region(DataOutputStream out, String name, boolean rotate, int left, int top, int width, int height, @Nullable int[] splits, @Nullable int[] pads,
+                int originalWidth, int originalHeight, int offsetX, int offsetY, int index) throws IOException{
+        out.writeUTF(name);
+        out.writeByte((rotate ? 1 : 0) | (splits != null ? 2 : 0) | (pads != null ? 4 : 0));
+        out.writeShort(left);
+        out.writeShort(top);
+        out.writeShort(width);
+        out.writeShort(height);
+        if(splits != null){
+            for(int split : splits) out.writeShort(split);
+        }
+        if(pads != null){
+            for(int pad : pads) out.writeShort(pad);
+        }
+        out.writeShort(originalWidth);
+        out.writeShort(originalHeight);
+        out.writeShort(offsetX);
+        out.writeShort(offsetY);
+        out.writeInt(index);
+    }
+}
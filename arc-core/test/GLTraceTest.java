@@ -0,0 +1,90 @@
+import arc.*;
+import arc.graphics.*;
+import arc.graphics.profiling.*;
+import arc.graphics.profiling.GLTraceAnalyzer.*;
+import arc.mock.*;
+import arc.struct.*;
+import arc.util.*;
+import org.junit.*;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+public class GLTraceTest{
+
+    @Test
+    public void analyzeRecordedFrames(){
+        Graphics lastGraphics = Core.graphics;
+        GL20 lastGl = Core.gl;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try{
+            Core.gl = Core.gl20 = new MockGL();
+            Core.graphics = new MockGraphics(){
+                @Override
+                public GL20 getGL20(){
+                    return Core.gl20;
+                }
+
+                @Override
+                public void setGL20(GL20 gl20){
+                    Core.gl = Core.gl20 = gl20;
+                }
+            };
+
+            GLRecorder recorder = new GLRecorder(Core.graphics, bytes);
+            recorder.enable();
+
+            //frame 0: a redundant texture bind, then a texture switch, then a blending and uniform change
+            Core.gl.glUseProgram(1);
+            Core.gl.glBindTexture(GL20.GL_TEXTURE_2D, 5);
+            Core.gl.glDrawArrays(GL20.GL_TRIANGLES, 0, 6);
+            Core.gl.glBindTexture(GL20.GL_TEXTURE_2D, 5);
+            Core.gl.glDrawArrays(GL20.GL_TRIANGLES, 0, 6);
+            Core.gl.glBindTexture(GL20.GL_TEXTURE_2D, 6);
+            Core.gl.glDrawArrays(GL20.GL_TRIANGLES, 0, 6);
+            Core.gl.glBlendFunc(GL20.GL_ONE, GL20.GL_ONE);
+            Core.gl.glBlendFunc(GL20.GL_ONE, GL20.GL_ONE);
+            Core.gl.glUniform1f(0, 1f);
+            Core.gl.glDrawArrays(GL20.GL_TRIANGLES, 0, 6);
+            recorder.frame();
+
+            //frame 1: state carries over from the last frame; a full batch only uploads new vertices
+            Core.gl.glBindTexture(GL20.GL_TEXTURE_2D, 6);
+            Core.gl.glDrawArrays(GL20.GL_TRIANGLES, 0, 6);
+            Core.gl.glBufferData(GL20.GL_ARRAY_BUFFER, 64, Buffers.newFloatBuffer(16), GL20.GL_DYNAMIC_DRAW);
+            Core.gl.glDrawArrays(GL20.GL_TRIANGLES, 0, 6);
+            recorder.frame();
+
+            recorder.dispose();
+            assertFalse(recorder.isEnabled());
+            assertTrue(Core.gl instanceof MockGL);
+        }finally{
+            Core.gl = Core.gl20 = lastGl;
+            Core.graphics = lastGraphics;
+        }
+
+        Seq<FrameStats> frames = new GLTraceAnalyzer().analyze(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(2, frames.size);
+
+        FrameStats first = frames.get(0);
+        assertEquals(11, first.calls);
+        assertEquals(4, first.drawCalls);
+        assertEquals(2, first.redundantCalls);
+        assertEquals(1, first.redundant.get("glBindTexture"));
+        assertEquals(1, first.redundant.get("glBlendFunc"));
+        assertEquals(1, first.breaks.get(GLTraceAnalyzer.causeNone));
+        assertEquals(1, first.breaks.get(GLTraceAnalyzer.causeTexture));
+        assertEquals(1, first.breaks.get(GLTraceAnalyzer.causeBlending));
+        assertEquals(1, first.breaks.get(GLTraceAnalyzer.causeUniform));
+        assertEquals(4, first.breaks.size);
+
+        FrameStats second = frames.get(1);
+        assertEquals(4, second.calls);
+        assertEquals(2, second.drawCalls);
+        assertEquals(1, second.redundantCalls);
+        assertEquals(64, second.bytesUploaded);
+        assertEquals(1, second.breaks.get(GLTraceAnalyzer.causeData));
+        assertEquals(1, second.breaks.size);
+    }
+}
@@ -1,15 +1,24 @@
 import arc.graphics.*;
+import arc.graphics.PixmapIO.*;
+import arc.graphics.PixmapIO.PNG.*;
+import arc.math.*;
 import arc.util.*;
 import org.junit.*;
 
+import java.io.*;
+import java.util.*;
+
 import static org.junit.Assert.*;
 
 public class PixmapTest{
 
-    @Test
-    public void pixmapCreate(){
+    @BeforeClass
+    public static void load(){
         ArcNativesLoader.load();
+    }
 
+    @Test
+    public void pixmapCreate(){
         Pixmap pix = new Pixmap(100, 100);
         pix.setColor(Color.red);
         pix.fillCircle(50, 50, 30);
@@ -18,4 +27,170 @@ public class PixmapTest{
         assertEquals(Color.red.rgba(), pix.getPixel(54, 54));
         assertEquals(0, pix.getPixel(0, 0));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void intAccess(){
+        Pixmap pix = sprite(37, 23, 1);
+        int[] pixels = pix.readPixels(null);
+
+        for(int x = 0; x < pix.getWidth(); x++){
+            for(int y = 0; y < pix.getHeight(); y++){
+                assertEquals(pix.getPixel(x, y), pix.getRaw(x, y));
+                assertEquals(pix.getPixel(x, y), pixels[x + y * pix.getWidth()]);
+            }
+        }
+
+        pix.setRaw(3, 4, 0x11223344);
+        assertEquals(0x11223344, pix.getPixel(3, 4));
+
+        Arrays.fill(pixels, 0xff00ffff);
+        pix.writePixels(pixels);
+        assertEquals(0xff00ffff, pix.getPixel(36, 22));
+    }
+
+    @Test
+    public void outline(){
+        Pixmap pix = sprite(40, 30, 2);
+        Color color = Color.valueOf("ff8000");
+
+        assertPixels(outlineReference(pix, color, 1), Pixmaps.outline(pix, color));
+        for(int thickness = 2; thickness <= 5; thickness++){
+            assertPixels(outlineReference(pix, color, thickness), Pixmaps.outline(pix, color, thickness));
+        }
+    }
+
+    @Test
+    public void scale(){
+        Pixmap pix = sprite(17, 11, 3);
+
+        for(float scale : new float[]{0.5f, 1f, 2f, 3.3f}){
+            Pixmap expected = new Pixmap((int)(pix.getWidth() * scale), (int)(pix.getHeight() * 2f));
+            for(int x = 0; x < expected.getWidth(); x++){
+                for(int y = 0; y < expected.getHeight(); y++){
+                    expected.draw(x, y, pix.getPixel((int)(x / scale), (int)(y / 2f)));
+                }
+            }
+            assertPixels(expected, Pixmaps.scale(pix, scale, 2f));
+        }
+    }
+
+    @Test
+    public void median(){
+        Pixmap pix = sprite(20, 16, 4);
+        Pixmap expected = new Pixmap(pix.getWidth(), pix.getHeight());
+        int[] values = new int[64];
+
+        for(int x = 0; x < pix.getWidth(); x++){
+            for(int y = 0; y < pix.getHeight(); y++){
+                int count = 0;
+                for(int dx = -2; dx <= 2; dx++){
+                    for(int dy = -2; dy <= 2; dy++){
+                        if(pix.in(x + dx, y + dy) && Mathf.within(dx, dy, 2)) values[count++] = pix.getPixel(x + dx, y + dy);
+                    }
+                }
+                Arrays.sort(values, 0, count);
+                expected.draw(x, y, values[Mathf.clamp((int)(count * 0.5), 0, count - 1)]);
+            }
+        }
+
+        assertPixels(expected, Pixmaps.median(pix, 2, 0.5));
+    }
+
+    @Test
+    public void parallelMatchesSerial(){
+        Pixmap pix = sprite(90, 70, 5);
+        Color color = Color.valueOf("00ff80");
+        int threshold = Pixmaps.parallelThreshold;
+
+        try{
+            Pixmaps.parallelThreshold = 0;
+            Pixmap[] parallel = operations(pix, color);
+            Pixmaps.parallel = false;
+            Pixmap[] serial = operations(pix, color);
+
+            for(int i = 0; i < serial.length; i++){
+                assertPixels(serial[i], parallel[i]);
+            }
+        }finally{
+            Pixmaps.parallel = true;
+            Pixmaps.parallelThreshold = threshold;
+        }
+    }
+
+    @Test
+    public void pngRoundTrip() throws IOException{
+        Pixmap pix = sprite(300, 260, 6);
+
+        for(FilterMode filter : FilterMode.values()){
+            for(boolean parallel : new boolean[]{false, true}){
+                PNG png = new PNG();
+                png.setFlipY(false);
+                png.setFilter(filter);
+                png.setParallel(parallel);
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                png.write(out, pix);
+                png.dispose();
+
+                assertPixels(pix, new Pixmap(out.toByteArray()));
+            }
+        }
+    }
+
+    static Pixmap[] operations(Pixmap pix, Color color){
+        Pixmap filled = new Pixmap(pix.getWidth(), pix.getHeight());
+        filled.setColor(color);
+        filled.fill();
+        filled.drawPixmap(pix, 3, -2);
+
+        return new Pixmap[]{
+            Pixmaps.outline(pix, color), Pixmaps.outline(pix, color, 4), Pixmaps.median(pix, 2, 0.5), Pixmaps.scale(pix, 2.5f, 1.5f),
+            Pixmaps.zoom(pix, 2), Pixmaps.rotate(pix, 33f), Pixmaps.huePixmap(50, 40), filled
+        };
+    }
+
+    static Pixmap outlineReference(Pixmap input, Color color, int thickness){
+        Pixmap pixmap = Pixmaps.copy(input);
+        pixmap.setColor(color);
+
+        for(int x = 0; x < pixmap.getWidth(); x++){
+            for(int y = 0; y < pixmap.getHeight(); y++){
+                if(!Pixmaps.empty(input.getPixel(x, y))) continue;
+
+                boolean found = false;
+                for(int dx = -thickness; dx <= thickness && !found; dx++){
+                    for(int dy = -thickness; dy <= thickness; dy++){
+                        if(dx * dx + dy * dy <= thickness * thickness && (thickness > 1 || dx == 0 || dy == 0) && !Pixmaps.empty(input.getPixel(x + dx, y + dy))){
+                            found = true;
+                            break;
+                        }
+                    }
+                }
+                if(found) pixmap.draw(x, y);
+            }
+        }
+        return pixmap;
+    }
+
+    /** @return a pixmap with random translucent blobs and some fully transparent colored pixels. */
+    static Pixmap sprite(int width, int height, long seed){
+        Random rand = new Random(seed);
+        Pixmap pix = new Pixmap(width, height);
+        for(int i = 0; i < 6; i++){
+            pix.setColor(rand.nextInt() | 0x80);
+            pix.fillCircle(rand.nextInt(width), rand.nextInt(height), 1 + rand.nextInt(4));
+        }
+        pix.setRaw(0, 0, 0x12345600);
+        return pix;
+    }
+
+    static void assertPixels(Pixmap expected, Pixmap actual){
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for(int x = 0; x < expected.getWidth(); x++){
+            for(int y = 0; y < expected.getHeight(); y++){
+                assertEquals("pixel at " + x + ", " + y, expected.getPixel(x, y), actual.getPixel(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import arc.*;
+import arc.graphics.*;
+import arc.graphics.g2d.*;
+import arc.mock.*;
+import arc.func.*;
+import arc.struct.*;
+import arc.util.*;
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+public class SortedBatchTest{
+    static Texture textureA, textureB;
+    Seq<String> log = new Seq<>();
+
+    @BeforeClass
+    public static void load(){
+        ArcNativesLoader.load();
+        Core.gl = Core.gl20 = new MockGL();
+        Core.graphics = new MockGraphics();
+        textureA = new Texture(new Pixmap(1, 1));
+        textureB = new Texture(new Pixmap(1, 1));
+    }
+
+    @Test
+    public void sortedBatchKeepsRunnablesInPlace(){
+        check(() -> {
+            SortedSpriteBatch batch = new SortedSpriteBatch(){
+                @Override
+                protected void switchTexture(Texture texture){
+                    if(flushing) record(texture);
+                    super.switchTexture(texture);
+                }
+            };
+            batch.sortByState = true;
+            batch.zBucket = 1f;
+            return batch;
+        });
+    }
+
+    @Test
+    public void radixSortedBatchKeepsRunnablesInPlace(){
+        check(() -> {
+            RadixSortedSpriteBatch batch = new RadixSortedSpriteBatch(){
+                @Override
+                protected void switchTexture(Texture texture){
+                    if(flushing) record(texture);
+                    super.switchTexture(texture);
+                }
+            };
+            batch.sortByState = true;
+            batch.zBucket = 1f;
+            return batch;
+        });
+    }
+
+    @Test
+    public void radixSortedBatchRejectsPartialSprites(){
+        Batch last = Core.batch;
+        try{
+            begin(new RadixSortedSpriteBatch());
+            float[] vertices = new float[SpriteBatch.SPRITE_SIZE * 2];
+            Draw.vert(textureA, vertices, 0, vertices.length);
+            try{
+                Draw.vert(textureA, vertices, 0, SpriteBatch.SPRITE_SIZE + 1);
+                fail("Partial sprites must not be queued.");
+            }catch(IllegalArgumentException expected){
+            }
+            Draw.flush();
+            Draw.sort(false);
+        }finally{
+            Core.batch = last;
+        }
+    }
+
+    void record(Texture texture){
+        log.add(texture == textureA ? "a" : "b");
+    }
+
+    /** Logs texture switches and runnables; sprites sharing a texture are only logged once. */
+    void check(Prov<Batch> batches){
+        Batch last = Core.batch;
+        try{
+            //the whole range is in one Z bucket, but begin and end must still enclose the sprites
+            begin(batches.get());
+            Draw.drawRange(5f, () -> log.add("begin"), () -> log.add("end"));
+            Draw.z(5f);
+            rect(textureB);
+            rect(textureA);
+            rect(textureB);
+            rect(textureA);
+            Draw.flush();
+            assertEquals(Seq.with("begin", "a", "b", "end"), log);
+
+            //a runnable at the same Z as sprites stays between the sprites queued before and after it
+            begin(batches.get());
+            Draw.z(1f);
+            rect(textureB);
+            Draw.draw(1f, () -> log.add("run"));
+            rect(textureB);
+            rect(textureA);
+            Draw.flush();
+            assertEquals(Seq.with("b", "run", "a", "b"), log);
+            Draw.sort(false);
+        }finally{
+            Core.batch = last;
+        }
+    }
+
+    void begin(Batch batch){
+        log.clear();
+        Core.batch = batch;
+        Draw.sort(true);
+    }
+
+    void rect(Texture texture){
+        Draw.rect(new TextureRegion(texture), 0f, 0f, 1f, 1f);
+    }
+}
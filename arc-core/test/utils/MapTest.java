@@ -0,0 +1,264 @@
+package utils;
+
+import arc.struct.*;
+import org.junit.*;
+
+import java.util.*;
+import java.util.function.*;
+
+import static org.junit.Assert.*;
+
+public class MapTest{
+
+    @Test
+    public void objectMapMatchesHashMap(){
+        Random rand = new Random(1);
+        ObjectMap<Integer, Integer> map = new ObjectMap<>(4);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+
+        for(int i = 0; i < 50000; i++){
+            //small key range, so removals often hit probe runs that wrap around the table
+            Integer key = rand.nextInt(2000) * 64;
+            if(rand.nextInt(3) == 0){
+                assertEquals(expected.remove(key), map.remove(key));
+            }else{
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            assertEquals(expected.size(), map.size);
+        }
+
+        for(Map.Entry<Integer, Integer> entry : expected.entrySet()){
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        int count = 0;
+        for(ObjectMap.Entry<Integer, Integer> entry : map){
+            assertEquals(expected.get(entry.key), entry.value);
+            count++;
+        }
+        assertEquals(expected.size(), count);
+    }
+
+    @Test
+    public void iteratorRemoveVisitsEveryKey(){
+        ObjectMap<Integer, Integer> map = new ObjectMap<>();
+        IntMap<Integer> intMap = new IntMap<>();
+        ObjectSet<Integer> set = new ObjectSet<>();
+        IntSet intSet = new IntSet();
+        for(int i = 0; i < 1000; i++){
+            map.put(i * 7, i);
+            intMap.put(i * 7, i);
+            set.add(i * 7);
+            intSet.add(i * 7);
+        }
+
+        //remove every other key while iterating; shifted keys must not be skipped or visited twice
+        HashSet<Integer> seen = new HashSet<>(), kept = new HashSet<>();
+        int index = 0;
+        for(Iterator<ObjectMap.Entry<Integer, Integer>> it = map.entries(); it.hasNext(); ){
+            int key = it.next().key;
+            assertTrue(seen.add(key));
+            if(index++ % 2 == 0) it.remove();
+            else kept.add(key);
+        }
+        assertEquals(1000, seen.size());
+        assertEquals(500, map.size);
+        for(int i = 0; i < 1000; i++) assertEquals(kept.contains(i * 7), map.containsKey(i * 7));
+
+        seen.clear();
+        kept.clear();
+        index = 0;
+        for(IntMap.Entries<Integer> it = intMap.entries(); it.hasNext(); ){
+            int key = it.next().key;
+            assertTrue(seen.add(key));
+            if(index++ % 2 == 0) it.remove();
+            else kept.add(key);
+        }
+        assertEquals(1000, seen.size());
+        assertEquals(500, intMap.size);
+        for(int i = 0; i < 1000; i++) assertEquals(kept.contains(i * 7), intMap.containsKey(i * 7));
+
+        seen.clear();
+        kept.clear();
+        index = 0;
+        for(Iterator<Integer> it = set.iterator(); it.hasNext(); ){
+            int key = it.next();
+            assertTrue(seen.add(key));
+            if(index++ % 2 == 0) it.remove();
+            else kept.add(key);
+        }
+        assertEquals(1000, seen.size());
+        assertEquals(500, set.size);
+        for(int i = 0; i < 1000; i++) assertEquals(kept.contains(i * 7), set.contains(i * 7));
+
+        seen.clear();
+        kept.clear();
+        index = 0;
+        for(IntSet.IntSetIterator it = intSet.iterator(); it.hasNext; ){
+            int key = it.next();
+            assertTrue(seen.add(key));
+            if(index++ % 2 == 0) it.remove();
+            else kept.add(key);
+        }
+        assertEquals(1000, seen.size());
+        assertEquals(500, intSet.size);
+        for(int i = 0; i < 1000; i++) assertEquals(kept.contains(i * 7), intSet.contains(i * 7));
+    }
+
+    @Test
+    public void iteratorRemoveWrappedRun(){
+        //both keys belong in the last slot, so 8 wraps around to the first one and is shifted back when 3 is removed
+        IntMap<String> map = new IntMap<>(1);
+        map.put(3, "a");
+        map.put(8, "b");
+
+        IntSeq visited = new IntSeq();
+        for(IntMap.Entries<String> it = map.entries(); it.hasNext(); ){
+            int key = it.next().key;
+            visited.add(key);
+            if(key == 3) it.remove();
+        }
+        visited.sort();
+        assertEquals(IntSeq.with(3, 8), visited);
+        assertEquals(1, map.size);
+        assertEquals("b", map.get(8));
+    }
+
+    @Test
+    public void iteratorRemoveMatchesHashSet(){
+        Random rand = new Random(3);
+        for(int trial = 0; trial < 2000; trial++){
+            ObjectMap<Integer, Integer> objects = new ObjectMap<>(2);
+            IntMap<Integer> ints = new IntMap<>(2);
+            LongMap<Integer> longs = new LongMap<>(2);
+            IntIntMap intInts = new IntIntMap(2);
+            ObjectIntMap<Integer> objectInts = new ObjectIntMap<>(2);
+            ObjectFloatMap<Integer> objectFloats = new ObjectFloatMap<>(2);
+            IntSet intSet = new IntSet(2);
+            ObjectSet<Integer> objectSet = new ObjectSet<>(2);
+            HashSet<Integer> expected = new HashSet<>();
+
+            //few keys from a small range, so probe runs often wrap around small tables
+            for(int i = 0, n = rand.nextInt(40); i < n; i++){
+                int key = rand.nextInt(64);
+                objects.put(key, key);
+                ints.put(key, key);
+                longs.put(key, key);
+                intInts.put(key, key);
+                objectInts.put(key, key);
+                objectFloats.put(key, key);
+                intSet.add(key);
+                objectSet.add(key);
+                expected.add(key);
+            }
+
+            long seed = rand.nextLong();
+            checkRemoval(seed, objects.entries(), e -> e.key, expected, () -> objects.size);
+            checkRemoval(seed, ints.entries(), e -> e.key, expected, () -> ints.size);
+            checkRemoval(seed, longs.entries(), e -> (int)e.key, expected, () -> longs.size);
+            checkRemoval(seed, intInts.entries(), e -> e.key, expected, () -> intInts.size);
+            checkRemoval(seed, objectInts.entries(), e -> e.key, expected, () -> objectInts.size);
+            checkRemoval(seed, objectFloats.entries(), e -> e.key, expected, () -> objectFloats.size);
+            checkRemoval(seed, objectSet.iterator(), e -> e, expected, () -> objectSet.size);
+
+            IntSet.IntSetIterator it = intSet.iterator();
+            checkRemoval(seed, new Iterator<Integer>(){
+                public boolean hasNext(){
+                    return it.hasNext;
+                }
+
+                public Integer next(){
+                    return it.next();
+                }
+
+                public void remove(){
+                    it.remove();
+                }
+            }, e -> e, expected, () -> intSet.size);
+        }
+    }
+
+    /** Iterates over a map, removing random keys, and checks that every key is visited exactly once and the right ones remain. */
+    private static <T> void checkRemoval(long seed, Iterator<T> it, Function<T, Integer> key, Set<Integer> expected, IntSupplier size){
+        Random rand = new Random(seed);
+        HashSet<Integer> seen = new HashSet<>(), kept = new HashSet<>();
+        while(it.hasNext()){
+            Integer k = key.apply(it.next());
+            assertTrue("visited twice: " + k, seen.add(k));
+            if(rand.nextBoolean()){
+                it.remove();
+            }else{
+                kept.add(k);
+            }
+        }
+        assertEquals(expected, seen);
+        assertEquals(kept.size(), size.getAsInt());
+    }
+
+    @Test
+    public void primitiveMapsMatchHashMap(){
+        Random rand = new Random(2);
+        IntIntMap intInt = new IntIntMap();
+        LongMap<Integer> longs = new LongMap<>();
+        ObjectIntMap<String> objectInt = new ObjectIntMap<>();
+        ObjectFloatMap<String> objectFloat = new ObjectFloatMap<>();
+        IntSet ints = new IntSet();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+
+        for(int i = 0; i < 50000; i++){
+            //includes key 0, which is stored outside the table
+            int key = rand.nextInt(1500) - 20;
+            if(rand.nextInt(3) == 0){
+                Integer old = expected.remove(key);
+                int fallback = -1;
+                assertEquals(old == null ? fallback : old, intInt.remove(key, fallback));
+                assertEquals(old, longs.remove(((long)key << 32) | key));
+                assertEquals(old == null ? fallback : old, objectInt.remove("k" + key, fallback));
+                assertEquals(old == null ? fallback : old, objectFloat.remove("k" + key, fallback), 0f);
+                assertEquals(old != null, ints.remove(key));
+            }else{
+                expected.put(key, i);
+                intInt.put(key, i);
+                longs.put(((long)key << 32) | key, i);
+                objectInt.put("k" + key, i);
+                objectFloat.put("k" + key, i);
+                ints.add(key);
+            }
+        }
+
+        assertEquals(expected.size(), intInt.size);
+        assertEquals(expected.size(), longs.size);
+        assertEquals(expected.size(), objectInt.size);
+        assertEquals(expected.size(), objectFloat.size);
+        assertEquals(expected.size(), ints.size);
+
+        for(int key = -20; key < 1480; key++){
+            Integer value = expected.get(key);
+            assertEquals(value == null ? -1 : value, intInt.get(key, -1));
+            assertEquals(value, longs.get(((long)key << 32) | key));
+            assertEquals(value == null ? -1 : value, objectInt.get("k" + key, -1));
+            assertEquals(value == null ? -1 : value, objectFloat.get("k" + key, -1), 0f);
+            assertEquals(value != null, ints.contains(key));
+        }
+    }
+
+    @Test
+    public void shrinkAndClearKeepContents(){
+        IntMap<String> map = new IntMap<>();
+        for(int i = 0; i < 10000; i++) map.put(i, "v" + i);
+        for(int i = 100; i < 10000; i++) map.remove(i);
+
+        map.shrink(0);
+        assertEquals(100, map.size);
+        for(int i = 0; i < 100; i++) assertEquals("v" + i, map.get(i));
+
+        IntIntMap counts = new IntIntMap();
+        for(int i = 0; i < 1000; i++) counts.increment(i % 10);
+        for(int i = 0; i < 10; i++) assertEquals(100, counts.get(i));
+
+        counts.clear(1);
+        assertEquals(0, counts.size);
+        assertFalse(counts.containsKey(0));
+        assertFalse(counts.containsKey(5));
+    }
+}
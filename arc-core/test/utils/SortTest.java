@@ -0,0 +1,59 @@
+package utils;
+
+import arc.struct.*;
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SortTest{
+
+    @Test
+    public void radixSortOrdersKeys(){
+        Random rand = new Random(1);
+        Sort sort = new Sort();
+
+        for(int size : new int[]{0, 1, 2, 17, 1000, 20000}){
+            long[] keys = new long[size];
+            int[] values = new int[size];
+            for(int i = 0; i < size; i++){
+                keys[i] = rand.nextLong();
+                values[i] = i;
+            }
+            long[] expected = keys.clone();
+            for(int i = 0; i < size; i++) expected[i] ^= Long.MIN_VALUE;
+            Arrays.sort(expected);
+            for(int i = 0; i < size; i++) expected[i] ^= Long.MIN_VALUE;
+
+            long[] original = keys.clone();
+            sort.radixSort(keys, values, size);
+
+            for(int i = 0; i < size; i++){
+                assertEquals(expected[i], keys[i]);
+                assertEquals(original[values[i]], keys[i]);
+            }
+        }
+    }
+
+    @Test
+    public void radixSortIsStable(){
+        Sort sort = new Sort();
+        int size = 5000;
+        long[] keys = new long[size];
+        int[] values = new int[size];
+        for(int i = 0; i < size; i++){
+            keys[i] = (long)(i % 7) << 32;
+            values[i] = i;
+        }
+
+        sort.radixSort(keys, values, size);
+
+        for(int i = 1; i < size; i++){
+            assertTrue(keys[i - 1] <= keys[i]);
+            if(keys[i - 1] == keys[i]){
+                assertTrue("Equal keys changed order", values[i - 1] < values[i]);
+            }
+        }
+    }
+}
@@ -233,7 +233,7 @@ public class AndroidGraphics extends Graphics implements Renderer{
         this.width = width;
         this.height = height;
         updatePpi();
-        gl.glViewport(0, 0, this.width, this.height);
+        Gl.viewport(0, 0, this.width, this.height);
         if(!created){
             for(ApplicationListener list : app.getListeners()){
                 list.init();
@@ -253,6 +253,8 @@ public class AndroidGraphics extends Graphics implements Renderer{
     public void onSurfaceCreated(javax.microedition.khronos.opengles.GL10 gl, EGLConfig config){
         eglContext = ((EGL10)EGLContext.getEGL()).eglGetCurrentContext();
         setupGL(gl);
+        //a new context has none of the state Gl remembers
+        Gl.reset();
         logConfig(config);
         updatePpi();
 
@@ -262,7 +264,7 @@ public class AndroidGraphics extends Graphics implements Renderer{
         this.mean = new WindowedMean(5);
         this.lastFrameTime = System.nanoTime();
 
-        gl.glViewport(0, 0, this.width, this.height);
+        Gl.viewport(0, 0, this.width, this.height);
     }
 
     protected void logConfig(EGLConfig config){
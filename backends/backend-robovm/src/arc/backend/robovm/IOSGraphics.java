@@ -187,6 +187,8 @@ public class IOSGraphics extends Graphics{
 
     public void draw(GLKView view, CGRect rect){
         makeCurrent();
+        // GLKView binds its own framebuffer and viewport before each draw, so nothing Gl remembers is reliable
+        Gl.reset();
         // massive hack, GLKView resets the viewport on each draw call, so IOSGLES20
         // stores the last known viewport and we reset it here...
         gl20.glViewport(IOSGLES20.x, IOSGLES20.y, IOSGLES20.width, IOSGLES20.height);
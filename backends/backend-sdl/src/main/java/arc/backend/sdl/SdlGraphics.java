@@ -81,7 +81,7 @@ public class SdlGraphics extends Graphics{
         backBufferWidth = width;
         backBufferHeight = height;
 
-        gl20.glViewport(0, 0, width, height);
+        Gl.viewport(0, 0, width, height);
     }
 
     @Override
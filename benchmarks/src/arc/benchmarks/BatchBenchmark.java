@@ -0,0 +1,141 @@
+package arc.benchmarks;
+
+import arc.*;
+import arc.graphics.*;
+import arc.graphics.Pixmap.*;
+import arc.graphics.g2d.*;
+import arc.mock.*;
+import arc.util.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks for sprite batching. GL calls go to a {@link MockGL}, so this measures the CPU side of drawing: vertex generation,
+ * request sorting and buffer copies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark{
+    static final int sprites = 10000;
+
+    @Param({"sprite", "sorted", "radix"})
+    String type;
+
+    Batch batch;
+    TextureRegion[] regions;
+    float[] xs = new float[sprites], ys = new float[sprites], zs = new float[sprites], rotations = new float[sprites];
+
+    @Setup
+    public void setup(){
+        ArcNativesLoader.load();
+        Core.graphics = new MockGraphics();
+        Core.gl = Core.gl20 = new MockGL();
+
+        switch(type){
+            case "sorted": batch = new SortedSpriteBatch(); break;
+            case "radix": batch = new RadixSortedSpriteBatch(); break;
+            default: batch = new SpriteBatch();
+        }
+        Core.batch = batch;
+
+        regions = new TextureRegion[4];
+        for(int i = 0; i < regions.length; i++){
+            regions[i] = new TextureRegion(new Texture(new EmptyTextureData(256, 256)));
+        }
+
+        Random rand = new Random(0);
+        for(int i = 0; i < sprites; i++){
+            xs[i] = rand.nextFloat() * 1000f;
+            ys[i] = rand.nextFloat() * 1000f;
+            zs[i] = rand.nextInt(8);
+            rotations[i] = rand.nextInt(4) == 0 ? rand.nextFloat() * 360f : 0f;
+        }
+    }
+
+    @TearDown
+    public void dispose(){
+        batch.dispose();
+        for(TextureRegion region : regions){
+            region.texture.dispose();
+        }
+    }
+
+    @Benchmark
+    public void draw(){
+        boolean sort = !type.equals("sprite");
+        Draw.sort(sort);
+        for(int i = 0; i < sprites; i++){
+            if(sort) Draw.z(zs[i]);
+            //a few textures, so unsorted batches flush on texture switches like real scenes do
+            Draw.rect(regions[(i >> 6) & 3], xs[i], ys[i], 16f, 16f, rotations[i]);
+        }
+        Draw.flush();
+        Draw.sort(false);
+    }
+
+    /** Texture data that uploads nothing, for use with {@link MockGL}. */
+    static class EmptyTextureData implements TextureData{
+        final int width, height;
+
+        EmptyTextureData(int width, int height){
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean isCustom(){
+            return true;
+        }
+
+        @Override
+        public boolean isPrepared(){
+            return true;
+        }
+
+        @Override
+        public void prepare(){
+
+        }
+
+        @Override
+        public Pixmap consumePixmap(){
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean disposePixmap(){
+            return false;
+        }
+
+        @Override
+        public void consumeCustomData(int target){
+
+        }
+
+        @Override
+        public int getWidth(){
+            return width;
+        }
+
+        @Override
+        public int getHeight(){
+            return height;
+        }
+
+        @Override
+        public Format getFormat(){
+            return Format.rgba8888;
+        }
+
+        @Override
+        public boolean useMipMaps(){
+            return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package arc.benchmarks;
+
+import arc.math.*;
+import arc.math.geom.*;
+import arc.math.geom.QuadTree.*;
+import arc.struct.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/** Benchmarks for {@link Mathf}, {@link Angles}, {@link Intersector} and {@link QuadTree}. Each call processes a batch of random inputs. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MathBenchmark{
+    static final int count = 1024;
+
+    float[] xs = new float[count], ys = new float[count], angles = new float[count];
+    float[] polygon;
+    Seq<Box> boxes = new Seq<>();
+    QuadTree<Box> tree;
+    Seq<Box> results = new Seq<>();
+    Vec2 intersection = new Vec2();
+
+    static class Box implements QuadTreeObject{
+        final Rect rect;
+
+        Box(float x, float y, float size){
+            rect = new Rect(x, y, size, size);
+        }
+
+        @Override
+        public void hitbox(Rect out){
+            out.set(rect);
+        }
+    }
+
+    @Setup
+    public void setup(){
+        Random rand = new Random(0);
+        for(int i = 0; i < count; i++){
+            xs[i] = rand.nextFloat() * 2000f - 1000f;
+            ys[i] = rand.nextFloat() * 2000f - 1000f;
+            angles[i] = rand.nextFloat() * 720f - 360f;
+        }
+
+        polygon = new float[64];
+        for(int i = 0; i < polygon.length; i += 2){
+            float angle = i / (float)polygon.length * 360f;
+            float radius = 400f + (i % 4 == 0 ? 200f : 0f);
+            polygon[i] = Mathf.cosDeg(angle) * radius;
+            polygon[i + 1] = Mathf.sinDeg(angle) * radius;
+        }
+
+        tree = new QuadTree<>(new Rect(-1000f, -1000f, 2000f, 2000f));
+        for(int i = 0; i < 4000; i++){
+            Box box = new Box(rand.nextFloat() * 1980f - 1000f, rand.nextFloat() * 1980f - 1000f, 4f + rand.nextFloat() * 16f);
+            boxes.add(box);
+            tree.insert(box);
+        }
+    }
+
+    @Benchmark
+    public float sinCos(){
+        float sum = 0f;
+        for(int i = 0; i < count; i++){
+            sum += Mathf.sinDeg(angles[i]) + Mathf.cosDeg(angles[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float atan2(){
+        float sum = 0f;
+        for(int i = 0; i < count; i++){
+            sum += Mathf.atan2(xs[i], ys[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float angle(){
+        float sum = 0f;
+        for(int i = 0; i < count; i++){
+            sum += Angles.angle(xs[i], ys[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float moveToward(){
+        float sum = 0f;
+        for(int i = 1; i < count; i++){
+            sum += Angles.moveToward(angles[i - 1], angles[i], 5f) + Angles.angleDist(angles[i - 1], angles[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intersectSegments(){
+        int hits = 0;
+        for(int i = 3; i < count; i += 4){
+            if(Intersector.intersectSegments(xs[i - 3], ys[i - 3], xs[i - 2], ys[i - 2], xs[i - 1], ys[i - 1], xs[i], ys[i], intersection)) hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int pointInPolygon(){
+        int hits = 0;
+        for(int i = 0; i < count; i++){
+            if(Intersector.isInPolygon(polygon, 0, polygon.length, xs[i], ys[i])) hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public QuadTree<Box> quadTreeBuild(){
+        QuadTree<Box> tree = new QuadTree<>(new Rect(-1000f, -1000f, 2000f, 2000f));
+        for(int i = 0; i < boxes.size; i++){
+            tree.insert(boxes.get(i));
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public int quadTreeIntersect(){
+        int found = 0;
+        for(int i = 0; i < count; i++){
+            results.clear();
+            tree.intersect(xs[i], ys[i], 50f, 50f, results::add);
+            found += results.size;
+        }
+        return found;
+    }
+}
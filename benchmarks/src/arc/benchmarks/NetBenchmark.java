@@ -0,0 +1,184 @@
+package arc.benchmarks;
+
+import arc.net.*;
+import arc.net.FrameworkMessage.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Benchmarks for arcnet. {@link #serialize()} measures framing and serialization of a typical state message, and
+ * {@link #tcpThroughput()} measures a client sending a burst of messages to a local server, including the write queue and
+ * selector loops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetBenchmark{
+    static final int burst = 256;
+
+    @Param({"54590"})
+    int port;
+
+    BenchSerializer serializer = new BenchSerializer();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16384);
+    EntityState[] states = new EntityState[64];
+    Server server;
+    Client client;
+    AtomicInteger received = new AtomicInteger();
+
+    public static class EntityState{
+        public int id;
+        public float x, y, rotation;
+        public String name;
+    }
+
+    @Setup
+    public void setup() throws IOException{
+        for(int i = 0; i < states.length; i++){
+            EntityState state = states[i] = new EntityState();
+            state.id = i;
+            state.x = i * 8f;
+            state.y = i * -3f;
+            state.rotation = i * 11f;
+            state.name = "entity-" + i;
+        }
+
+        server = new Server(1024 * 1024, 8192, new BenchSerializer());
+        server.addListener(new NetListener(){
+            @Override
+            public void received(Connection connection, Object object){
+                if(object instanceof EntityState) received.incrementAndGet();
+            }
+        });
+        server.bind(port);
+        server.start();
+
+        client = new Client(1024 * 1024, 8192, new BenchSerializer());
+        client.start();
+        client.connect(5000, "127.0.0.1", port);
+    }
+
+    @TearDown
+    public void dispose() throws IOException{
+        client.stop();
+        client.dispose();
+        server.stop();
+        server.dispose();
+    }
+
+    @Benchmark
+    public int serialize(){
+        ByteBuffer buffer = this.buffer;
+        buffer.clear();
+        for(EntityState state : states){
+            int start = buffer.position();
+            buffer.position(start + serializer.getLengthLength());
+            serializer.write(buffer, state);
+            int end = buffer.position();
+            buffer.position(start);
+            serializer.writeLength(buffer, end - start - serializer.getLengthLength());
+            buffer.position(end);
+        }
+
+        buffer.flip();
+        int read = 0;
+        while(buffer.hasRemaining()){
+            int length = serializer.readLength(buffer);
+            int end = buffer.position() + length;
+            if(serializer.read(buffer) != null) read++;
+            buffer.position(end);
+        }
+        return read;
+    }
+
+    @Benchmark
+    public int tcpThroughput(){
+        int target = received.get() + burst;
+        for(int i = 0; i < burst; i++){
+            client.sendTCP(states[i % states.length]);
+        }
+        while(received.get() < target){
+            Thread.yield();
+        }
+        return target;
+    }
+
+    /** A minimal serializer for framework messages and {@link EntityState}. */
+    static class BenchSerializer implements NetSerializer{
+        @Override
+        public void write(ByteBuffer buffer, Object object){
+            if(object instanceof EntityState){
+                EntityState state = (EntityState)object;
+                buffer.put((byte)1);
+                buffer.putInt(state.id);
+                buffer.putFloat(state.x);
+                buffer.putFloat(state.y);
+                buffer.putFloat(state.rotation);
+                byte[] name = state.name.getBytes(StandardCharsets.UTF_8);
+                buffer.putShort((short)name.length);
+                buffer.put(name);
+            }else if(object instanceof Ping){
+                Ping ping = (Ping)object;
+                buffer.put((byte)-1);
+                buffer.putInt(ping.id);
+                buffer.put(ping.isReply ? (byte)1 : 0);
+            }else if(object instanceof RegisterTCP){
+                buffer.put((byte)-2);
+                buffer.putInt(((RegisterTCP)object).connectionID);
+            }else if(object instanceof RegisterUDP){
+                buffer.put((byte)-3);
+                buffer.putInt(((RegisterUDP)object).connectionID);
+            }else if(object instanceof KeepAlive){
+                buffer.put((byte)-4);
+            }else if(object instanceof DiscoverHost){
+                buffer.put((byte)-5);
+            }else{
+                throw new IllegalArgumentException("Unknown object: " + object);
+            }
+        }
+
+        @Override
+        public Object read(ByteBuffer buffer){
+            byte id = buffer.get();
+            switch(id){
+                case 1:
+                    EntityState state = new EntityState();
+                    state.id = buffer.getInt();
+                    state.x = buffer.getFloat();
+                    state.y = buffer.getFloat();
+                    state.rotation = buffer.getFloat();
+                    byte[] name = new byte[buffer.getShort()];
+                    buffer.get(name);
+                    state.name = new String(name, StandardCharsets.UTF_8);
+                    return state;
+                case -1:
+                    Ping ping = new Ping();
+                    ping.id = buffer.getInt();
+                    ping.isReply = buffer.get() == 1;
+                    return ping;
+                case -2:
+                    RegisterTCP tcp = new RegisterTCP();
+                    tcp.connectionID = buffer.getInt();
+                    return tcp;
+                case -3:
+                    RegisterUDP udp = new RegisterUDP();
+                    udp.connectionID = buffer.getInt();
+                    return udp;
+                case -4:
+                    return FrameworkMessage.keepAlive;
+                case -5:
+                    return new DiscoverHost();
+                default:
+                    throw new IllegalArgumentException("Unknown message: " + id);
+            }
+        }
+    }
+}
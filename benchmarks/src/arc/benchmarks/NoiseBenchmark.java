@@ -0,0 +1,63 @@
+package arc.benchmarks;
+
+import arc.util.noise.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.*;
+
+/** Benchmarks for {@link Noise} and {@link Simplex}, sampling a 64x64 grid per call. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseBenchmark{
+    static final int size = 64;
+
+    Simplex simplex = new Simplex(0);
+
+    @Benchmark
+    public double noiseRaw(){
+        double sum = 0;
+        for(int x = 0; x < size; x++){
+            for(int y = 0; y < size; y++){
+                sum += Noise.rawNoise(x * 0.1, y * 0.1);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float noiseScaled(){
+        float sum = 0;
+        for(int x = 0; x < size; x++){
+            for(int y = 0; y < size; y++){
+                sum += Noise.snoise(x, y, 30f, 1f);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double simplexOctave2D(){
+        double sum = 0;
+        for(int x = 0; x < size; x++){
+            for(int y = 0; y < size; y++){
+                sum += simplex.octaveNoise2D(4, 0.5, 1.0 / 40.0, x, y);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double simplexOctave3D(){
+        double sum = 0;
+        for(int x = 0; x < size; x++){
+            for(int y = 0; y < size; y++){
+                sum += simplex.octaveNoise3D(4, 0.5, 1.0 / 40.0, x, y, 17);
+            }
+        }
+        return sum;
+    }
+}
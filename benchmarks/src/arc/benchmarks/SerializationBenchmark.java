@@ -0,0 +1,102 @@
+package arc.benchmarks;
+
+import arc.struct.*;
+import arc.util.serialization.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/** Benchmarks for {@link Json}, {@link JsonReader}, {@link UBJsonReader} and {@link Jval}, using the same document for each. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark{
+    Json json;
+    JsonReader jsonReader;
+    UBJsonReader ubjsonReader;
+    Document document;
+    String text;
+    byte[] binary;
+
+    public static class Document{
+        public String name;
+        public int version;
+        public float[] weights;
+        public Seq<Item> items = new Seq<>();
+    }
+
+    public static class Item{
+        public String id;
+        public int amount;
+        public float x, y;
+        public boolean enabled;
+    }
+
+    @Setup
+    public void setup() throws IOException{
+        json = new Json();
+        //plain JSON output, so the same text can be read by Jval
+        json.setOutputType(JsonWriter.OutputType.json);
+        jsonReader = new JsonReader();
+        ubjsonReader = new UBJsonReader();
+
+        document = new Document();
+        document.name = "benchmark";
+        document.version = 3;
+        document.weights = new float[64];
+        for(int i = 0; i < document.weights.length; i++){
+            document.weights[i] = i * 0.25f;
+        }
+        for(int i = 0; i < 200; i++){
+            Item item = new Item();
+            item.id = "item-" + i;
+            item.amount = i * 7;
+            item.x = i * 1.5f;
+            item.y = -i;
+            item.enabled = i % 3 == 0;
+            document.items.add(item);
+        }
+
+        text = json.toJson(document);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UBJsonWriter writer = new UBJsonWriter(bytes);
+        writer.value(jsonReader.parse(text));
+        writer.close();
+        binary = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public String jsonWrite(){
+        return json.toJson(document);
+    }
+
+    @Benchmark
+    public Document jsonRead(){
+        return json.fromJson(Document.class, text);
+    }
+
+    @Benchmark
+    public JsonValue jsonReaderParse(){
+        return jsonReader.parse(text);
+    }
+
+    @Benchmark
+    public JsonValue ubjsonReaderParse(){
+        return ubjsonReader.parse(new ByteArrayInputStream(binary));
+    }
+
+    @Benchmark
+    public Jval jvalRead(){
+        return Jval.read(text);
+    }
+
+    @Benchmark
+    public String jvalReadWrite(){
+        return Jval.read(text).toString();
+    }
+}
@@ -0,0 +1,245 @@
+package arc.benchmarks;
+
+import arc.struct.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/** Benchmarks for {@link Seq} and the {@code arc.struct} maps. Keys are shuffled, so lookups do not walk the table in order. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructBenchmark{
+    @Param({"100", "10000"})
+    int size;
+
+    int[] keys;
+    Integer[] boxedKeys;
+    Seq<Integer> seq;
+    ObjectMap<Integer, Integer> objectMap;
+    IntMap<Integer> intMap;
+    IntIntMap intIntMap;
+    ObjectIntMap<Integer> objectIntMap;
+    ObjectSet<Integer> objectSet;
+    IntSet intSet;
+    HashMap<Integer, Integer> hashMap;
+
+    @Setup
+    public void setup(){
+        Random rand = new Random(0);
+        keys = new int[size];
+        boxedKeys = new Integer[size];
+        for(int i = 0; i < size; i++){
+            keys[i] = i * 31;
+        }
+        for(int i = size - 1; i > 0; i--){
+            int j = rand.nextInt(i + 1), tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+
+        seq = new Seq<>(size);
+        objectMap = new ObjectMap<>();
+        intMap = new IntMap<>();
+        intIntMap = new IntIntMap();
+        objectIntMap = new ObjectIntMap<>();
+        objectSet = new ObjectSet<>();
+        intSet = new IntSet();
+        hashMap = new HashMap<>();
+        for(int i = 0; i < size; i++){
+            Integer key = boxedKeys[i] = keys[i];
+            seq.add(key);
+            objectMap.put(key, key);
+            intMap.put(keys[i], key);
+            intIntMap.put(keys[i], i);
+            objectIntMap.put(key, i);
+            objectSet.add(key);
+            intSet.add(keys[i]);
+            hashMap.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public Seq<Integer> seqAdd(){
+        Seq<Integer> out = new Seq<>();
+        for(Integer key : boxedKeys){
+            out.add(key);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public int seqGet(){
+        int sum = 0;
+        for(int i = 0, n = seq.size; i < n; i++){
+            sum += seq.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int seqIterate(){
+        int sum = 0;
+        for(Integer value : seq){
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Seq<Integer> seqRemove(){
+        Seq<Integer> copy = new Seq<>(seq);
+        while(copy.size > 0){
+            copy.remove(copy.size / 2);
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public void seqSort(Blackhole hole){
+        Seq<Integer> copy = new Seq<>(seq);
+        copy.sort();
+        hole.consume(copy);
+    }
+
+    @Benchmark
+    public ObjectMap<Integer, Integer> objectMapPut(){
+        ObjectMap<Integer, Integer> map = new ObjectMap<>();
+        for(Integer key : boxedKeys){
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public int objectMapGet(){
+        int sum = 0;
+        for(Integer key : boxedKeys){
+            sum += objectMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int objectMapGetMissing(){
+        int sum = 0;
+        for(int key : keys){
+            if(objectMap.get(key + 1) == null) sum++;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public ObjectMap<Integer, Integer> objectMapRemove(){
+        ObjectMap<Integer, Integer> map = new ObjectMap<>(objectMap);
+        for(Integer key : boxedKeys){
+            map.remove(key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public int objectMapIterate(){
+        int sum = 0;
+        for(ObjectMap.Entry<Integer, Integer> entry : objectMap){
+            sum += entry.value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public IntMap<Integer> intMapPut(){
+        IntMap<Integer> map = new IntMap<>();
+        for(int i = 0; i < keys.length; i++){
+            map.put(keys[i], boxedKeys[i]);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public int intMapGet(){
+        int sum = 0;
+        for(int key : keys){
+            sum += intMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public IntMap<Integer> intMapRemove(){
+        IntMap<Integer> map = new IntMap<>(intMap);
+        for(int key : keys){
+            map.remove(key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public int intMapIterate(){
+        int sum = 0;
+        for(IntMap.Entry<Integer> entry : intMap){
+            sum += entry.key;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intIntMapGet(){
+        int sum = 0;
+        for(int key : keys){
+            sum += intIntMap.get(key, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public IntIntMap intIntMapIncrement(){
+        IntIntMap map = new IntIntMap();
+        for(int key : keys){
+            map.increment(key & 255);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public int objectIntMapGet(){
+        int sum = 0;
+        for(Integer key : boxedKeys){
+            sum += objectIntMap.get(key, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int objectSetContains(){
+        int sum = 0;
+        for(Integer key : boxedKeys){
+            if(objectSet.contains(key)) sum++;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int intSetContains(){
+        int sum = 0;
+        for(int key : keys){
+            if(intSet.contains(key)) sum++;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int hashMapGet(){
+        //baseline for the map benchmarks above
+        int sum = 0;
+        for(Integer key : boxedKeys){
+            sum += hashMap.get(key);
+        }
+        return sum;
+    }
+}
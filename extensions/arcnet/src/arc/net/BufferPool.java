@@ -0,0 +1,44 @@
+package arc.net;
+
+import arc.util.pooling.*;
+
+import java.nio.*;
+
+/**
+ * A thread safe pool of direct buffers of the same size, used as chunks of
+ * TCP write queues. Connections obtain chunks when data is queued and free
+ * them once the data has been written, so idle connections hold no write
+ * memory.
+ */
+class BufferPool extends Pool<ByteBuffer>{
+    final int chunkSize;
+    /** Number of chunks that were allocated, ever. */
+    volatile int allocated;
+
+    /** @param maxFree The maximum number of free chunks kept for reuse. */
+    BufferPool(int chunkSize, int maxFree){
+        super(16, maxFree);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected ByteBuffer newObject(){
+        allocated++;
+        return ByteBuffer.allocateDirect(chunkSize);
+    }
+
+    @Override
+    public synchronized ByteBuffer obtain(){
+        return super.obtain();
+    }
+
+    @Override
+    public synchronized void free(ByteBuffer object){
+        super.free(object);
+    }
+
+    @Override
+    protected void reset(ByteBuffer object){
+        object.clear();
+    }
+}
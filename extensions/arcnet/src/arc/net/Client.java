@@ -35,16 +35,19 @@ public class Client extends Connection implements EndPoint{
     private Prov<DatagramPacket> discoveryPacket = () -> new DatagramPacket(new byte[256], 256);
 
     /**
-     * @param writeBufferSize One buffer of this size is allocated. Objects are serialized
-     * to the write buffer where the bytes are queued until they can
-     * be written to the TCP socket.
+     * @param writeBufferSize The maximum number of bytes that can be queued
+     * for each connection. Objects are serialized to the write queue where
+     * the bytes are queued until they can be written to the TCP socket.
+     * The queue is made of pooled chunks of the object buffer size, which
+     * are only held while data is queued, so a large limit does not cost
+     * memory for connections that keep up.
      * <p>
      * Normally the socket is writable and the bytes are written
      * immediately. If the socket cannot be written to and enough
      * serialized objects are queued to overflow the buffer, then the
      * connection will be closed.
      * <p>
-     * The write buffer should be sized at least as large as the
+     * The write buffer limit should be at least as large as the
      * largest object that will be sent, plus some head room to allow
      * for some serialized objects to be queued in case the buffer is
      * temporarily not writable. The amount of head room needed is
@@ -64,7 +67,8 @@ public class Client extends Connection implements EndPoint{
 
         this.serialization = serialization;
 
-        initialize(serialization, writeBufferSize, objectBufferSize);
+        initialize(serialization, writeBufferSize, objectBufferSize,
+        new BufferPool(objectBufferSize + serialization.getLengthLength(), 4));
 
         try{
             selector = Selector.open();
@@ -167,7 +171,7 @@ public class Client extends Connection implements EndPoint{
                     && System.currentTimeMillis() < endTime){
                         RegisterUDP registerUDP = new RegisterUDP();
                         registerUDP.connectionID = id;
-                        udp.send(registerUDP, udpAddress);
+                        udp.send(registerUDP, udpAddress, metrics);
                         try{
                             udpRegistrationLock.wait(100);
                         }catch(InterruptedException ignored){
@@ -220,12 +224,15 @@ public class Client extends Connection implements EndPoint{
             // connection.
         }
         long startTime = System.currentTimeMillis();
+        long selectStart = System.nanoTime();
         int select = 0;
         if(timeout > 0){
             select = selector.select(timeout);
         }else{
             select = selector.selectNow();
         }
+        long processStart = System.nanoTime();
+        metrics.select(processStart - selectStart, select == 0);
         if(select == 0){
             emptySelects++;
             if(emptySelects == 100){
@@ -238,6 +245,7 @@ public class Client extends Connection implements EndPoint{
                         Thread.sleep(25 - elapsedTime);
                 }catch(InterruptedException ignored){
                 }
+                processStart = System.nanoTime();
             }
         }else{
             emptySelects = 0;
@@ -288,6 +296,7 @@ public class Client extends Connection implements EndPoint{
                             }else{
                                 if(udp.readFromAddress() == null)
                                     continue;
+                                udp.received(metrics);
                                 Object object = udp.readObject();
                                 if(object == null)
                                     continue;
@@ -306,11 +315,15 @@ public class Client extends Connection implements EndPoint{
             long time = System.currentTimeMillis();
             if(tcp.isTimedOut(time)){
                 close();
-            }else
+            }else{
+                if(tcp.needsFlush(time))
+                    flushTCP();
                 keepAlive();
+            }
             if(isIdle())
                 notifyIdle();
         }
+        metrics.processNanos.addAndGet(System.nanoTime() - processStart);
     }
 
     void keepAlive(){
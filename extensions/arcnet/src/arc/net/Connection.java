@@ -7,6 +7,7 @@ import arc.net.FrameworkMessage.Ping;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 
 /**
@@ -21,7 +22,7 @@ public class Connection{
     EndPoint endPoint;
     TcpConnection tcp;
     UdpConnection udp;
-    InetSocketAddress udpRemoteAddress;
+    volatile InetSocketAddress udpRemoteAddress;
     private NetListener[] listeners = {};
     private final Object listenerLock = new Object();
     private int lastPingID;
@@ -30,13 +31,14 @@ public class Connection{
     volatile boolean isConnected;
     volatile ArcNetException lastProtocolError;
     private Object arbitraryData;
+    final NetMetrics metrics = new NetMetrics();
 
     protected Connection(){
     }
 
-    void initialize(NetSerializer serialization, int writeBufferSize, int objectBufferSize){
+    void initialize(NetSerializer serialization, int writeBufferSize, int objectBufferSize, BufferPool writePool){
         tcp = new TcpConnection(serialization, writeBufferSize,
-        objectBufferSize);
+        objectBufferSize, writePool, metrics);
     }
 
     /**
@@ -80,6 +82,21 @@ public class Connection{
         }
     }
 
+    /**
+     * Sends bytes that were already serialized and prefixed with their length
+     * using TCP. Used to send one serialized object to many connections.
+     * @return The number of bytes sent.
+     */
+    int sendTCP(ByteBuffer serialized){
+        try{
+            return tcp.send(serialized);
+        }catch(IOException | ArcNetException ex){
+            close(DcReason.error);
+            ArcNet.handleError(ex);
+            return 0;
+        }
+    }
+
     /**
      * Sends the object over the network using UDP.
      * @return The number of bytes sent.
@@ -88,16 +105,31 @@ public class Connection{
     public int sendUDP(Object object){
         if(object == null)
             throw new IllegalArgumentException("object cannot be null.");
-        SocketAddress address = udpRemoteAddress;
-        if(address == null && udp != null)
-            address = udp.connectedAddress;
-        if(address == null && isConnected)
-            throw new IllegalStateException("Connection is not connected via UDP.");
+        SocketAddress address = udpAddress();
+
+        try{
+            if(address == null) throw new SocketException("Connection is closed.");
+
+            return udp.send(object, address, metrics);
+        }catch(IOException | ArcNetException ex){
+            close(DcReason.error);
+            ArcNet.handleError(ex);
+            return 0;
+        }
+    }
+
+    /**
+     * Sends bytes that were already serialized using UDP. Used to send one
+     * serialized object to many connections.
+     * @return The number of bytes sent.
+     */
+    int sendUDP(ByteBuffer serialized){
+        SocketAddress address = udpAddress();
 
         try{
             if(address == null) throw new SocketException("Connection is closed.");
 
-            return udp.send(object, address);
+            return udp.send(serialized, address, metrics);
         }catch(IOException | ArcNetException ex){
             close(DcReason.error);
             ArcNet.handleError(ex);
@@ -105,6 +137,15 @@ public class Connection{
         }
     }
 
+    private SocketAddress udpAddress(){
+        SocketAddress address = udpRemoteAddress;
+        if(address == null && udp != null)
+            address = udp.connectedAddress;
+        if(address == null && isConnected)
+            throw new IllegalStateException("Connection is not connected via UDP.");
+        return address;
+    }
+
     public void close(DcReason reason){
         boolean wasConnected = isConnected;
         isConnected = false;
@@ -168,6 +209,55 @@ public class Connection{
         tcp.timeoutMillis = timeoutMillis;
     }
 
+    /**
+     * If true, objects sent with TCP are queued instead of being written to
+     * the socket immediately. Queued objects are written together, with as
+     * few system calls and TCP segments as possible, when {@link #flushTCP()}
+     * is called, when {@link #setTcpMaxBatchBytes(int) max batch bytes} are
+     * queued, or when the update thread notices that they were held back
+     * longer than the {@link #setTcpBatchDelay(int) batch delay}. Disabling
+     * batching flushes the queue. Defaults to false.
+     */
+    public void setTcpBatching(boolean batching){
+        tcp.batching = batching;
+        if(!batching)
+            flushTCP();
+    }
+
+    public boolean isTcpBatching(){
+        return tcp.batching;
+    }
+
+    /**
+     * When batching, the queue is written as soon as it holds at least this
+     * many bytes. Defaults to 8192.
+     */
+    public void setTcpMaxBatchBytes(int maxBatchBytes){
+        tcp.maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * When batching, the queue is written by the update thread once bytes
+     * have been held back for this many milliseconds. Set to zero to only
+     * write on {@link #flushTCP()} or when the batch is full. Defaults to 50.
+     */
+    public void setTcpBatchDelay(int batchDelayMillis){
+        tcp.batchDelayMillis = batchDelayMillis;
+    }
+
+    /**
+     * Writes objects that are held back by {@link #setTcpBatching(boolean)
+     * batching}. Usually called once at the end of a tick.
+     */
+    public void flushTCP(){
+        try{
+            tcp.flush();
+        }catch(IOException | ArcNetException ex){
+            close(DcReason.error);
+            ArcNet.handleError(ex);
+        }
+    }
+
     /**
      * Adds a listener to the connection. If the listener already exists, it is
      * not added again.
@@ -310,15 +400,46 @@ public class Connection{
      * socket, if any.
      */
     public int getTcpWriteBufferSize(){
-        return tcp.writeBuffer.position();
+        return tcp.getQueuedBytes();
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently held for the
+     * TCP write queue. This grows while data is queued and drops back to zero
+     * once everything has been written.
+     */
+    public int getTcpWriteBufferAllocated(){
+        return tcp.getAllocatedBytes();
+    }
+
+    /**
+     * Returns a snapshot of the network counters of this connection. For a
+     * {@link Client}, this includes the counters of its update loop.
+     * @param out The snapshot to overwrite.
+     */
+    public NetStats getStats(NetStats out){
+        return addStats(out.reset());
+    }
+
+    /** @see #getStats(NetStats) */
+    public NetStats getStats(){
+        return getStats(new NetStats());
+    }
+
+    NetStats addStats(NetStats out){
+        metrics.addTo(out);
+        TcpConnection tcp = this.tcp;
+        if(tcp != null)
+            out.queuedBytes += tcp.getQueuedBytes();
+        return out;
     }
 
     /**
      * @see #setIdleThreshold(float)
      */
     public boolean isIdle(){
-        return tcp.writeBuffer.position()
-        / (float)tcp.writeBuffer.capacity() < tcp.idleThreshold;
+        return tcp.getQueuedBytes()
+        / (float)tcp.writeBufferSize < tcp.idleThreshold;
     }
 
     /**
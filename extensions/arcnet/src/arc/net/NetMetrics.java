@@ -0,0 +1,43 @@
+package arc.net;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Live network counters, updated without locking from any thread.
+ * @see NetStats
+ */
+class NetMetrics{
+    final AtomicLong tcpBytesSent = new AtomicLong(), tcpBytesReceived = new AtomicLong();
+    final AtomicLong tcpObjectsSent = new AtomicLong(), tcpObjectsReceived = new AtomicLong();
+    final AtomicLong udpBytesSent = new AtomicLong(), udpBytesReceived = new AtomicLong();
+    final AtomicLong udpObjectsSent = new AtomicLong(), udpObjectsReceived = new AtomicLong();
+    final AtomicLong serializeNanos = new AtomicLong();
+    final AtomicLong partialWrites = new AtomicLong();
+    final AtomicLong selects = new AtomicLong(), emptySelects = new AtomicLong();
+    final AtomicLong selectNanos = new AtomicLong(), processNanos = new AtomicLong();
+
+    /** Records one select of an update loop. */
+    void select(long selectNanos, boolean empty){
+        selects.incrementAndGet();
+        if(empty) emptySelects.incrementAndGet();
+        this.selectNanos.addAndGet(selectNanos);
+    }
+
+    /** Adds the current counters to the snapshot. */
+    void addTo(NetStats out){
+        out.tcpBytesSent += tcpBytesSent.get();
+        out.tcpBytesReceived += tcpBytesReceived.get();
+        out.tcpObjectsSent += tcpObjectsSent.get();
+        out.tcpObjectsReceived += tcpObjectsReceived.get();
+        out.udpBytesSent += udpBytesSent.get();
+        out.udpBytesReceived += udpBytesReceived.get();
+        out.udpObjectsSent += udpObjectsSent.get();
+        out.udpObjectsReceived += udpObjectsReceived.get();
+        out.serializeNanos += serializeNanos.get();
+        out.partialWrites += partialWrites.get();
+        out.selects += selects.get();
+        out.emptySelects += emptySelects.get();
+        out.selectNanos += selectNanos.get();
+        out.processNanos += processNanos.get();
+    }
+}
@@ -0,0 +1,74 @@
+package arc.net;
+
+/**
+ * A snapshot of network counters for a {@link Connection}, {@link Client} or
+ * {@link Server}. Counters are totals since the connection or end point was
+ * created, except {@link #queuedBytes}, which is the current amount.
+ * @see Connection#getStats(NetStats)
+ * @see Server#getStats(NetStats)
+ */
+public class NetStats{
+    /** Bytes written to and read from TCP sockets, including length prefixes. */
+    public long tcpBytesSent, tcpBytesReceived;
+    /** Objects queued for and read from TCP. */
+    public long tcpObjectsSent, tcpObjectsReceived;
+    /** Bytes sent and received as UDP datagrams. */
+    public long udpBytesSent, udpBytesReceived;
+    /** Datagrams sent and received. */
+    public long udpObjectsSent, udpObjectsReceived;
+    /** Total time spent serializing objects, in nanoseconds. */
+    public long serializeNanos;
+    /** Number of bytes waiting to be written to TCP sockets. */
+    public long queuedBytes;
+    /** Number of TCP socket writes that could not write all queued bytes. */
+    public long partialWrites;
+    /** Number of selects, and how many of them returned no ready keys. */
+    public long selects, emptySelects;
+    /** Time spent waiting in select, and time spent processing after it, in nanoseconds. */
+    public long selectNanos, processNanos;
+
+    /** Adds the counters of another snapshot to this one. */
+    public NetStats add(NetStats other){
+        tcpBytesSent += other.tcpBytesSent;
+        tcpBytesReceived += other.tcpBytesReceived;
+        tcpObjectsSent += other.tcpObjectsSent;
+        tcpObjectsReceived += other.tcpObjectsReceived;
+        udpBytesSent += other.udpBytesSent;
+        udpBytesReceived += other.udpBytesReceived;
+        udpObjectsSent += other.udpObjectsSent;
+        udpObjectsReceived += other.udpObjectsReceived;
+        serializeNanos += other.serializeNanos;
+        queuedBytes += other.queuedBytes;
+        partialWrites += other.partialWrites;
+        selects += other.selects;
+        emptySelects += other.emptySelects;
+        selectNanos += other.selectNanos;
+        processNanos += other.processNanos;
+        return this;
+    }
+
+    /** Sets all counters to zero. */
+    public NetStats reset(){
+        tcpBytesSent = tcpBytesReceived = tcpObjectsSent = tcpObjectsReceived = 0;
+        udpBytesSent = udpBytesReceived = udpObjectsSent = udpObjectsReceived = 0;
+        serializeNanos = queuedBytes = partialWrites = 0;
+        selects = emptySelects = selectNanos = processNanos = 0;
+        return this;
+    }
+
+    @Override
+    public String toString(){
+        return "NetStats{" +
+        "tcp sent=" + tcpBytesSent + "b/" + tcpObjectsSent +
+        ", tcp received=" + tcpBytesReceived + "b/" + tcpObjectsReceived +
+        ", udp sent=" + udpBytesSent + "b/" + udpObjectsSent +
+        ", udp received=" + udpBytesReceived + "b/" + udpObjectsReceived +
+        ", serialize=" + serializeNanos / 1000000f + "ms" +
+        ", queued=" + queuedBytes +
+        ", partial writes=" + partialWrites +
+        ", selects=" + selects + " (" + emptySelects + " empty)" +
+        ", select=" + selectNanos / 1000000f + "ms" +
+        ", process=" + processNanos / 1000000f + "ms" +
+        '}';
+    }
+}
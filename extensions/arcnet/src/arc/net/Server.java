@@ -11,6 +11,7 @@ import java.net.*;
 import java.nio.*;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Manages TCP and optionally UDP connections from many {@linkplain Client
@@ -20,12 +21,22 @@ import java.util.*;
 public class Server implements EndPoint{
     private final NetSerializer serializer;
     private final int writeBufferSize, objectBufferSize;
+    private final BufferPool writePool;
     private final Selector selector;
     private int emptySelects;
     private ServerSocketChannel serverChannel;
     private UdpConnection udp;
-    private Connection[] connections = {};
+    private volatile Connection[] connections = {};
     private IntMap<Connection> pendingConnections = new IntMap<>();
+    /** Connections by their UDP address. Changed while holding connectionLock, but read without it for every datagram. */
+    private final ConcurrentHashMap<InetSocketAddress, Connection> udpConnections = new ConcurrentHashMap<>();
+    private final Object connectionLock = new Object();
+    private int workerThreads;
+    private int maxDatagramsPerSelect = 64;
+    private Worker[] workers = {};
+    private int nextWorker;
+    private volatile Executor listenerExecutor;
+    private boolean tcpBatching;
     NetListener[] listeners = {};
     private Object listenerLock = new Object();
     private int nextConnectionID = 1;
@@ -36,45 +47,66 @@ public class Server implements EndPoint{
     protected InetAddress multicastGroup;
     protected DiscoveryReceiver discoveryReceiver;
     protected ServerDiscoveryHandler discoveryHandler;
+    private final Object broadcastLock = new Object();
+    private ByteBuffer tcpBroadcastBuffer, udpBroadcastBuffer;
+    /** Counters of the update loops and of datagrams that do not belong to a connection. */
+    private final NetMetrics metrics = new NetMetrics();
+    /** Counters of connections that were removed. */
+    private final NetStats removedStats = new NetStats();
 
     private NetListener dispatchListener = new NetListener(){
         public void connected(Connection connection){
-            NetListener[] listeners = Server.this.listeners;
-            for(int i = 0, n = listeners.length; i < n; i++)
-                listeners[i].connected(connection);
+            Executor executor = listenerExecutor;
+            if(executor != null){
+                executor.execute(() -> notifyConnected(connection));
+            }else{
+                notifyConnected(connection);
+            }
         }
 
         public void disconnected(Connection connection, DcReason reason){
             removeConnection(connection);
-            NetListener[] listeners = Server.this.listeners;
-            for(int i = 0, n = listeners.length; i < n; i++)
-                listeners[i].disconnected(connection, reason);
+            Executor executor = listenerExecutor;
+            if(executor != null){
+                executor.execute(() -> notifyDisconnected(connection, reason));
+            }else{
+                notifyDisconnected(connection, reason);
+            }
         }
 
         public void received(Connection connection, Object object){
-            NetListener[] listeners = Server.this.listeners;
-            for(int i = 0, n = listeners.length; i < n; i++)
-                listeners[i].received(connection, object);
+            Executor executor = listenerExecutor;
+            if(executor != null){
+                executor.execute(() -> notifyReceived(connection, object));
+            }else{
+                notifyReceived(connection, object);
+            }
         }
 
         public void idle(Connection connection){
-            NetListener[] listeners = Server.this.listeners;
-            for(int i = 0, n = listeners.length; i < n; i++)
-                listeners[i].idle(connection);
+            Executor executor = listenerExecutor;
+            if(executor != null){
+                executor.execute(() -> notifyIdle(connection));
+            }else{
+                notifyIdle(connection);
+            }
         }
     };
 
     /**
-     * @param writeBufferSize One buffer of this size is allocated for each connected
-     * client. Objects are serialized to the write buffer where the
-     * bytes are queued until they can be written to the TCP socket.
+     * @param writeBufferSize The maximum number of bytes that can be queued
+     * for each connection. Objects are serialized to the write queue where
+     * the bytes are queued until they can be written to the TCP socket.
+     * The queue is made of pooled chunks of the object buffer size, which
+     * are only held while data is queued, so a large limit does not cost
+     * memory for connections that keep up.
      * <p>
      * Normally the socket is writable and the bytes are written
      * immediately. If the socket cannot be written to and enough
      * serialized objects are queued to overflow the buffer, then the
      * connection will be closed.
      * <p>
-     * The write buffer should be sized at least as large as the
+     * The write buffer limit should be at least as large as the
      * largest object that will be sent, plus some head room to allow
      * for some serialized objects to be queued in case the buffer is
      * temporarily not writable. The amount of head room needed is
@@ -92,6 +124,7 @@ public class Server implements EndPoint{
         this.writeBufferSize = writeBufferSize;
         this.objectBufferSize = objectBufferSize;
         this.serializer = serializer;
+        this.writePool = new BufferPool(objectBufferSize + serializer.getLengthLength(), 256);
 
         this.discoveryHandler = (address, handler) -> handler.respond(ByteBuffer.allocate(0));
 
@@ -115,6 +148,74 @@ public class Server implements EndPoint{
         discoveryHandler = newDiscoveryHandler;
     }
 
+    /**
+     * Sets the number of worker threads that handle TCP connections. Each
+     * worker has its own selector, and accepted connections are distributed
+     * between them, while accepting connections, UDP and timeouts stay on the
+     * update thread. With 0 workers (the default), everything is handled on
+     * the update thread. Takes effect the next time the server is bound.
+     */
+    public void setWorkerThreads(int workerThreads){
+        if(workerThreads < 0) throw new IllegalArgumentException("workerThreads cannot be negative: " + workerThreads);
+        this.workerThreads = workerThreads;
+    }
+
+    public int getWorkerThreads(){
+        return workerThreads;
+    }
+
+    /**
+     * Sets how many UDP datagrams are read each time the UDP channel is
+     * selected. Datagrams beyond this are read on the next update, so a flood
+     * of datagrams cannot hold up accepting connections, TCP and timeouts.
+     */
+    public void setMaxDatagramsPerSelect(int maxDatagramsPerSelect){
+        if(maxDatagramsPerSelect < 1) throw new IllegalArgumentException("maxDatagramsPerSelect must be positive: " + maxDatagramsPerSelect);
+        this.maxDatagramsPerSelect = maxDatagramsPerSelect;
+    }
+
+    public int getMaxDatagramsPerSelect(){
+        return maxDatagramsPerSelect;
+    }
+
+    /**
+     * Sets the executor that server listeners are notified on. If null (the
+     * default), listeners are notified on the thread that handled the
+     * connection, which is either the update thread or a worker thread.
+     * <p>
+     * Events are submitted in the order they occur. If listeners rely on this
+     * order, the executor must run tasks in submission order, e.g. a single
+     * threaded executor.
+     */
+    public void setListenerExecutor(Executor listenerExecutor){
+        this.listenerExecutor = listenerExecutor;
+    }
+
+    public Executor getListenerExecutor(){
+        return listenerExecutor;
+    }
+
+    /**
+     * Sets whether TCP batching is enabled for connections accepted from now
+     * on. Batched objects are written when {@link #flushTCP()} is called, or
+     * as configured on each connection.
+     * @see Connection#setTcpBatching(boolean)
+     */
+    public void setTcpBatching(boolean tcpBatching){
+        this.tcpBatching = tcpBatching;
+    }
+
+    /**
+     * Writes the objects that are held back by batching on every connection.
+     * Usually called once at the end of a tick.
+     * @see Connection#flushTCP()
+     */
+    public void flushTCP(){
+        Connection[] connections = this.connections;
+        for(int i = 0, n = connections.length; i < n; i++)
+            connections[i].flushTCP();
+    }
+
     /**
      * Opens a TCP only server.
      * @throws IOException if the server could not be opened.
@@ -156,6 +257,12 @@ public class Server implements EndPoint{
                     discoveryReceiver = new DiscoveryReceiver(multicastPort);
                     discoveryReceiver.start();
                 }
+
+                Worker[] workers = new Worker[workerThreads];
+                for(int i = 0; i < workers.length; i++){
+                    workers[i] = new Worker(i);
+                }
+                this.workers = workers;
             }catch(IOException ex){
                 close();
                 throw ex;
@@ -177,12 +284,15 @@ public class Server implements EndPoint{
             // connection.
         }
         long startTime = System.currentTimeMillis();
+        long selectStart = System.nanoTime();
         int select;
         if(timeout > 0){
             select = selector.select(timeout);
         }else{
             select = selector.selectNow();
         }
+        long processStart = System.nanoTime();
+        metrics.select(processStart - selectStart, select == 0);
         if(select == 0){
             emptySelects++;
             if(emptySelects == 100){
@@ -194,6 +304,7 @@ public class Server implements EndPoint{
                     if(elapsedTime < 25) Thread.sleep(25 - elapsedTime);
                 }catch(InterruptedException ignored){
                 }
+                processStart = System.nanoTime();
             }
         }else{
             emptySelects = 0;
@@ -210,30 +321,7 @@ public class Server implements EndPoint{
 
                         if(fromConnection != null){ // Must be a TCP read or
                             // write operation.
-                            if(udp != null && fromConnection.udpRemoteAddress == null){
-                                fromConnection.close(DcReason.error);
-                                continue;
-                            }
-                            if((ops & SelectionKey.OP_READ) == SelectionKey.OP_READ){
-                                try{
-                                    while(true){
-                                        Object object = fromConnection.tcp.readObject();
-                                        if(object == null)
-                                            break;
-                                        fromConnection.notifyReceived(object);
-                                    }
-                                }catch(IOException | ArcNetException ex){
-                                    ArcNet.handleError(new ArcNetException("Error reading TCP from connection: " + fromConnection, ex));
-                                    fromConnection.close(ex.getMessage() != null && ex.getMessage().contains("closed") ? DcReason.closed : DcReason.error);
-                                }
-                            }
-                            if((ops & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE){
-                                try{
-                                    fromConnection.tcp.writeOperation();
-                                }catch(IOException ex){
-                                    fromConnection.close(ex.getMessage() != null && ex.getMessage().contains("closed") ? DcReason.closed : DcReason.error);
-                                }
-                            }
+                            tcpOperation(fromConnection, ops);
                             continue;
                         }
 
@@ -256,63 +344,7 @@ public class Server implements EndPoint{
                             selectionKey.channel().close();
                             continue;
                         }
-                        InetSocketAddress fromAddress;
-                        try{
-                            fromAddress = udp.readFromAddress();
-                        }catch(IOException ex){
-                            ArcNet.handleError(ex);
-                            continue;
-                        }
-                        if(fromAddress == null)
-                            continue;
-
-                        Connection[] connections = this.connections;
-                        for(Connection connection : connections){
-                            if(fromAddress.equals(connection.udpRemoteAddress)){
-                                fromConnection = connection;
-                                break;
-                            }
-                        }
-
-                        Object object;
-                        try{
-                            object = udp.readObject();
-                        }catch(ArcNetException ex){
-                            ArcNet.handleError(new ArcNetException("Error reading UDP from connection: " + (fromConnection == null ? fromAddress : fromAddress), ex));
-                            continue;
-                        }
-
-                        if(object instanceof FrameworkMessage){
-                            if(object instanceof RegisterUDP){
-                                // Store the fromAddress on the connection and
-                                // reply over TCP with a RegisterUDP to indicate
-                                // success.
-                                int fromConnectionID = ((RegisterUDP)object).connectionID;
-                                Connection connection = pendingConnections
-                                .remove(fromConnectionID);
-                                if(connection != null){
-                                    if(connection.udpRemoteAddress != null) continue;
-                                    connection.udpRemoteAddress = fromAddress;
-                                    addConnection(connection);
-                                    connection.sendTCP(new RegisterUDP());
-                                    connection.notifyConnected();
-                                    continue;
-                                }
-                                continue;
-                            }
-                            if(object instanceof DiscoverHost){
-                                try{
-                                    discoveryHandler.onDiscoverReceived(fromAddress.getAddress(), buff -> udp.datagramChannel.send(buff, fromAddress));
-                                }catch(IOException ignored){
-                                }
-                                continue;
-                            }
-                        }
-
-                        if(fromConnection != null){
-                            fromConnection.notifyReceived(object);
-                            continue;
-                        }
+                        udpOperation(udp);
                     }catch(CancelledKeyException ex){
                         if(fromConnection != null)
                             fromConnection.close(DcReason.error);
@@ -329,12 +361,100 @@ public class Server implements EndPoint{
             if(connection.tcp.isTimedOut(time)){
                 connection.close(DcReason.timeout);
             }else{
+                if(connection.tcp.needsFlush(time))
+                    connection.flushTCP();
                 if(connection.tcp.needsKeepAlive(time))
                     connection.sendTCP(FrameworkMessage.keepAlive);
             }
             if(connection.isIdle())
                 connection.notifyIdle();
         }
+        metrics.processNanos.addAndGet(System.nanoTime() - processStart);
+    }
+
+    private void tcpOperation(Connection fromConnection, int ops){
+        if(udp != null && fromConnection.udpRemoteAddress == null){
+            fromConnection.close(DcReason.error);
+            return;
+        }
+        if((ops & SelectionKey.OP_READ) == SelectionKey.OP_READ){
+            try{
+                while(true){
+                    Object object = fromConnection.tcp.readObject();
+                    if(object == null)
+                        break;
+                    fromConnection.notifyReceived(object);
+                }
+            }catch(IOException | ArcNetException ex){
+                ArcNet.handleError(new ArcNetException("Error reading TCP from connection: " + fromConnection, ex));
+                fromConnection.close(ex.getMessage() != null && ex.getMessage().contains("closed") ? DcReason.closed : DcReason.error);
+            }
+        }
+        if((ops & SelectionKey.OP_WRITE) == SelectionKey.OP_WRITE){
+            try{
+                fromConnection.tcp.writeOperation();
+            }catch(IOException ex){
+                fromConnection.close(ex.getMessage() != null && ex.getMessage().contains("closed") ? DcReason.closed : DcReason.error);
+            }
+        }
+    }
+
+    /** Reads and handles the datagrams waiting on the UDP channel, up to {@link #maxDatagramsPerSelect}. */
+    private void udpOperation(UdpConnection udp){
+        for(int read = 0; read < maxDatagramsPerSelect; read++){
+            InetSocketAddress fromAddress;
+            try{
+                fromAddress = udp.readFromAddress();
+            }catch(IOException ex){
+                ArcNet.handleError(ex);
+                return;
+            }
+            if(fromAddress == null)
+                return;
+
+            Connection fromConnection = udpConnections.get(fromAddress);
+            udp.received(fromConnection != null ? fromConnection.metrics : metrics);
+
+            Object object;
+            try{
+                object = udp.readObject();
+            }catch(ArcNetException ex){
+                ArcNet.handleError(new ArcNetException("Error reading UDP from connection: " + (fromConnection == null ? fromAddress : fromConnection), ex));
+                continue;
+            }
+
+            if(object instanceof FrameworkMessage){
+                if(object instanceof RegisterUDP){
+                    // Store the fromAddress on the connection and
+                    // reply over TCP with a RegisterUDP to indicate
+                    // success.
+                    int fromConnectionID = ((RegisterUDP)object).connectionID;
+                    Connection connection;
+                    synchronized(connectionLock){
+                        connection = pendingConnections.remove(fromConnectionID);
+                    }
+                    if(connection != null){
+                        if(connection.udpRemoteAddress != null) continue;
+                        connection.udpRemoteAddress = fromAddress;
+                        addConnection(connection);
+                        connection.sendTCP(new RegisterUDP());
+                        connection.flushTCP();
+                        connection.notifyConnected();
+                    }
+                    continue;
+                }
+                if(object instanceof DiscoverHost){
+                    try{
+                        discoveryHandler.onDiscoverReceived(fromAddress.getAddress(), buff -> udp.datagramChannel.send(buff, fromAddress));
+                    }catch(IOException ignored){
+                    }
+                    continue;
+                }
+            }
+
+            if(fromConnection != null)
+                fromConnection.notifyReceived(object);
+        }
     }
 
     private void keepAlive(){
@@ -370,9 +490,23 @@ public class Server implements EndPoint{
     }
 
     private void acceptOperation(SocketChannel socketChannel){
+        Worker[] workers = this.workers;
+        if(workers.length == 0){
+            registerConnection(socketChannel, selector);
+            return;
+        }
+
+        // The channel must be registered on the worker thread, as registering
+        // blocks while the worker's selector is selecting.
+        Worker worker = workers[nextWorker];
+        nextWorker = (nextWorker + 1) % workers.length;
+        worker.register(socketChannel);
+    }
+
+    private void registerConnection(SocketChannel socketChannel, Selector selector){
         Connection connection = newConnection();
         connection.initialize(serializer,
-        writeBufferSize, objectBufferSize);
+        writeBufferSize, objectBufferSize, writePool);
         connection.endPoint = this;
         UdpConnection udp = this.udp;
         if(udp != null)
@@ -382,21 +516,28 @@ public class Server implements EndPoint{
             socketChannel);
             selectionKey.attach(connection);
 
-            int id = nextConnectionID++;
-            if(nextConnectionID == -1)
-                nextConnectionID = 1;
+            int id;
+            synchronized(connectionLock){
+                id = nextConnectionID++;
+                if(nextConnectionID == -1)
+                    nextConnectionID = 1;
+            }
             connection.id = id;
             connection.setConnected(true);
             connection.addListener(dispatchListener);
 
-            if(udp == null)
+            if(udp == null){
                 addConnection(connection);
-            else
-                pendingConnections.put(id, connection);
+            }else{
+                synchronized(connectionLock){
+                    pendingConnections.put(id, connection);
+                }
+            }
 
             RegisterTCP registerConnection = new RegisterTCP();
             registerConnection.connectionID = id;
             connection.sendTCP(registerConnection);
+            connection.tcp.batching = tcpBatching;
 
             if(udp == null)
                 connection.notifyConnected();
@@ -414,37 +555,79 @@ public class Server implements EndPoint{
     }
 
     private void addConnection(Connection connection){
-        Connection[] newConnections = new Connection[connections.length + 1];
-        newConnections[0] = connection;
-        System.arraycopy(connections, 0, newConnections, 1, connections.length);
-        connections = newConnections;
+        synchronized(connectionLock){
+            Connection[] connections = this.connections;
+            Connection[] newConnections = new Connection[connections.length + 1];
+            newConnections[0] = connection;
+            System.arraycopy(connections, 0, newConnections, 1, connections.length);
+            this.connections = newConnections;
+
+            if(connection.udpRemoteAddress != null)
+                udpConnections.put(connection.udpRemoteAddress, connection);
+        }
     }
 
     void removeConnection(Connection connection){
-        ArrayList<Connection> temp = new ArrayList<>(Arrays.asList(connections));
-        temp.remove(connection);
-        connections = temp.toArray(new Connection[0]);
+        synchronized(connectionLock){
+            ArrayList<Connection> temp = new ArrayList<>(Arrays.asList(connections));
+            boolean removed = temp.remove(connection);
+            connections = temp.toArray(new Connection[0]);
+
+            InetSocketAddress address = connection.udpRemoteAddress;
+            if(address != null)
+                udpConnections.remove(address, connection);
 
-        pendingConnections.remove(connection.id);
+            if(pendingConnections.remove(connection.id) != null || removed){
+                connection.metrics.addTo(removedStats);
+            }
+        }
+    }
+
+    private void notifyConnected(Connection connection){
+        NetListener[] listeners = this.listeners;
+        for(int i = 0, n = listeners.length; i < n; i++)
+            listeners[i].connected(connection);
     }
 
-    // BOZO - Provide mechanism for sending to multiple clients without
-    // serializing multiple times.
+    private void notifyDisconnected(Connection connection, DcReason reason){
+        NetListener[] listeners = this.listeners;
+        for(int i = 0, n = listeners.length; i < n; i++)
+            listeners[i].disconnected(connection, reason);
+    }
+
+    private void notifyReceived(Connection connection, Object object){
+        NetListener[] listeners = this.listeners;
+        for(int i = 0, n = listeners.length; i < n; i++)
+            listeners[i].received(connection, object);
+    }
+
+    private void notifyIdle(Connection connection){
+        NetListener[] listeners = this.listeners;
+        for(int i = 0, n = listeners.length; i < n; i++)
+            listeners[i].idle(connection);
+    }
 
     public void sendToAllTCP(Object object){
-        Connection[] connections = this.connections;
-        for(int i = 0, n = connections.length; i < n; i++){
-            Connection connection = connections[i];
-            connection.sendTCP(object);
-        }
+        sendToAllExceptTCP(-1, object);
     }
 
+    /**
+     * Sends the object to every connection except the one with the specified
+     * ID. The object is serialized only once, and the same bytes are queued on
+     * every connection.
+     */
     public void sendToAllExceptTCP(int connectionID, Object object){
+        if(object == null) throw new IllegalArgumentException("object cannot be null.");
         Connection[] connections = this.connections;
-        for(int i = 0, n = connections.length; i < n; i++){
-            Connection connection = connections[i];
-            if(connection.id != connectionID)
-                connection.sendTCP(object);
+        synchronized(broadcastLock){
+            ByteBuffer buffer = serializeBroadcast(object, true, connections, connectionID);
+            if(buffer == null) return;
+
+            for(int i = 0, n = connections.length; i < n; i++){
+                Connection connection = connections[i];
+                if(connection.id != connectionID)
+                    connection.sendTCP(buffer);
+            }
         }
     }
 
@@ -460,22 +643,73 @@ public class Server implements EndPoint{
     }
 
     public void sendToAllUDP(Object object){
-        Connection[] connections = this.connections;
-        for(int i = 0, n = connections.length; i < n; i++){
-            Connection connection = connections[i];
-            connection.sendUDP(object);
-        }
+        sendToAllExceptUDP(-1, object);
     }
 
+    /**
+     * Sends the object to every connection except the one with the specified
+     * ID. The object is serialized only once, and the same datagram is sent to
+     * every connection.
+     */
     public void sendToAllExceptUDP(int connectionID, Object object){
+        if(object == null) throw new IllegalArgumentException("object cannot be null.");
         Connection[] connections = this.connections;
-        for(int i = 0, n = connections.length; i < n; i++){
-            Connection connection = connections[i];
-            if(connection.id != connectionID)
-                connection.sendUDP(object);
+        synchronized(broadcastLock){
+            ByteBuffer buffer = serializeBroadcast(object, false, connections, connectionID);
+            if(buffer == null) return;
+
+            for(int i = 0, n = connections.length; i < n; i++){
+                Connection connection = connections[i];
+                if(connection.id != connectionID)
+                    connection.sendUDP(buffer);
+            }
         }
     }
 
+    /**
+     * Serializes an object into the shared broadcast buffer. TCP data is
+     * prefixed with its length. If serialization fails, the target connections
+     * are closed, like they would be when sending the object to each of them.
+     * Must be called with the broadcast lock held.
+     * @return The buffer, flipped for reading, or null if serialization failed.
+     */
+    private ByteBuffer serializeBroadcast(Object object, boolean tcp, Connection[] connections, int exceptID){
+        ByteBuffer buffer;
+        if(tcp){
+            //sized like a connection's serialization buffer, so a broadcast object can be no larger than any receiver can read
+            if(tcpBroadcastBuffer == null) tcpBroadcastBuffer = ByteBuffer.allocate(objectBufferSize + serializer.getLengthLength());
+            buffer = tcpBroadcastBuffer;
+        }else{
+            if(udpBroadcastBuffer == null) udpBroadcastBuffer = ByteBuffer.allocateDirect(objectBufferSize);
+            buffer = udpBroadcastBuffer;
+        }
+
+        buffer.clear();
+        int lengthLength = tcp ? serializer.getLengthLength() : 0;
+        long serializeStart = System.nanoTime();
+        try{
+            buffer.position(lengthLength);
+            serializer.write(buffer, object);
+        }catch(Throwable ex){
+            for(Connection connection : connections){
+                if(connection.id != exceptID)
+                    connection.close(DcReason.error);
+            }
+            ArcNet.handleError(new ArcNetException("Error serializing object of type: " + object.getClass().getName(), ex));
+            return null;
+        }
+
+        metrics.serializeNanos.addAndGet(System.nanoTime() - serializeStart);
+        int end = buffer.position();
+        if(tcp){
+            buffer.position(0);
+            serializer.writeLength(buffer, end - lengthLength);
+            buffer.position(end);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
     public void sendToUDP(int connectionID, Object object){
         Connection[] connections = this.connections;
         for(int i = 0, n = connections.length; i < n; i++){
@@ -535,6 +769,14 @@ public class Server implements EndPoint{
         for(int i = 0, n = connections.length; i < n; i++)
             connections[i].close(DcReason.closed);
         this.connections = new Connection[0];
+        synchronized(connectionLock){
+            udpConnections.clear();
+        }
+
+        Worker[] workers = this.workers;
+        for(Worker worker : workers)
+            worker.close();
+        this.workers = new Worker[0];
 
         ServerSocketChannel serverChannel = this.serverChannel;
         if(serverChannel != null){
@@ -580,6 +822,31 @@ public class Server implements EndPoint{
         return updateThread;
     }
 
+    /**
+     * Returns a snapshot of the network counters of this server: the sum of
+     * all current and past connections, plus the counters of the update and
+     * worker loops.
+     * @param out The snapshot to overwrite.
+     */
+    public NetStats getStats(NetStats out){
+        out.reset();
+        metrics.addTo(out);
+        synchronized(connectionLock){
+            out.add(removedStats);
+            for(Connection connection : pendingConnections.values())
+                connection.addStats(out);
+        }
+        Connection[] connections = this.connections;
+        for(Connection connection : connections)
+            connection.addStats(out);
+        return out;
+    }
+
+    /** @see #getStats(NetStats) */
+    public NetStats getStats(){
+        return getStats(new NetStats());
+    }
+
     /**
      * Returns the current connections. The array returned should not be
      * modified.
@@ -588,6 +855,110 @@ public class Server implements EndPoint{
         return connections;
     }
 
+    /**
+     * Handles TCP reads and writes for a subset of the connections, on its own
+     * thread and selector.
+     */
+    class Worker implements Runnable{
+        final Selector selector;
+        /** Accepted channels waiting to be registered with the selector. */
+        final ConcurrentLinkedQueue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        final Thread thread;
+        volatile boolean running = true;
+        int emptySelects;
+
+        Worker(int index) throws IOException{
+            selector = Selector.open();
+            thread = Threads.daemon("Server Worker " + index, this);
+        }
+
+        /** Registers an accepted channel on the worker thread, before its next select. */
+        void register(SocketChannel socketChannel){
+            pending.add(socketChannel);
+            selector.wakeup();
+            //the worker may have stopped before the channel was added
+            if(!running) closePending();
+        }
+
+        @Override
+        public void run(){
+            try{
+                while(running){
+                    try{
+                        update(250);
+                    }catch(Throwable ex){
+                        //keep going, as this worker still owns its connections and will be assigned new ones
+                        ArcNet.handleError(ex);
+                    }
+                }
+            }finally{
+                closePending();
+                try{
+                    selector.close();
+                }catch(IOException ignored){
+                }
+            }
+        }
+
+        void update(int timeout) throws IOException{
+            SocketChannel socketChannel;
+            while(running && (socketChannel = pending.poll()) != null){
+                registerConnection(socketChannel, selector);
+            }
+
+            long startTime = System.currentTimeMillis();
+            long selectStart = System.nanoTime();
+            int select = selector.select(timeout);
+            long processStart = System.nanoTime();
+            metrics.select(processStart - selectStart, select == 0);
+            if(select == 0){
+                emptySelects++;
+                if(emptySelects == 100){
+                    emptySelects = 0;
+                    // NIO freaks and returns immediately with 0 sometimes, so try
+                    // to keep from hogging the CPU.
+                    long elapsedTime = System.currentTimeMillis() - startTime;
+                    try{
+                        if(elapsedTime < 25) Thread.sleep(25 - elapsedTime);
+                    }catch(InterruptedException ignored){
+                    }
+                }
+                return;
+            }
+
+            emptySelects = 0;
+            Set<SelectionKey> keys = selector.selectedKeys();
+            for(Iterator<SelectionKey> iter = keys.iterator(); iter.hasNext();){
+                SelectionKey selectionKey = iter.next();
+                iter.remove();
+                Connection fromConnection = (Connection)selectionKey.attachment();
+                try{
+                    tcpOperation(fromConnection, selectionKey.readyOps());
+                }catch(CancelledKeyException ex){
+                    fromConnection.close(DcReason.error);
+                }
+            }
+            metrics.processNanos.addAndGet(System.nanoTime() - processStart);
+        }
+
+        /** Stops the worker and closes channels that were not registered yet. Its connections must already be closed. */
+        void close(){
+            running = false;
+            selector.wakeup();
+            closePending();
+        }
+
+        void closePending(){
+            SocketChannel socketChannel;
+            while((socketChannel = pending.poll()) != null){
+                try{
+                    socketChannel.close();
+                }catch(IOException ignored){
+                }
+            }
+        }
+    }
+
     //I don't care about deprecation here, as the socket system methods won't be removed
     //it really doesn't matter if the multicast works or not
     @SuppressWarnings("deprecation")
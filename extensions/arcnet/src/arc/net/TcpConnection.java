@@ -5,6 +5,7 @@ package arc.net;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.*;
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 
@@ -14,26 +15,52 @@ import java.nio.channels.*;
 class TcpConnection{
     SocketChannel socketChannel;
     int keepAliveMillis = 8000;
-    final ByteBuffer readBuffer, writeBuffer;
+    final ByteBuffer readBuffer;
+    /** The maximum number of bytes that can be queued for writing. */
+    final int writeBufferSize;
+    final BufferPool writePool;
+    final NetMetrics metrics;
     boolean bufferPositionFix;
     int timeoutMillis = 12000;
     float idleThreshold = 0.1f;
+    /** If true, queued objects are not written until flushed, the batch is full, or the batch delay has passed. */
+    volatile boolean batching;
+    int maxBatchBytes = 8192;
+    int batchDelayMillis = 50;
 
     final NetSerializer serialization;
     private SelectionKey selectionKey;
     private volatile long lastWriteTime, lastReadTime;
     private int currentObjectLength;
     private final Object writeLock = new Object();
+    /**
+     * Chunks of bytes waiting to be written. Chunks are kept flipped for
+     * reading, so they can be passed to a gathering write directly; only the
+     * last chunk is appended to.
+     */
+    private ByteBuffer[] writeChunks = new ByteBuffer[4];
+    private int writeChunkCount;
+    private volatile int queuedBytes;
+    /** Whether OP_WRITE is set, meaning the selector will write the queue once the socket is writable. */
+    private boolean writePending;
+    private volatile long batchStartTime;
 
-    public TcpConnection(NetSerializer serialization, int writeBufferSize, int objectBufferSize){
+    /**
+     * @param writeBufferSize The maximum number of bytes that can be queued.
+     * Memory is only allocated for bytes that are actually queued, in chunks
+     * obtained from the pool.
+     */
+    public TcpConnection(NetSerializer serialization, int writeBufferSize, int objectBufferSize, BufferPool writePool, NetMetrics metrics){
         this.serialization = serialization;
-        writeBuffer = ByteBuffer.allocate(writeBufferSize);
+        this.writeBufferSize = writeBufferSize;
+        this.writePool = writePool;
+        this.metrics = metrics;
         readBuffer = ByteBuffer.allocate(objectBufferSize);
         readBuffer.flip();
     }
 
     public SelectionKey accept(Selector selector, SocketChannel socketChannel) throws IOException{
-        writeBuffer.clear();
+        clearWriteChunks();
         readBuffer.clear();
         readBuffer.flip();
         currentObjectLength = 0;
@@ -57,7 +84,7 @@ class TcpConnection{
 
     public void connect(Selector selector, SocketAddress remoteAddress, int timeout) throws IOException{
         close();
-        writeBuffer.clear();
+        clearWriteChunks();
         readBuffer.clear();
         readBuffer.flip();
         currentObjectLength = 0;
@@ -96,6 +123,7 @@ class TcpConnection{
                 readBuffer.flip();
                 if(bytesRead == -1)
                     throw new SocketException("Connection is closed.");
+                metrics.tcpBytesReceived.addAndGet(bytesRead);
                 lastReadTime = System.currentTimeMillis();
 
                 if(readBuffer.remaining() < lengthLength)
@@ -120,6 +148,7 @@ class TcpConnection{
             readBuffer.flip();
             if(bytesRead == -1)
                 throw new SocketException("Connection is closed.");
+            metrics.tcpBytesReceived.addAndGet(bytesRead);
             lastReadTime = System.currentTimeMillis();
 
             if(readBuffer.remaining() < length)
@@ -143,6 +172,7 @@ class TcpConnection{
             + (startPosition + length - readBuffer.position())
             + " remaining) used to deserialize object: " + object);
 
+        metrics.tcpObjectsReceived.incrementAndGet();
         return object;
     }
 
@@ -151,29 +181,133 @@ class TcpConnection{
             if(writeToSocket()){
                 // Write successful, clear OP_WRITE.
                 selectionKey.interestOps(SelectionKey.OP_READ);
+                writePending = false;
             }
             lastWriteTime = System.currentTimeMillis();
         }
     }
 
+    /**
+     * Writes all queued bytes that are held back by batching. Does nothing if
+     * the connection is closed. This method is thread safe.
+     */
+    public void flush() throws IOException{
+        if(socketChannel == null)
+            return;
+        synchronized(writeLock){
+            if(queuedBytes > 0 && !writePending){
+                writeQueued();
+                lastWriteTime = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /** Must be called with the write lock held. */
+    private void writeQueued() throws IOException{
+        if(!writeToSocket()){
+            // A partial write, set OP_WRITE to be notified when more
+            // writing can occur.
+            selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            writePending = true;
+        }else{
+            // Full write, wake up selector so idle event will be fired.
+            selectionKey.selector().wakeup();
+        }
+    }
+
     private boolean writeToSocket() throws IOException{
         SocketChannel socketChannel = this.socketChannel;
         if(socketChannel == null)
             throw new SocketException("Connection is closed.");
 
-        ByteBuffer buffer = writeBuffer;
-        buffer.flip();
-        while(buffer.hasRemaining()){
+        ByteBuffer[] chunks = writeChunks;
+        while(queuedBytes > 0){
             if(bufferPositionFix){
-                buffer.compact();
-                buffer.flip();
+                ByteBuffer head = chunks[0];
+                head.compact();
+                head.flip();
             }
-            if(socketChannel.write(buffer) == 0)
+            long written = socketChannel.write(chunks, 0, writeChunkCount);
+            if(written == 0)
                 break;
+            queuedBytes -= written;
+            metrics.tcpBytesSent.addAndGet(written);
+            releaseWrittenChunks();
+        }
+
+        if(queuedBytes == 0) return true;
+        metrics.partialWrites.incrementAndGet();
+        return false;
+    }
+
+    /** Returns chunks that were written completely to the pool. Must be called with the write lock held. */
+    private void releaseWrittenChunks(){
+        ByteBuffer[] chunks = writeChunks;
+        int written = 0;
+        while(written < writeChunkCount && !chunks[written].hasRemaining()){
+            writePool.free(chunks[written]);
+            written++;
+        }
+        if(written == 0) return;
+
+        System.arraycopy(chunks, written, chunks, 0, writeChunkCount - written);
+        for(int i = writeChunkCount - written; i < writeChunkCount; i++)
+            chunks[i] = null;
+        writeChunkCount -= written;
+    }
+
+    private void clearWriteChunks(){
+        synchronized(writeLock){
+            for(int i = 0; i < writeChunkCount; i++){
+                writePool.free(writeChunks[i]);
+                writeChunks[i] = null;
+            }
+            writeChunkCount = 0;
+            queuedBytes = 0;
+            writePending = false;
+        }
+    }
+
+    /**
+     * Returns the last chunk if it has at least the specified number of bytes
+     * free, otherwise appends a new chunk from the pool.
+     */
+    private ByteBuffer tailChunk(int free){
+        if(writeChunkCount > 0){
+            ByteBuffer tail = writeChunks[writeChunkCount - 1];
+            if(tail.capacity() - tail.limit() >= free) return tail;
         }
-        buffer.compact();
+        return addChunk();
+    }
 
-        return buffer.position() == 0;
+    private ByteBuffer addChunk(){
+        if(writeChunkCount == writeChunks.length){
+            ByteBuffer[] newChunks = new ByteBuffer[writeChunks.length * 2];
+            System.arraycopy(writeChunks, 0, newChunks, 0, writeChunkCount);
+            writeChunks = newChunks;
+        }
+        ByteBuffer chunk = writePool.obtain();
+        chunk.limit(0);
+        writeChunks[writeChunkCount++] = chunk;
+        return chunk;
+    }
+
+    /**
+     * Prepares a chunk for appending, by moving its position to the end of
+     * the queued data.
+     * @return The read position, to be passed to {@link #endAppend(ByteBuffer, int)}.
+     */
+    private static int beginAppend(ByteBuffer chunk){
+        int readPosition = chunk.position();
+        chunk.position(chunk.limit());
+        chunk.limit(chunk.capacity());
+        return readPosition;
+    }
+
+    /** Flips a chunk back for reading, including everything that was appended. */
+    private static void endAppend(ByteBuffer chunk, int readPosition){
+        chunk.limit(chunk.position());
+        chunk.position(readPosition);
     }
 
     /**
@@ -184,39 +318,127 @@ class TcpConnection{
         if(socketChannel == null)
             throw new SocketException("Connection is closed.");
         synchronized(writeLock){
-
-            int start = writeBuffer.position();
+            boolean wasEmpty = queuedBytes == 0;
             int lengthLength = serialization.getLengthLength();
 
-            try{
-                // Leave room for length.
-                writeBuffer.position(writeBuffer.position() + lengthLength);
-
-                // Write data.
-                serialization.write(writeBuffer, object);
-            }catch(Throwable ex){
-                throw new ArcNetException("Error serializing object of type: "
-                + object.getClass().getName(), ex);
+            while(true){
+                ByteBuffer chunk = tailChunk(lengthLength);
+                int readPosition = beginAppend(chunk);
+                int start = chunk.position();
+
+                long serializeStart = System.nanoTime();
+                try{
+                    // Leave room for length.
+                    chunk.position(start + lengthLength);
+
+                    // Write data.
+                    serialization.write(chunk, object);
+                }catch(BufferOverflowException ex){
+                    chunk.position(start);
+                    endAppend(chunk, readPosition);
+                    // The object did not fit behind the data already in this
+                    // chunk, so try again at the start of a new one.
+                    if(start > 0){
+                        addChunk();
+                        continue;
+                    }
+                    throw new ArcNetException("Error serializing object of type: "
+                    + object.getClass().getName(), ex);
+                }catch(Throwable ex){
+                    chunk.position(start);
+                    endAppend(chunk, readPosition);
+                    throw new ArcNetException("Error serializing object of type: "
+                    + object.getClass().getName(), ex);
+                }
+                metrics.serializeNanos.addAndGet(System.nanoTime() - serializeStart);
+                int end = chunk.position();
+                int length = end - start;
+
+                if(queuedBytes + length > writeBufferSize){
+                    chunk.position(start);
+                    endAppend(chunk, readPosition);
+                    throw new ArcNetException("Unable to queue " + length
+                    + " bytes, write buffer has " + (writeBufferSize - queuedBytes) + " bytes left.");
+                }
+
+                // Write data length.
+                chunk.position(start);
+                serialization.writeLength(chunk, length - lengthLength);
+                chunk.position(end);
+                endAppend(chunk, readPosition);
+
+                queuedBytes += length;
+                metrics.tcpObjectsSent.incrementAndGet();
+                return queued(wasEmpty, length);
             }
-            int end = writeBuffer.position();
-
-            // Write data length.
-            writeBuffer.position(start);
-            serialization.writeLength(writeBuffer, end - lengthLength - start);
-            writeBuffer.position(end);
-
-            // Write to socket if no data was queued.
-            if(start == 0 && !writeToSocket()){
-                // A partial write, set OP_WRITE to be notified when more
-                // writing can occur.
-                selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
-            }else{
-                // Full write, wake up selector so idle event will be fired.
-                selectionKey.selector().wakeup();
+        }
+    }
+
+    /**
+     * Queues bytes that were already serialized and prefixed with their length,
+     * from the position to the limit of the buffer. The position of the buffer
+     * is not modified, so the same buffer can be sent to several connections.
+     * This method is thread safe.
+     */
+    public int send(ByteBuffer serialized) throws IOException{
+        SocketChannel socketChannel = this.socketChannel;
+        if(socketChannel == null)
+            throw new SocketException("Connection is closed.");
+        synchronized(writeLock){
+            boolean wasEmpty = queuedBytes == 0;
+            int length = serialized.remaining();
+            if(queuedBytes + length > writeBufferSize)
+                throw new ArcNetException("Unable to queue " + length
+                + " bytes, write buffer has " + (writeBufferSize - queuedBytes) + " bytes left.");
+
+            int position = serialized.position(), limit = serialized.limit();
+            while(serialized.hasRemaining()){
+                ByteBuffer chunk = tailChunk(1);
+                int readPosition = beginAppend(chunk);
+                serialized.limit(serialized.position() + Math.min(serialized.remaining(), chunk.remaining()));
+                chunk.put(serialized);
+                serialized.limit(limit);
+                endAppend(chunk, readPosition);
             }
+            serialized.position(position);
 
-            lastWriteTime = System.currentTimeMillis();
-            return end - start;
+            queuedBytes += length;
+            metrics.tcpObjectsSent.incrementAndGet();
+            return queued(wasEmpty, length);
+        }
+    }
+
+    /** Must be called with the write lock held, after bytes were queued. */
+    private int queued(boolean wasEmpty, int length) throws IOException{
+        if(batching && queuedBytes < maxBatchBytes){
+            // Hold the bytes back until the batch is flushed.
+            if(wasEmpty)
+                batchStartTime = System.currentTimeMillis();
+        }else if(!writePending){
+            // Write to socket if the selector is not already waiting to.
+            writeQueued();
+        }else{
+            selectionKey.selector().wakeup();
+        }
+
+        lastWriteTime = System.currentTimeMillis();
+        return length;
+    }
+
+    /** @return Whether batched bytes have been held back for longer than the batch delay. */
+    public boolean needsFlush(long time){
+        return batching && batchDelayMillis > 0 && queuedBytes > 0 && time - batchStartTime >= batchDelayMillis;
+    }
+
+    /** @return The number of bytes waiting to be written to the socket. */
+    public int getQueuedBytes(){
+        return queuedBytes;
+    }
+
+    /** @return The number of bytes currently allocated for queued data. */
+    public int getAllocatedBytes(){
+        synchronized(writeLock){
+            return writeChunkCount * writePool.chunkSize;
         }
     }
 
@@ -230,6 +452,7 @@ class TcpConnection{
             }
         }catch(IOException ignored){
         }
+        clearWriteChunks();
     }
 
     public boolean needsKeepAlive(long time){
@@ -97,18 +97,21 @@ class UdpConnection{
 
     /**
      * This method is thread safe.
+     * @param metrics The counters to record the datagram in.
      */
-    public int send(Object object, SocketAddress address) throws IOException{
+    public int send(Object object, SocketAddress address, NetMetrics metrics) throws IOException{
         DatagramChannel datagramChannel = this.datagramChannel;
         if(datagramChannel == null)
             throw new SocketException("Connection is closed.");
         synchronized(writeLock){
             try{
+                long serializeStart = System.nanoTime();
                 try{
                     serialization.write(writeBuffer, object);
                 }catch(Exception ex){
                     throw new ArcNetException("Error serializing object of type: " + object.getClass().getName(), ex);
                 }
+                metrics.serializeNanos.addAndGet(System.nanoTime() - serializeStart);
                 writeBuffer.flip();
                 int length = writeBuffer.limit();
                 datagramChannel.send(writeBuffer, address);
@@ -116,6 +119,7 @@ class UdpConnection{
                 lastCommunicationTime = System.currentTimeMillis();
 
                 boolean wasFullWrite = !writeBuffer.hasRemaining();
+                if(wasFullWrite) sent(metrics, length);
                 return wasFullWrite ? length : -1;
             }finally{
                 writeBuffer.clear();
@@ -123,6 +127,47 @@ class UdpConnection{
         }
     }
 
+    /**
+     * Sends bytes that were already serialized, from the position to the limit
+     * of the buffer. The position of the buffer is not modified, so the same
+     * buffer can be sent to several addresses. This method is thread safe.
+     * @param metrics The counters to record the datagram in.
+     */
+    public int send(ByteBuffer serialized, SocketAddress address, NetMetrics metrics) throws IOException{
+        DatagramChannel datagramChannel = this.datagramChannel;
+        if(datagramChannel == null)
+            throw new SocketException("Connection is closed.");
+        synchronized(writeLock){
+            int position = serialized.position();
+            int length = serialized.remaining();
+            try{
+                datagramChannel.send(serialized, address);
+
+                lastCommunicationTime = System.currentTimeMillis();
+
+                boolean wasFullWrite = !serialized.hasRemaining();
+                if(wasFullWrite) sent(metrics, length);
+                return wasFullWrite ? length : -1;
+            }finally{
+                serialized.position(position);
+            }
+        }
+    }
+
+    private static void sent(NetMetrics metrics, int length){
+        metrics.udpBytesSent.addAndGet(length);
+        metrics.udpObjectsSent.incrementAndGet();
+    }
+
+    /**
+     * Records the datagram that was last read by {@link #readFromAddress()}.
+     * Must be called before {@link #readObject()}.
+     */
+    public void received(NetMetrics metrics){
+        metrics.udpBytesReceived.addAndGet(readBuffer.position());
+        metrics.udpObjectsReceived.incrementAndGet();
+    }
+
     public void close(){
         connectedAddress = null;
         try{
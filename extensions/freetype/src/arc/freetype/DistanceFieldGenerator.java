@@ -0,0 +1,106 @@
+package arc.freetype;
+
+import arc.graphics.*;
+import arc.graphics.Pixmap.*;
+
+import java.nio.*;
+
+/**
+ * Turns glyph coverage bitmaps rendered at a multiple of the target size into signed distance fields at the target size. Distances
+ * are computed with an exact Euclidean distance transform of the large bitmap, which is linear in its pixel count, and then sampled
+ * at the center of every output pixel.
+ * @see FreeTypeFontGenerator.FreeTypeFontParameter#distanceField
+ */
+class DistanceFieldGenerator{
+    private double[] outside = {}, inside = {}, f = {}, d = {}, z = {};
+    private int[] v = {};
+
+    /**
+     * @param coverage 8-bit coverage of the glyph, row by row
+     * @param pitch bytes between the starts of two coverage rows
+     * @param coverageX x position of the coverage bitmap in the upscaled output, in large pixels
+     * @param coverageY y position of the coverage bitmap in the upscaled output, in large pixels
+     * @param width width of the output in pixels
+     * @param height height of the output in pixels
+     * @param scale size of one output pixel in coverage pixels
+     * @param spread distance from the edge in output pixels at which the field reaches 0 or 1
+     * @return a pixmap of the given color, with the distance field in its alpha. The edge is at 0.5 and inside is above it.
+     */
+    Pixmap generate(ByteBuffer coverage, int pitch, int coverageWidth, int coverageHeight, int coverageX, int coverageY,
+                    int width, int height, int scale, float spread, Color color){
+        int gridWidth = width * scale, gridHeight = height * scale, size = gridWidth * gridHeight;
+        if(outside.length < size){
+            outside = new double[size];
+            inside = new double[size];
+        }
+        int line = Math.max(gridWidth, gridHeight);
+        if(f.length < line){
+            f = new double[line];
+            d = new double[line];
+            z = new double[line + 1];
+            v = new int[line];
+        }
+
+        for(int i = 0; i < size; i++){
+            outside[i] = Pixmaps.infinity;
+            inside[i] = 0;
+        }
+        for(int y = 0; y < coverageHeight; y++){
+            int row = y * pitch, cell = (y + coverageY) * gridWidth + coverageX;
+            for(int x = 0; x < coverageWidth; x++){
+                if((coverage.get(row + x) & 0xff) >= 128){
+                    outside[cell + x] = 0;
+                    inside[cell + x] = Pixmaps.infinity;
+                }
+            }
+        }
+
+        transformGrid(outside, gridWidth, gridHeight, scale);
+        transformGrid(inside, gridWidth, gridHeight, scale);
+
+        Pixmap pixmap = new Pixmap(width, height, Format.rgba8888);
+        ByteBuffer pixels = pixmap.getPixels();
+        byte r = (byte)(color.r * 255), g = (byte)(color.g * 255), b = (byte)(color.b * 255);
+        float range = 2f * spread * scale;
+        for(int y = 0; y < height; y++){
+            for(int x = 0; x < width; x++){
+                int cell = (y * scale + scale / 2) * gridWidth + x * scale + scale / 2;
+                //squared distances are to the nearest pixel center on the other side; the edge lies half a pixel before it
+                double distance = Math.sqrt(outside[cell]) - Math.sqrt(inside[cell]);
+                distance += distance > 0 ? -0.5 : 0.5;
+                float value = 0.5f - (float)distance / range;
+
+                int pixel = (y * width + x) * 4;
+                pixels.put(pixel, r);
+                pixels.put(pixel + 1, g);
+                pixels.put(pixel + 2, b);
+                pixels.put(pixel + 3, (byte)(Math.min(Math.max(value, 0f), 1f) * 255 + 0.5f));
+            }
+        }
+        return pixmap;
+    }
+
+    /**
+     * Replaces values with the squared distance to the nearest zero, by transforming columns and then rows. Only the rows that
+     * contain the centers of output pixels are transformed, as no other row is sampled.
+     */
+    private void transformGrid(double[] grid, int width, int height, int scale){
+        for(int x = 0; x < width; x++){
+            transform(grid, x, width, height);
+        }
+        for(int y = scale / 2; y < height; y += scale){
+            transform(grid, y * width, 1, width);
+        }
+    }
+
+    /** Transforms one row or column of the grid with {@link Pixmaps#distanceTransform(double[], double[], int[], double[], int)}. */
+    private void transform(double[] grid, int offset, int stride, int length){
+        for(int q = 0; q < length; q++){
+            f[q] = grid[offset + q * stride];
+        }
+        Pixmaps.distanceTransform(f, d, v, z, length);
+        for(int q = 0; q < length; q++){
+            grid[offset + q * stride] = d[q];
+        }
+    }
+}
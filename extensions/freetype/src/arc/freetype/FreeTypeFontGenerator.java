@@ -7,6 +7,7 @@ import arc.graphics.Color;
 import arc.graphics.Pixmap;
 import arc.graphics.Pixmap.Format;
 import arc.graphics.Texture.TextureFilter;
+import arc.graphics.g2d.DistanceFieldFont;
 import arc.graphics.g2d.Font;
 import arc.graphics.g2d.Font.FontData;
 import arc.graphics.g2d.Font.Glyph;
@@ -40,6 +41,9 @@ import java.nio.ByteBuffer;
  * gen.dispose(); // Don't dispose if doing incremental glyph generation.
  * </pre>
  * <p>
+ * With {@link FreeTypeFontParameter#distanceField}, glyphs are stored as signed distance fields and the generated font is a
+ * {@link DistanceFieldFont}, which stays sharp at any scale. One such font can replace several bitmap fonts of different sizes.
+ * <p>
  * The generator has to be disposed once it is no longer used. The returned {@link Font} instances are managed by the user
  * and have to be disposed as usual.
  * @author mzechner
@@ -64,6 +68,7 @@ public class FreeTypeFontGenerator implements Disposable{
     final Face face;
     final String name;
     boolean bitmapped = false;
+    DistanceFieldGenerator distanceFields;
 
     /** {@link #FreeTypeFontGenerator(Fi, int)} */
     public FreeTypeFontGenerator(Fi fontFile){
@@ -207,7 +212,14 @@ public class FreeTypeFontGenerator implements Disposable{
         if(updateTextureRegions)
             parameter.packer.updateTextureRegions(data.regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
         if(data.regions.isEmpty()) throw new ArcRuntimeException("Unable to create a font with no texture regions.");
-        Font font = new Font(data, data.regions, true);
+        Font font;
+        if(parameter.distanceField){
+            DistanceFieldFont distanceFont = new DistanceFieldFont(data, data.regions, true);
+            distanceFont.setDistanceFieldSmoothing(parameter.distanceFieldSpread);
+            font = distanceFont;
+        }else{
+            font = new Font(data, data.regions, true);
+        }
         font.setOwnsTexture(parameter.packer == null);
         return font;
     }
@@ -338,6 +350,16 @@ public class FreeTypeFontGenerator implements Disposable{
         boolean incremental = parameter.incremental;
         int flags = getLoadingFlags(parameter);
 
+        if(parameter.distanceField){
+            if(bitmapped) throw new ArcRuntimeException("Distance fields can't be generated for bitmap fonts");
+            if(parameter.distanceFieldSpread < 1 || parameter.distanceFieldUpscale < 1)
+                throw new ArcRuntimeException("Distance field spread and upscale must be at least 1");
+            // Distance fields are interpolated between texels, nearest filtering makes them blocky.
+            if(parameter.minFilter == TextureFilter.nearest) parameter.minFilter = TextureFilter.linear;
+            if(parameter.magFilter == TextureFilter.nearest) parameter.magFilter = TextureFilter.linear;
+            if(distanceFields == null) distanceFields = new DistanceFieldGenerator();
+        }
+
         setPixelSizes(0, parameter.size);
 
         // set general font data
@@ -384,6 +406,10 @@ public class FreeTypeFontGenerator implements Disposable{
 
         data.ascent -= data.capHeight;
         data.down = -data.lineHeight;
+        if(parameter.distanceField){
+            // Glyphs include the field around them, which layouts should not count.
+            data.padTop = data.padLeft = data.padBottom = data.padRight = parameter.distanceFieldSpread;
+        }
         if(parameter.flip){
             data.ascent = -data.ascent;
             data.down = -data.down;
@@ -402,6 +428,7 @@ public class FreeTypeFontGenerator implements Disposable{
                 packStrategy = new GuillotineStrategy();
             }else{
                 int maxGlyphHeight = (int)Math.ceil(data.lineHeight);
+                if(parameter.distanceField) maxGlyphHeight += parameter.distanceFieldSpread * 2;
                 size = Mathf.nextPowerOfTwo((int)Math.sqrt(maxGlyphHeight * maxGlyphHeight * charactersLength));
                 if(maxTextureSize > 0) size = Math.min(size, maxTextureSize);
                 packStrategy = new SkylineStrategy();
@@ -529,6 +556,7 @@ public class FreeTypeFontGenerator implements Disposable{
         if(missing) return null;
 
         if(!loadChar(c, getLoadingFlags(parameter))) return null;
+        if(parameter.distanceField) return createDistanceFieldGlyph(c, data, parameter, baseLine, packer);
 
         GlyphSlot slot = face.getGlyph();
         FreeType.Glyph mainGlyph = slot.getGlyph();
@@ -641,7 +669,71 @@ public class FreeTypeFontGenerator implements Disposable{
             }
         }
 
-        Rect rect = packer.pack(mainPixmap);
+        pack(glyph, mainPixmap, data, parameter, packer);
+        mainPixmap.dispose();
+        mainGlyph.dispose();
+
+        return glyph;
+    }
+
+    /**
+     * Creates a glyph for a character that is loaded at the parameter's size. Its shape is rendered at
+     * {@link FreeTypeFontParameter#distanceFieldUpscale} times that size, and then turned into a distance field at the original size.
+     * @return null if the glyph could not be rendered.
+     */
+    Glyph createDistanceFieldGlyph(char c, FreeTypeFontData data, FreeTypeFontParameter parameter, float baseLine, PixmapPacker packer){
+        int scale = parameter.distanceFieldUpscale, spread = parameter.distanceFieldSpread;
+
+        Glyph glyph = new Glyph();
+        glyph.id = c;
+        glyph.xadvance = FreeType.toInt(face.getGlyph().getMetrics().getHoriAdvance()) + parameter.spaceX;
+
+        Pixmap pixmap;
+        int top = 0;
+        setPixelSizes(0, parameter.size * scale);
+        try{
+            // Embedded bitmaps are made for small sizes and can't be scaled down precisely.
+            if(!loadChar(c, getLoadingFlags(parameter) | FreeType.FT_LOAD_NO_BITMAP)) return null;
+            GlyphSlot slot = face.getGlyph();
+            if(!slot.renderGlyph(FreeType.FT_RENDER_MODE_NORMAL)){
+                Log.infoTag("FreeTypeFontGenerator", "Couldn't render char: " + c);
+                return null;
+            }
+
+            Bitmap bitmap = slot.getBitmap();
+            int width = bitmap.getWidth(), rows = bitmap.getRows();
+            if(width == 0 || rows == 0){
+                pixmap = new Pixmap(0, 0, Format.rgba8888);
+            }else{
+                // Expand the bitmap's bounds to whole output pixels, plus room for the field around the glyph.
+                int bitmapLeft = slot.getBitmapLeft(), bitmapTop = slot.getBitmapTop();
+                int left = Mathf.floor(bitmapLeft / (float)scale) - spread, right = Mathf.ceil((bitmapLeft + width) / (float)scale) + spread;
+                int bottom = Mathf.floor((bitmapTop - rows) / (float)scale) - spread;
+                top = Mathf.ceil(bitmapTop / (float)scale) + spread;
+
+                pixmap = distanceFields.generate(bitmap.getBuffer(), Math.abs(bitmap.getPitch()), width, rows,
+                    bitmapLeft - left * scale, top * scale - bitmapTop, right - left, top - bottom, scale, spread, parameter.color);
+                glyph.xoffset = left;
+            }
+        }finally{
+            setPixelSizes(0, parameter.size);
+        }
+
+        glyph.width = pixmap.getWidth();
+        glyph.height = pixmap.getHeight();
+        if(parameter.flip)
+            glyph.yoffset = -top + (int)baseLine;
+        else
+            glyph.yoffset = -(glyph.height - top) - (int)baseLine;
+
+        pack(glyph, pixmap, data, parameter, packer);
+        pixmap.dispose();
+
+        return glyph;
+    }
+
+    void pack(Glyph glyph, Pixmap pixmap, FreeTypeFontData data, FreeTypeFontParameter parameter, PixmapPacker packer){
+        Rect rect = packer.pack(pixmap);
         glyph.page = packer.getPages().size - 1; // Glyph is always packed into the last page for now.
         glyph.srcX = (int)rect.x;
         glyph.srcY = (int)rect.y;
@@ -649,11 +741,6 @@ public class FreeTypeFontGenerator implements Disposable{
         // If a page was added, create a new texture region for the incrementally added glyph.
         if(parameter.incremental && data.regions != null && data.regions.size <= glyph.page)
             packer.updateTextureRegions(data.regions, parameter.minFilter, parameter.magFilter, parameter.genMipMaps);
-
-        mainPixmap.dispose();
-        mainGlyph.dispose();
-
-        return glyph;
     }
 
     /** Cleans up all resources of the generator. Call this if you no longer use the generator. */
@@ -808,6 +895,17 @@ public class FreeTypeFontGenerator implements Disposable{
         public TextureFilter minFilter = TextureFilter.nearest;
         /** Magnification filter */
         public TextureFilter magFilter = TextureFilter.nearest;
+        /**
+         * Whether to store glyphs as signed distance fields instead of bitmaps. The font is then a {@link DistanceFieldFont}, which
+         * must be drawn with {@link DistanceFieldFont#createDistanceFieldShader()}, and is sharp at any scale. Nearest filters are
+         * replaced with linear ones. Borders, shadows, padding, gamma, mono and renderCount are ignored; borders and shadows can be
+         * drawn by the shader instead.
+         */
+        public boolean distanceField;
+        /** Distance from the glyph edges in pixels at which the distance field ends. Larger values allow wider shader effects. */
+        public int distanceFieldSpread = 4;
+        /** How many times larger glyphs are rendered before their distance field is computed. Higher is more precise but slower. */
+        public int distanceFieldUpscale = 8;
         /**
          * When true, glyphs are rendered on the fly to the font's glyph page textures as they are needed. The
          * FreeTypeFontGenerator must not be disposed until the font is no longer needed. The FreeTypeBitmapFontData must be
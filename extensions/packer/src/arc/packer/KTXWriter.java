@@ -0,0 +1,284 @@
+package arc.packer;
+
+import java.awt.image.*;
+import java.io.*;
+import java.nio.*;
+import java.util.stream.*;
+
+/**
+ * Writes images as KTX 1 files containing ETC2 RGBA8 (GL_COMPRESSED_RGBA8_ETC2_EAC) data, which is a quarter of the size of
+ * RGBA8888 in video memory and is part of OpenGL ES 3.0. Colors use the ETC1-compatible individual and differential modes and
+ * alpha uses EAC, so the encoder is simple and fast rather than optimal.
+ */
+public class KTXWriter{
+    static final int GL_COMPRESSED_RGBA8_ETC2_EAC = 0x9278, GL_RGBA = 0x1908;
+    static final byte[] identifier = {(byte)0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte)0xBB, '\r', '\n', 0x1A, '\n'};
+
+    static final int[][] colorTables = {{2, 8}, {5, 17}, {9, 29}, {13, 42}, {18, 60}, {24, 80}, {33, 106}, {47, 183}};
+    static final int[][] alphaTables = {
+    {-3, -6, -9, -15, 2, 5, 8, 14}, {-3, -7, -10, -13, 2, 6, 9, 12}, {-2, -5, -8, -13, 1, 4, 7, 12}, {-2, -4, -6, -13, 1, 3, 5, 12},
+    {-3, -6, -8, -12, 2, 5, 7, 11}, {-3, -7, -9, -11, 2, 6, 8, 10}, {-4, -7, -8, -11, 3, 6, 7, 10}, {-3, -5, -8, -11, 2, 4, 7, 10},
+    {-2, -6, -8, -10, 1, 5, 7, 9}, {-2, -5, -8, -10, 1, 4, 7, 9}, {-2, -4, -8, -10, 1, 3, 7, 9}, {-2, -5, -7, -10, 1, 4, 6, 9},
+    {-3, -4, -7, -10, 2, 3, 6, 9}, {-1, -2, -3, -10, 0, 1, 2, 9}, {-4, -6, -8, -9, 3, 5, 7, 8}, {-3, -5, -7, -9, 2, 4, 6, 8}
+    };
+
+    /**
+     * Encodes the image and writes it to a KTX file.
+     * @param mipmaps whether to write a full mip chain, generated with a box filter. Compressed textures cannot have their
+     * mipmaps generated at runtime, so this should be set if the texture uses a mipmap filter.
+     */
+    public static void write(BufferedImage image, File file, boolean mipmaps) throws IOException{
+        int width = image.getWidth(), height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int levels = mipmaps ? 32 - Integer.numberOfLeadingZeros(Math.max(width, height)) : 1;
+
+        try(OutputStream output = new BufferedOutputStream(new FileOutputStream(file))){
+            ByteBuffer header = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(identifier);
+            header.putInt(0x04030201);
+            header.putInt(0); //glType: compressed
+            header.putInt(1); //glTypeSize
+            header.putInt(0); //glFormat: compressed
+            header.putInt(GL_COMPRESSED_RGBA8_ETC2_EAC);
+            header.putInt(GL_RGBA);
+            header.putInt(width);
+            header.putInt(height);
+            header.putInt(0); //depth
+            header.putInt(0); //array elements
+            header.putInt(1); //faces
+            header.putInt(levels);
+            header.putInt(0); //key/value data
+            output.write(header.array());
+
+            for(int level = 0; level < levels; level++){
+                if(level > 0){
+                    pixels = downsample(pixels, width, height);
+                    width = Math.max(width / 2, 1);
+                    height = Math.max(height / 2, 1);
+                }
+
+                byte[] data = encode(pixels, width, height);
+                ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                size.putInt(data.length);
+                output.write(size.array());
+                //block data is always a multiple of 16 bytes, so no mip padding is needed
+                output.write(data);
+            }
+        }
+    }
+
+    /** Encodes ARGB pixels as ETC2 RGBA8 blocks, 16 bytes per 4x4 block in row-major block order. */
+    public static byte[] encode(int[] pixels, int width, int height){
+        int blocksX = (width + 3) / 4, blocksY = (height + 3) / 4;
+        byte[] out = new byte[blocksX * blocksY * 16];
+
+        IntStream.range(0, blocksY).parallel().forEach(by -> {
+            int[] block = new int[16];
+            for(int bx = 0; bx < blocksX; bx++){
+                //pixels are stored column-major, the order ETC uses for its indices; edges are clamped
+                for(int x = 0; x < 4; x++){
+                    for(int y = 0; y < 4; y++){
+                        int px = Math.min(bx * 4 + x, width - 1), py = Math.min(by * 4 + y, height - 1);
+                        block[x * 4 + y] = pixels[px + py * width];
+                    }
+                }
+
+                int offset = (bx + by * blocksX) * 16;
+                putLong(out, offset, encodeAlpha(block));
+                putLong(out, offset + 8, encodeColor(block));
+            }
+        });
+        return out;
+    }
+
+    static long encodeAlpha(int[] block){
+        int min = 255, max = 0;
+        for(int pixel : block){
+            int a = pixel >>> 24;
+            min = Math.min(min, a);
+            max = Math.max(max, a);
+        }
+
+        //table 13 has a zero modifier at index 4, which reproduces uniform alpha exactly
+        if(min == max){
+            long bits = ((long)min << 56) | (1L << 52) | (13L << 48);
+            for(int i = 0; i < 16; i++) bits |= 4L << (45 - i * 3);
+            return bits;
+        }
+
+        long best = Long.MAX_VALUE, bestBits = 0;
+        for(int t = 0; t < 16; t++){
+            int[] table = alphaTables[t];
+            for(int m = 1; m < 16; m++){
+                int base = clamp(Math.round((min - table[3] * m + max - table[7] * m) / 2f));
+                long error = 0, bits = ((long)base << 56) | ((long)m << 52) | ((long)t << 48);
+
+                for(int i = 0; i < 16 && error < best; i++){
+                    int a = block[i] >>> 24, bestIndex = 0, bestError = Integer.MAX_VALUE;
+                    for(int j = 0; j < 8; j++){
+                        int diff = clamp(base + table[j] * m) - a;
+                        if(diff * diff < bestError){
+                            bestError = diff * diff;
+                            bestIndex = j;
+                        }
+                    }
+                    error += bestError;
+                    bits |= (long)bestIndex << (45 - i * 3);
+                }
+
+                if(error < best){
+                    best = error;
+                    bestBits = bits;
+                }
+            }
+        }
+        return bestBits;
+    }
+
+    static long encodeColor(int[] block){
+        long best = Long.MAX_VALUE, bestBits = 0;
+        int[] first = new int[3], second = new int[3], result = new int[2];
+
+        for(int flip = 0; flip < 2; flip++){
+            average(block, flip, 0, first);
+            average(block, flip, 1, second);
+
+            //individual mode: two 4-bit base colors
+            long bits = (long)flip << 32;
+            long error = 0;
+            int[] base = new int[6];
+            for(int c = 0; c < 3; c++){
+                base[c] = Math.round(first[c] * 15 / 255f);
+                base[c + 3] = Math.round(second[c] * 15 / 255f);
+                bits |= ((long)base[c] << (60 - c * 8)) | ((long)base[c + 3] << (56 - c * 8));
+            }
+            error += fit(block, flip, 0, base[0] * 17, base[1] * 17, base[2] * 17, result);
+            bits |= (long)result[0] << 37 | indices(block, flip, 0, base[0] * 17, base[1] * 17, base[2] * 17, result[0]);
+            error += fit(block, flip, 1, base[3] * 17, base[4] * 17, base[5] * 17, result);
+            bits |= (long)result[0] << 34 | indices(block, flip, 1, base[3] * 17, base[4] * 17, base[5] * 17, result[0]);
+
+            if(error < best){
+                best = error;
+                bestBits = bits;
+            }
+
+            //differential mode: a 5-bit base color and a 3-bit signed delta, which must stay in range for ETC2 decoders
+            bits = (long)flip << 32 | 1L << 33;
+            error = 0;
+            for(int c = 0; c < 3; c++){
+                int q1 = Math.round(first[c] * 31 / 255f);
+                int q2 = Math.max(q1 - 4, Math.min(q1 + 3, Math.round(second[c] * 31 / 255f)));
+                base[c] = expand5(q1);
+                base[c + 3] = expand5(q2);
+                bits |= ((long)q1 << (59 - c * 8)) | ((long)((q2 - q1) & 7) << (56 - c * 8));
+            }
+            error += fit(block, flip, 0, base[0], base[1], base[2], result);
+            bits |= (long)result[0] << 37 | indices(block, flip, 0, base[0], base[1], base[2], result[0]);
+            error += fit(block, flip, 1, base[3], base[4], base[5], result);
+            bits |= (long)result[0] << 34 | indices(block, flip, 1, base[3], base[4], base[5], result[0]);
+
+            if(error < best){
+                best = error;
+                bestBits = bits;
+            }
+        }
+        return bestBits;
+    }
+
+    /** Finds the modifier table with the lowest error for one sub-block, storing it in result[0]. @return the error. */
+    static long fit(int[] block, int flip, int sub, int r, int g, int b, int[] result){
+        long best = Long.MAX_VALUE;
+        for(int t = 0; t < 8; t++){
+            long error = 0;
+            for(int i = 0; i < 16; i++){
+                if(inSub(i, flip) != sub) continue;
+                error += (long)(block[i] >>> 24 == 0 ? 0 : nearest(block[i], r, g, b, colorTables[t]) >>> 2);
+            }
+            if(error < best){
+                best = error;
+                result[0] = t;
+            }
+        }
+        return best;
+    }
+
+    /** @return the index bits of every pixel in a sub-block, for both the most and least significant planes. */
+    static long indices(int[] block, int flip, int sub, int r, int g, int b, int table){
+        long bits = 0;
+        for(int i = 0; i < 16; i++){
+            if(inSub(i, flip) != sub) continue;
+            int index = nearest(block[i], r, g, b, colorTables[table]) & 3;
+            bits |= ((long)(index >> 1) << (16 + i)) | ((long)(index & 1) << i);
+        }
+        return bits;
+    }
+
+    /** @return the squared error of the best modifier shifted left by 2, combined with its index. */
+    static int nearest(int pixel, int r, int g, int b, int[] table){
+        int pr = (pixel >> 16) & 0xff, pg = (pixel >> 8) & 0xff, pb = pixel & 0xff;
+        int best = Integer.MAX_VALUE;
+        for(int index = 0; index < 4; index++){
+            int modifier = (index & 1) == 0 ? table[0] : table[1];
+            if(index >= 2) modifier = -modifier;
+            int dr = clamp(r + modifier) - pr, dg = clamp(g + modifier) - pg, db = clamp(b + modifier) - pb;
+            int error = (dr * dr + dg * dg + db * db) << 2 | index;
+            if(error < best) best = error;
+        }
+        return best;
+    }
+
+    /** Averages the color of a sub-block, ignoring fully transparent pixels unless all of them are. */
+    static void average(int[] block, int flip, int sub, int[] out){
+        int r = 0, g = 0, b = 0, count = 0;
+        for(int pass = 0; pass < 2 && count == 0; pass++){
+            for(int i = 0; i < 16; i++){
+                if(inSub(i, flip) != sub || (pass == 0 && block[i] >>> 24 == 0)) continue;
+                r += (block[i] >> 16) & 0xff;
+                g += (block[i] >> 8) & 0xff;
+                b += block[i] & 0xff;
+                count++;
+            }
+        }
+        out[0] = r / count;
+        out[1] = g / count;
+        out[2] = b / count;
+    }
+
+    /** @return which sub-block a column-major pixel index belongs to. Without flip, sub-blocks are 2x4; with flip, 4x2. */
+    static int inSub(int i, int flip){
+        return flip == 0 ? (i / 4) / 2 : (i % 4) / 2;
+    }
+
+    static int[] downsample(int[] pixels, int width, int height){
+        int w = Math.max(width / 2, 1), h = Math.max(height / 2, 1);
+        int[] out = new int[w * h];
+        for(int y = 0; y < h; y++){
+            for(int x = 0; x < w; x++){
+                int x0 = Math.min(x * 2, width - 1), x1 = Math.min(x * 2 + 1, width - 1);
+                int y0 = Math.min(y * 2, height - 1), y1 = Math.min(y * 2 + 1, height - 1);
+                int p0 = pixels[x0 + y0 * width], p1 = pixels[x1 + y0 * width], p2 = pixels[x0 + y1 * width], p3 = pixels[x1 + y1 * width];
+                int result = 0;
+                for(int shift = 0; shift < 32; shift += 8){
+                    int sum = ((p0 >>> shift) & 0xff) + ((p1 >>> shift) & 0xff) + ((p2 >>> shift) & 0xff) + ((p3 >>> shift) & 0xff);
+                    result |= ((sum + 2) / 4) << shift;
+                }
+                out[x + y * w] = result;
+            }
+        }
+        return out;
+    }
+
+    static int expand5(int value){
+        return (value << 3) | (value >> 2);
+    }
+
+    static int clamp(int value){
+        return value < 0 ? 0 : value > 255 ? 255 : value;
+    }
+
+    static void putLong(byte[] out, int offset, long value){
+        for(int i = 0; i < 8; i++){
+            out[offset + i] = (byte)(value >>> (56 - i * 8));
+        }
+    }
+}
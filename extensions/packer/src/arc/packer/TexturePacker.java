@@ -286,6 +286,9 @@ public class TexturePacker{
                     ios = ImageIO.createImageOutputStream(outputFile);
                     writer.setOutput(ios);
                     writer.write(null, new IIOImage(canvas, null, null), param);
+                }else if(settings.outputFormat.equalsIgnoreCase("ktx")){
+                    if(settings.premultiplyAlpha) canvas.getColorModel().coerceData(canvas.getRaster(), true);
+                    KTXWriter.write(canvas, outputFile, settings.filterMin.isMipMap());
                 }else{
                     if(settings.premultiplyAlpha) canvas.getColorModel().coerceData(canvas.getRaster(), true);
                     ImageIO.write(canvas, "png", outputFile);
@@ -342,6 +345,15 @@ public class TexturePacker{
             }
         }
 
+        if(settings.binaryAtlas){
+            writeBinaryPackFile(packFile, pages);
+            return;
+        }
+
+        if(packFile.exists() && packFile.length() > 0 && TextureAtlasData.isBinary(new Fi(packFile))){
+            throw new ArcRuntimeException("Cannot append text pages to a binary pack file: " + packFile);
+        }
+
         Writer writer = new OutputStreamWriter(new FileOutputStream(packFile, true), StandardCharsets.UTF_8);
         for(Page page : pages){
             writer.write("\n" + page.imageName + "\n");
@@ -366,6 +378,83 @@ public class TexturePacker{
         writer.close();
     }
 
+    /** Appends pages in the binary format described in {@link TextureAtlasData}, writing the header first for a new file. */
+    private void writeBinaryPackFile(File packFile, Seq<Page> pages) throws IOException{
+        boolean append = packFile.exists() && packFile.length() > 0;
+        if(append && !TextureAtlasData.isBinary(new Fi(packFile))){
+            throw new ArcRuntimeException("Cannot append binary pages to a text pack file: " + packFile);
+        }
+
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(packFile, true)))){
+            if(!append){
+                output.write(TextureAtlasData.binaryMagic);
+                output.writeByte(TextureAtlasData.binaryVersion);
+            }
+
+            for(Page page : pages){
+                writeString(output, page.imageName);
+                output.writeShort(page.imageWidth);
+                output.writeShort(page.imageHeight);
+                writeString(output, settings.format.name());
+                writeString(output, settings.filterMin.name());
+                writeString(output, settings.filterMag.name());
+                writeString(output, settings.wrapX.name());
+                writeString(output, settings.wrapY.name());
+
+                page.outputRects.sort();
+                Seq<Rect> rects = new Seq<>();
+                Seq<String> names = new Seq<>();
+                for(Rect rect : page.outputRects){
+                    rects.add(rect);
+                    names.add(rect.name);
+                    Seq<Alias> aliases = new Seq<>(rect.aliases.toArray(new Alias[0]));
+                    aliases.sort();
+                    for(Alias alias : aliases){
+                        Rect aliasRect = new Rect();
+                        aliasRect.set(rect);
+                        alias.apply(aliasRect);
+                        rects.add(aliasRect);
+                        names.add(alias.name);
+                    }
+                }
+
+                output.writeInt(rects.size);
+                for(int i = 0; i < rects.size; i++){
+                    writeBinaryRect(output, page, rects.get(i), names.get(i));
+                }
+            }
+        }
+    }
+
+    private void writeBinaryRect(DataOutputStream output, Page page, Rect rect, String name) throws IOException{
+        //pads are only read alongside splits, so a padded region without splits gets empty ones, as in the text format
+        int[] splits = rect.splits == null && rect.pads != null ? new int[4] : rect.splits;
+
+        writeString(output, Rect.getAtlasName(name, settings.flattenPaths));
+        output.writeByte((rect.rotated ? 1 : 0) | (splits != null ? 2 : 0) | (rect.pads != null ? 4 : 0));
+        output.writeShort(page.x + rect.x);
+        output.writeShort(page.y + page.height - rect.y - (rect.height - settings.paddingY));
+        output.writeShort(rect.regionWidth);
+        output.writeShort(rect.regionHeight);
+        if(splits != null){
+            for(int split : splits) output.writeShort(split);
+        }
+        if(rect.pads != null){
+            for(int pad : rect.pads) output.writeShort(pad);
+        }
+        output.writeShort(rect.originalWidth);
+        output.writeShort(rect.originalHeight);
+        output.writeShort(rect.offsetX);
+        output.writeShort(rect.originalHeight - rect.regionHeight - rect.offsetY);
+        output.writeInt(rect.index);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException{
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
     private void writeRect(Writer writer, Page page, Rect rect, String name) throws IOException{
         writer.write(Rect.getAtlasName(name, settings.flattenPaths) + "\n");
         writer.write("  rotate: " + rect.rotated + "\n");
@@ -782,6 +871,7 @@ public class TexturePacker{
         public TextureWrap wrapX = TextureWrap.clampToEdge, wrapY = TextureWrap.clampToEdge;
         public Format format = Format.rgba8888;
         public boolean alias = true;
+        /** The page image format: png, jpg or ktx. ktx writes ETC2 compressed pages, see {@link KTXWriter}. */
         public String outputFormat = "png";
         public float jpegQuality = 0.9f;
         public boolean ignoreBlankImages = true;
@@ -801,6 +891,8 @@ public class TexturePacker{
         public String[] scaleSuffix = {""};
         public Resampling[] scaleResampling = {Resampling.bicubic};
         public String atlasExtension = ".atlas";
+        /** Writes the pack file in the binary format described in {@link TextureAtlasData}, which loads much faster. */
+        public boolean binaryAtlas;
 
         public Settings(){
         }
@@ -852,6 +944,7 @@ public class TexturePacker{
             scaleSuffix = Arrays.copyOf(settings.scaleSuffix, settings.scaleSuffix.length);
             scaleResampling = Arrays.copyOf(settings.scaleResampling, settings.scaleResampling.length);
             atlasExtension = settings.atlasExtension;
+            binaryAtlas = settings.binaryAtlas;
         }
 
         public String getScaledPackFileName(String packFileName, int scaleIndex){